@@ -0,0 +1,137 @@
+package xyz.kuilei.tools.benchmark;
+
+import com.sun.management.GarbageCollectionNotificationInfo;
+
+import javax.annotation.Nonnull;
+import javax.management.ListenerNotFoundException;
+import javax.management.Notification;
+import javax.management.NotificationEmitter;
+import javax.management.NotificationListener;
+import javax.management.openmbean.CompositeData;
+import java.lang.management.*;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAccumulator;
+
+/**
+ * 一次压测期间的 JVM 指标：堆的峰值、GC 停顿、分配速率
+ * <p>
+ * 1. 堆峰值：各个堆内存池峰值之和（开始时清零），偏保守；
+ * 2. GC 停顿：HotSpot 的 GC 通知，每次 GC 的耗时，停顿总和与最大值；
+ * 3. 分配：所有线程的已分配字节数在开始、结束时的差，期间结束的线程不计入。
+ *
+ * @author JiaKun Xu, 2026-10-19 22:58:14
+ */
+class JvmMonitor {
+    @Nonnull
+    private final List<MemoryPoolMXBean> heapPools = new ArrayList<>();
+    @Nonnull
+    private final List<NotificationEmitter> emitters = new ArrayList<>();
+
+    private final AtomicLong gcCount = new AtomicLong();
+    private final AtomicLong gcMillis = new AtomicLong();
+    private final LongAccumulator gcMaxPause = new LongAccumulator(Math::max, 0);
+
+    @Nonnull
+    private final NotificationListener listener = this::onNotification;
+
+    private long startNanos;
+    private long startAllocated;
+
+    JvmMonitor() {
+        for (MemoryPoolMXBean pool : ManagementFactory.getMemoryPoolMXBeans()) {
+            if (pool.getType() == MemoryType.HEAP && pool.isValid()) {
+                heapPools.add(pool);
+            }
+        }
+    }
+
+    void start() {
+        for (MemoryPoolMXBean pool : heapPools) {
+            pool.resetPeakUsage();
+        }
+        for (GarbageCollectorMXBean gc : ManagementFactory.getGarbageCollectorMXBeans()) {
+            if (gc instanceof NotificationEmitter) {
+                ((NotificationEmitter) gc).addNotificationListener(listener, null, null);
+                emitters.add((NotificationEmitter) gc);
+            }
+        }
+
+        startAllocated = allocatedBytes();
+        startNanos = System.nanoTime();
+    }
+
+    /**
+     * @return 有序，可以直接转 JSON
+     */
+    @Nonnull
+    LinkedHashMap<String, Object> stop() {
+        final long elapsed = System.nanoTime() - startNanos;
+        final long allocated = allocatedBytes() - startAllocated;
+
+        for (NotificationEmitter emitter : emitters) {
+            try {
+                emitter.removeNotificationListener(listener);
+            } catch (ListenerNotFoundException ignored) {
+                // 不会发生
+            }
+        }
+
+        emitters.clear();
+
+        long peakHeap = 0;
+
+        for (MemoryPoolMXBean pool : heapPools) {
+            peakHeap += pool.getPeakUsage().getUsed();
+        }
+
+        final LinkedHashMap<String, Object> stats = new LinkedHashMap<>();
+
+        stats.put("peakHeapMb", mb(peakHeap));
+        stats.put("maxHeapMb", mb(Runtime.getRuntime().maxMemory()));
+        stats.put("gcCount", gcCount.get());
+        stats.put("gcPauseTotalMs", gcMillis.get());
+        stats.put("gcPauseMaxMs", gcMaxPause.get());
+        stats.put("allocatedMb", mb(allocated));
+        stats.put("allocMbPerSec", mb(allocated) * 1e9 / Math.max(1, elapsed));
+        return stats;
+    }
+
+    private void onNotification(@Nonnull Notification notification, Object handback) {
+        if (!GarbageCollectionNotificationInfo.GARBAGE_COLLECTION_NOTIFICATION.equals(notification.getType())) {
+            return;
+        }
+
+        final GarbageCollectionNotificationInfo info = GarbageCollectionNotificationInfo.from((CompositeData) notification.getUserData());
+        final long duration = info.getGcInfo().getDuration();
+
+        gcCount.incrementAndGet();
+        gcMillis.addAndGet(duration);
+        gcMaxPause.accumulate(duration);
+    }
+
+    private static long allocatedBytes() {
+        final ThreadMXBean threads = ManagementFactory.getThreadMXBean();
+
+        if (!(threads instanceof com.sun.management.ThreadMXBean)) {
+            return 0;
+        }
+
+        final long[] allocated = ((com.sun.management.ThreadMXBean) threads).getThreadAllocatedBytes(threads.getAllThreadIds());
+        long sum = 0;
+
+        for (long bytes : allocated) {
+            if (bytes > 0) {
+                sum += bytes;
+            }
+        }
+
+        return sum;
+    }
+
+    private static double mb(long bytes) {
+        return bytes / (1024.0 * 1024.0);
+    }
+}
@@ -0,0 +1,80 @@
+package xyz.kuilei.tools.benchmark;
+
+import org.apache.commons.io.FileUtils;
+import org.apache.commons.io.LineIterator;
+import org.openjdk.jmh.annotations.*;
+import org.openjdk.jmh.infra.Blackhole;
+import xyz.kuilei.tools.io.AnySeparatorLineIterator;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * {@link AnySeparatorLineIterator} 与 commons-io {@link LineIterator} 按行读同一个文件
+ *
+ * @author JiaKun Xu, 2026-10-19 21:31:05
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3)
+@Measurement(iterations = 5)
+@Fork(1)
+@State(Scope.Benchmark)
+public class LineIteratorBenchmark {
+    private static final String ENCODING = "UTF-8";
+
+    @Param({"1000000"})
+    private long lines;
+
+    @Param({"20", "200"})
+    private int lineLength;
+
+    /**
+     * LineIterator 只认 \n 与 \r\n
+     */
+    @Param({"LF", "CRLF"})
+    private String lineEnding;
+
+    private String lineSeparator;
+    private File file;
+
+    @Setup(Level.Trial)
+    public void setUp() throws IOException {
+        lineSeparator = "CRLF".equals(lineEnding) ? "\r\n" : "\n";
+        file = new TextDataGenerator()
+                .setLines(lines)
+                .setLineLength(lineLength)
+                .setLineSeparator(lineSeparator)
+                .setEncoding(ENCODING)
+                .generate(Files.createTempFile("line-iterator", ".txt").toFile());
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() {
+        FileUtils.deleteQuietly(file);
+    }
+
+    @Benchmark
+    public void anySeparatorLineIterator(Blackhole blackhole) throws IOException {
+        try (AnySeparatorLineIterator it = new AnySeparatorLineIterator(lineSeparator, file, ENCODING)) {
+            while (it.hasNext()) {
+                blackhole.consume(it.next());
+            }
+        }
+    }
+
+    @Benchmark
+    public void commonsIoLineIterator(Blackhole blackhole) throws IOException {
+        final LineIterator it = FileUtils.lineIterator(file, ENCODING);
+
+        try {
+            while (it.hasNext()) {
+                blackhole.consume(it.nextLine());
+            }
+        } finally {
+            it.close();
+        }
+    }
+}
@@ -0,0 +1,101 @@
+package xyz.kuilei.tools.benchmark;
+
+import org.apache.commons.io.FileUtils;
+import org.apache.commons.io.IOUtils;
+import org.apache.commons.io.output.NullOutputStream;
+import org.apache.commons.lang3.StringUtils;
+import org.openjdk.jmh.annotations.*;
+import xyz.kuilei.tools.io.LineReplacer;
+import xyz.kuilei.tools.io.ReplacedLineInputStream;
+
+import java.io.*;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * 替换每行之后把整个文件写出去（同 TestAll#testReplacedLine）：{@link ReplacedLineInputStream} 与手写的 BufferedReader + Writer
+ *
+ * @author JiaKun Xu, 2026-10-19 21:36:40
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3)
+@Measurement(iterations = 5)
+@Fork(1)
+@State(Scope.Benchmark)
+public class ReplacedLineBenchmark {
+    private static final String ENCODING = StandardCharsets.UTF_8.name();
+    private static final LineReplacer REPLACER = line -> StringUtils.replaceEach(line,
+            new String[]{"`", ",", "${sp}", "\\"}, new String[]{"~", "`", ",", "\\\\"});
+
+    @Param({"1000000"})
+    private long lines;
+
+    @Param({"80"})
+    private int lineLength;
+
+    /**
+     * 需要替换的片段所占比例
+     */
+    @Param({"0.0", "0.05"})
+    private double specialDensity;
+
+    private File file;
+
+    @Setup(Level.Trial)
+    public void setUp() throws IOException {
+        file = new TextDataGenerator()
+                .setLines(lines)
+                .setLineLength(lineLength)
+                .setSpecialDensity(specialDensity)
+                .setEncoding(ENCODING)
+                .generate(Files.createTempFile("replaced-line", ".txt").toFile());
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() {
+        FileUtils.deleteQuietly(file);
+    }
+
+    @Benchmark
+    public long replacedLineInputStream() throws IOException {
+        try (InputStream in = new ReplacedLineInputStream(REPLACER, file, ENCODING)) {
+            return IOUtils.copyLarge(in, NullOutputStream.NULL_OUTPUT_STREAM);
+        }
+    }
+
+    @Benchmark
+    public long bufferedReader() throws IOException {
+        final CountingNullOutputStream out = new CountingNullOutputStream();
+
+        try (BufferedReader reader = new BufferedReader(new InputStreamReader(new FileInputStream(file), ENCODING));
+             Writer writer = new BufferedWriter(new OutputStreamWriter(out, ENCODING))) {
+            String line;
+
+            while ((line = reader.readLine()) != null) {
+                writer.write(REPLACER.replace(line));
+                writer.write(IOUtils.LINE_SEPARATOR);
+            }
+        }
+
+        return out.count;
+    }
+
+    /**
+     * 只计数，与 copyLarge 的返回值对应，避免写出被优化掉
+     */
+    private static class CountingNullOutputStream extends OutputStream {
+        private long count;
+
+        @Override
+        public void write(int b) {
+            ++count;
+        }
+
+        @Override
+        public void write(byte[] b, int off, int len) {
+            count += len;
+        }
+    }
+}
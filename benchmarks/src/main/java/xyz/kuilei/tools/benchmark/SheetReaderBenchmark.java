@@ -0,0 +1,109 @@
+package xyz.kuilei.tools.benchmark;
+
+import cn.hutool.poi.excel.ExcelUtil;
+import org.apache.commons.io.FileUtils;
+import org.apache.commons.io.IOUtils;
+import org.apache.poi.ss.usermodel.Workbook;
+import org.apache.poi.ss.usermodel.WorkbookFactory;
+import org.openjdk.jmh.annotations.*;
+import org.openjdk.jmh.infra.Blackhole;
+import xyz.kuilei.tools.excel.ExcelReader;
+import xyz.kuilei.tools.excel.SheetReader;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * {@link SheetReader} 与 hutool 的 ExcelReader 读同一个 xlsx
+ * <p>
+ * 1. *Sheet：workbook 事先打开，只比较逐行转换（合并单元格、cell 转字符串）；
+ * 2. *File：包括打开 workbook，hutool 另有 SAX 方式。
+ *
+ * @author JiaKun Xu, 2026-10-19 21:42:17
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3)
+@Measurement(iterations = 5)
+@Fork(value = 1, jvmArgs = {"-Xmx2g"})
+@State(Scope.Benchmark)
+public class SheetReaderBenchmark {
+    @Param({"10000", "100000"})
+    private int rows;
+
+    @Param({"20"})
+    private int columns;
+
+    @Param({"0.3", "1.0"})
+    private double density;
+
+    @Param({"0", "5000"})
+    private int mergedRegions;
+
+    private File file;
+    private Workbook workbook;
+
+    @Setup(Level.Trial)
+    public void setUp() throws IOException {
+        file = new WorkbookDataGenerator()
+                .setRows(rows)
+                .setColumns(columns)
+                .setDensity(density)
+                .setMergedRegions(mergedRegions)
+                .generate(Files.createTempFile("sheet-reader", ".xlsx").toFile());
+        workbook = WorkbookFactory.create(file, null, true);
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() {
+        IOUtils.closeQuietly(workbook);
+        FileUtils.deleteQuietly(file);
+    }
+
+    @Benchmark
+    public void sheetReaderSheet(Blackhole blackhole) {
+        final SheetReader reader = new SheetReader(workbook.getSheetAt(0));
+        final List<String> reuse = new ArrayList<>();
+
+        while (reader.read(reuse) != null) {
+            blackhole.consume(reuse);
+        }
+    }
+
+    @Benchmark
+    public void hutoolReaderSheet(Blackhole blackhole) {
+        // 不 close，close 会关掉共用的 workbook
+        blackhole.consume(new cn.hutool.poi.excel.ExcelReader(workbook.getSheetAt(0)).read());
+    }
+
+    @Benchmark
+    public void excelReaderFile(Blackhole blackhole) throws IOException {
+        try (ExcelReader reader = new ExcelReader(file)) {
+            final List<String> reuse = new ArrayList<>();
+
+            while (reader.read(reuse) != null) {
+                blackhole.consume(reuse);
+            }
+        }
+    }
+
+    @Benchmark
+    public void hutoolReaderFile(Blackhole blackhole) {
+        final cn.hutool.poi.excel.ExcelReader reader = ExcelUtil.getReader(file);
+
+        try {
+            blackhole.consume(reader.read());
+        } finally {
+            reader.close();
+        }
+    }
+
+    @Benchmark
+    public void hutoolSaxFile(Blackhole blackhole) {
+        ExcelUtil.readBySax(file, 0, (sheetIndex, rowIndex, row) -> blackhole.consume(row));
+    }
+}
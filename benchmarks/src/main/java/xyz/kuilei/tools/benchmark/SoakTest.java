@@ -0,0 +1,316 @@
+package xyz.kuilei.tools.benchmark;
+
+import cn.hutool.json.JSONObject;
+import cn.hutool.json.JSONUtil;
+import org.apache.commons.io.IOUtils;
+import org.apache.commons.io.output.NullOutputStream;
+import org.apache.commons.lang3.StringUtils;
+import xyz.kuilei.tools.excel.ExcelReader;
+import xyz.kuilei.tools.excel.ExcelReaderConfig;
+import xyz.kuilei.tools.io.AnySeparatorLineIterator;
+import xyz.kuilei.tools.io.LineReplacer;
+import xyz.kuilei.tools.io.ReplacedLineInputStream;
+import xyz.kuilei.tools.metrics.LongAdderReadMetrics;
+
+import javax.annotation.Nonnull;
+import java.io.*;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * 压测：在本地生成生产规模的数据，每个场景反复读固定的时长，结果按行追加到 JSON 文件，不同版本之间可以对比
+ * <p>
+ * 每个场景至少读完一遍。OOM 不会中断压测，记为这个场景的结果。OOM 之后的场景受影响，建议一个 JVM 只跑一个场景：
+ * <pre>
+ * java -Xmx2g -cp target/benchmarks.jar xyz.kuilei.tools.benchmark.SoakTest scenario=excel duration=600 label=v1.0
+ * </pre>
+ * 参数都是 key=value，见 {@link #DEFAULTS}。数据文件按参数命名，已经存在时直接复用。
+ *
+ * @author JiaKun Xu, 2026-10-19 23:10:41
+ */
+public class SoakTest {
+    private static final String ENCODING = StandardCharsets.UTF_8.name();
+    private static final LineReplacer REPLACER = line -> StringUtils.replaceEach(line,
+            new String[]{"`", ",", "${sp}", "\\"}, new String[]{"~", "`", ",", "\\\\"});
+
+    private static final Map<String, String> DEFAULTS = new LinkedHashMap<>();
+
+    static {
+        // 逗号分隔：text-lines, replaced-lines, single-line, excel
+        DEFAULTS.put("scenario", "text-lines,replaced-lines,single-line,excel");
+        // 每个场景的时长，秒
+        DEFAULTS.put("duration", "60");
+        DEFAULTS.put("label", "dev");
+        DEFAULTS.put("out", "soak-results.jsonl");
+        DEFAULTS.put("dataDir", "soak-data");
+        // text-lines, replaced-lines
+        DEFAULTS.put("lines", "10000000");
+        DEFAULTS.put("lineLength", "80");
+        // single-line
+        DEFAULTS.put("singleLineMb", "2048");
+        // excel
+        DEFAULTS.put("rows", "1000000");
+        DEFAULTS.put("columns", "20");
+        DEFAULTS.put("merges", "100000");
+    }
+
+    public static void main(String[] args) throws IOException {
+        final Map<String, String> params = new LinkedHashMap<>(DEFAULTS);
+
+        for (String arg : args) {
+            final int eq = arg.indexOf('=');
+
+            if (eq <= 0 || !DEFAULTS.containsKey(arg.substring(0, eq))) {
+                throw new IllegalArgumentException("Unknown argument: " + arg + ", expected key=value of " + DEFAULTS.keySet());
+            }
+
+            params.put(arg.substring(0, eq), arg.substring(eq + 1));
+        }
+
+        final File dataDir = new File(params.get("dataDir"));
+        final File out = new File(params.get("out"));
+
+        Files.createDirectories(dataDir.toPath());
+
+        for (String name : params.get("scenario").split(",")) {
+            final Scenario scenario = Scenario.of(name.trim());
+            final File data = scenario.prepare(dataDir, params);
+            final String result = run(scenario, data, params);
+
+            System.out.println(result);
+            Files.write(out.toPath(), (result + "\n").getBytes(StandardCharsets.UTF_8),
+                    StandardOpenOption.CREATE, StandardOpenOption.APPEND);
+        }
+    }
+
+    @Nonnull
+    private static String run(@Nonnull Scenario scenario, @Nonnull File data, @Nonnull Map<String, String> params) {
+        final long durationNanos = Long.parseLong(params.get("duration")) * 1_000_000_000L;
+        final LongAdderReadMetrics metrics = new LongAdderReadMetrics();
+        final JvmMonitor monitor = new JvmMonitor();
+        String status = "OK";
+        int passes = 0;
+
+        System.gc();
+        monitor.start();
+
+        final long start = System.nanoTime();
+
+        try {
+            do {
+                scenario.readOnce(data, metrics);
+                ++passes;
+            } while (System.nanoTime() - start < durationNanos);
+        } catch (OutOfMemoryError e) {
+            status = "OOM";
+        } catch (Exception e) {
+            status = "FAILED: " + e;
+        }
+
+        final double seconds = (System.nanoTime() - start) / 1e9;
+        final LinkedHashMap<String, Object> jvm = monitor.stop();
+        final LinkedHashMap<String, Object> snapshot = metrics.snapshot();
+        final long bytes = (Long) snapshot.get("bytes");
+        final long rows = (Long) snapshot.get("lines") + (Long) snapshot.get("rows");
+
+        final JSONObject json = new JSONObject(32, true);
+
+        json.set("label", params.get("label"));
+        json.set("scenario", scenario.name);
+        json.set("timestamp", System.currentTimeMillis());
+        json.set("java", System.getProperty("java.version"));
+        json.set("params", scenario.describe(params));
+        json.set("data", data.getName());
+        json.set("status", status);
+        json.set("passes", passes);
+        json.set("seconds", seconds);
+        json.set("bytes", bytes);
+        json.set("rows", rows);
+        json.set("mbPerSec", bytes / (1024.0 * 1024.0) / seconds);
+        json.set("rowsPerSec", rows / seconds);
+
+        for (Map.Entry<String, Object> entry : jvm.entrySet()) {
+            json.set(entry.getKey(), entry.getValue());
+        }
+
+        return JSONUtil.toJsonStr(json);
+    }
+
+    private enum Scenario {
+        /**
+         * 大量普通的行
+         */
+        TEXT_LINES("text-lines", "lines", "lineLength") {
+            @Nonnull
+            @Override
+            File generate(@Nonnull File target, @Nonnull Map<String, String> params) throws IOException {
+                return new TextDataGenerator()
+                        .setLines(Long.parseLong(params.get("lines")))
+                        .setLineLength(Long.parseLong(params.get("lineLength")))
+                        .generate(target);
+            }
+
+            @Override
+            void readOnce(@Nonnull File data, @Nonnull LongAdderReadMetrics metrics) throws IOException {
+                readLines(data, metrics);
+            }
+        },
+        /**
+         * 大量普通的行，逐行替换后写出
+         */
+        REPLACED_LINES("replaced-lines", "lines", "lineLength") {
+            @Nonnull
+            @Override
+            File generate(@Nonnull File target, @Nonnull Map<String, String> params) throws IOException {
+                return TEXT_LINES.generate(target, params);
+            }
+
+            @Nonnull
+            @Override
+            String fileName(@Nonnull Map<String, String> params) {
+                return TEXT_LINES.fileName(params);
+            }
+
+            @Override
+            void readOnce(@Nonnull File data, @Nonnull LongAdderReadMetrics metrics) throws IOException {
+                try (InputStream in = new ReplacedLineInputStream(REPLACER, data, ENCODING, metrics)) {
+                    IOUtils.copyLarge(in, NullOutputStream.NULL_OUTPUT_STREAM);
+                }
+            }
+        },
+        /**
+         * 整个文件只有一行
+         */
+        SINGLE_LINE("single-line", "singleLineMb") {
+            @Nonnull
+            @Override
+            File generate(@Nonnull File target, @Nonnull Map<String, String> params) throws IOException {
+                final long length = Long.parseLong(params.get("singleLineMb")) << 20;
+
+                // 只有 ASCII，字符数即字节数
+                return new TextDataGenerator()
+                        .setLines(1)
+                        .setLineLength(length)
+                        .setFixedLength(true)
+                        .setSpecialDensity(0)
+                        .setChineseDensity(0)
+                        .generate(target);
+            }
+
+            @Override
+            void readOnce(@Nonnull File data, @Nonnull LongAdderReadMetrics metrics) throws IOException {
+                readLines(data, metrics);
+            }
+        },
+        EXCEL("excel", "rows", "columns", "merges") {
+            @Nonnull
+            @Override
+            File generate(@Nonnull File target, @Nonnull Map<String, String> params) throws IOException {
+                return new WorkbookDataGenerator()
+                        .setRows(Integer.parseInt(params.get("rows")))
+                        .setColumns(Integer.parseInt(params.get("columns")))
+                        .setMergedRegions(Integer.parseInt(params.get("merges")))
+                        .generate(target);
+            }
+
+            @Nonnull
+            @Override
+            String fileName(@Nonnull Map<String, String> params) {
+                return super.fileName(params) + ".xlsx";
+            }
+
+            @Override
+            void readOnce(@Nonnull File data, @Nonnull LongAdderReadMetrics metrics) throws IOException {
+                try (ExcelReader reader = new ExcelReader(data, new ExcelReaderConfig().setMetrics(metrics))) {
+                    final List<String> reuse = new ArrayList<>();
+
+                    while (reader.read(reuse) != null) {
+                        // 只读
+                    }
+                }
+            }
+        };
+
+        @Nonnull
+        private final String name;
+        /**
+         * 影响数据文件的参数
+         */
+        @Nonnull
+        private final String[] keys;
+
+        Scenario(@Nonnull String name, @Nonnull String... keys) {
+            this.name = name;
+            this.keys = keys;
+        }
+
+        @Nonnull
+        static Scenario of(@Nonnull String name) {
+            for (Scenario scenario : values()) {
+                if (scenario.name.equals(name)) {
+                    return scenario;
+                }
+            }
+
+            throw new IllegalArgumentException("Unknown scenario: " + name);
+        }
+
+        @Nonnull
+        abstract File generate(@Nonnull File target, @Nonnull Map<String, String> params) throws IOException;
+
+        abstract void readOnce(@Nonnull File data, @Nonnull LongAdderReadMetrics metrics) throws IOException;
+
+        @Nonnull
+        String fileName(@Nonnull Map<String, String> params) {
+            final StringBuilder sb = new StringBuilder(name);
+
+            for (String key : keys) {
+                sb.append('-').append(key).append(params.get(key));
+            }
+
+            return sb.toString();
+        }
+
+        @Nonnull
+        LinkedHashMap<String, String> describe(@Nonnull Map<String, String> params) {
+            final LinkedHashMap<String, String> described = new LinkedHashMap<>();
+
+            for (String key : keys) {
+                described.put(key, params.get(key));
+            }
+
+            return described;
+        }
+
+        /**
+         * 生成到临时文件再改名，中断时不会留下不完整的数据文件
+         */
+        @Nonnull
+        File prepare(@Nonnull File dataDir, @Nonnull Map<String, String> params) throws IOException {
+            final File data = new File(dataDir, fileName(params));
+
+            if (!data.exists()) {
+                final File tmp = new File(dataDir, data.getName() + ".tmp");
+
+                System.out.println("Generating " + data);
+                generate(tmp, params);
+                Files.move(tmp.toPath(), data.toPath());
+            }
+
+            return data;
+        }
+
+        private static void readLines(@Nonnull File data, @Nonnull LongAdderReadMetrics metrics) throws IOException {
+            try (AnySeparatorLineIterator it = new AnySeparatorLineIterator("\n", data, ENCODING, metrics)) {
+                while (it.hasNext()) {
+                    it.next();
+                }
+            }
+        }
+    }
+}
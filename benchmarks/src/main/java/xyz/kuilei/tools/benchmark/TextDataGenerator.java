@@ -0,0 +1,108 @@
+package xyz.kuilei.tools.benchmark;
+
+import lombok.Getter;
+import lombok.Setter;
+import lombok.experimental.Accessors;
+import xyz.kuilei.tools.io.ChannelTextWriter;
+
+import javax.annotation.Nonnull;
+import javax.annotation.Nullable;
+import java.io.File;
+import java.io.IOException;
+import java.io.Writer;
+import java.util.Random;
+
+/**
+ * 生成文本测试数据，相同的配置（包括 seed）生成的文件完全相同
+ * <p>
+ * 行长在 [lineLength / 2, lineLength * 3 / 2) 之间均匀分布（或固定为 lineLength），内容是字母、数字、少量中文，
+ * 以及按 specialDensity 插入的 LineReplacer 常替换的片段（` , \ ${sp}）。
+ * 行按块写出，几个 GB 的单行也不占内存。
+ *
+ * @author JiaKun Xu, 2026-10-19 21:12:36
+ */
+@Getter
+@Setter
+@Accessors(chain = true)
+public class TextDataGenerator {
+    private static final String PLAIN = "abcdefghijklmnopqrstuvwxyzABCDEFGHIJKLMNOPQRSTUVWXYZ0123456789";
+    private static final String CHINESE = "数据导入导出测试中文字段";
+    private static final String[] SPECIALS = {"`", ",", "\\", "${sp}"};
+    private static final int CHUNK_SIZE = 8192;
+
+    private long lines = 100_000;
+
+    /**
+     * 平均行长（字符数）
+     */
+    private long lineLength = 80;
+
+    /**
+     * 每行都是 lineLength 个字符，不随机
+     */
+    private boolean fixedLength = false;
+
+    @Nonnull
+    private String lineSeparator = "\n";
+
+    /**
+     * 每个字符位置是特殊片段的概率
+     */
+    private double specialDensity = 0.05;
+
+    /**
+     * 每个字符位置是中文的概率
+     */
+    private double chineseDensity = 0.05;
+
+    /**
+     * null: 默认字符集
+     */
+    @Nullable
+    private String encoding = "UTF-8";
+
+    private long seed = 42L;
+
+    @Nonnull
+    public File generate(@Nonnull File target) throws IOException {
+        if (lineLength < 2) {
+            throw new IllegalArgumentException("lineLength < 2");
+        }
+
+        final Random random = new Random(seed);
+        final StringBuilder chunk = new StringBuilder(CHUNK_SIZE + 8);
+
+        try (Writer writer = new ChannelTextWriter(target, encoding)) {
+            for (long i = 0; i < lines; ++i) {
+                final long length = fixedLength ? lineLength : lineLength / 2 + (long) (random.nextDouble() * lineLength);
+                long written = 0;
+
+                while (written < length) {
+                    final int before = chunk.length();
+                    final double p = random.nextDouble();
+
+                    if (p < specialDensity) {
+                        chunk.append(SPECIALS[random.nextInt(SPECIALS.length)]);
+                    } else if (p < specialDensity + chineseDensity) {
+                        chunk.append(CHINESE.charAt(random.nextInt(CHINESE.length())));
+                    } else {
+                        chunk.append(PLAIN.charAt(random.nextInt(PLAIN.length())));
+                    }
+
+                    written += chunk.length() - before;
+
+                    if (chunk.length() >= CHUNK_SIZE) {
+                        writer.append(chunk);
+                        chunk.setLength(0);
+                    }
+                }
+
+                chunk.append(lineSeparator);
+            }
+
+            writer.append(chunk);
+        }
+
+        return target;
+    }
+}
@@ -0,0 +1,137 @@
+package xyz.kuilei.tools.benchmark;
+
+import lombok.Getter;
+import lombok.Setter;
+import lombok.experimental.Accessors;
+import xyz.kuilei.tools.excel.ExcelWriter;
+
+import javax.annotation.Nonnull;
+import javax.annotation.Nullable;
+import java.io.File;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Random;
+
+/**
+ * 生成 xlsx 测试数据，相同的配置（包括 seed）生成的内容完全相同
+ * <p>
+ * 1. 第一行是表头，之后每个 cell 按 density 的概率有值，有值时按 numericRatio 的概率是数字，否则是字符串；
+ * 2. 合并单元格都是横向的 1 行 2 列，在每个 sheet 的数据行中均匀分布，互不重叠，被涵盖的 cell 没有值；
+ * 3. 用 {@link ExcelWriter} 流式写，生成百万行也不占内存。
+ *
+ * @author JiaKun Xu, 2026-10-19 21:20:48
+ */
+@Getter
+@Setter
+@Accessors(chain = true)
+public class WorkbookDataGenerator {
+    private static final String PLAIN = "abcdefghijklmnopqrstuvwxyz0123456789数据导入导出测试";
+
+    private int sheets = 1;
+
+    /**
+     * 每个 sheet 的数据行数，不含表头
+     */
+    private int rows = 10_000;
+
+    private int columns = 20;
+
+    /**
+     * cell 有值的概率
+     */
+    private double density = 1.0;
+
+    /**
+     * 有值的 cell 是数字的概率
+     */
+    private double numericRatio = 0.5;
+
+    /**
+     * 字符串的平均长度
+     */
+    private int cellLength = 8;
+
+    /**
+     * 每个 sheet 的合并单元格个数
+     */
+    private int mergedRegions = 0;
+
+    private long seed = 42L;
+
+    @Nonnull
+    public File generate(@Nonnull File target) throws IOException {
+        final int regionsPerRow = columns / 2;
+
+        if (mergedRegions > 0 && (regionsPerRow == 0 || (long) regionsPerRow * rows < mergedRegions)) {
+            throw new IllegalArgumentException("Too many merged regions: " + mergedRegions);
+        }
+
+        final Random random = new Random(seed);
+        final ArrayList<Object> values = new ArrayList<>(columns);
+        final StringBuilder sb = new StringBuilder();
+
+        try (ExcelWriter writer = new ExcelWriter(target)) {
+            for (int s = 0; s < sheets; ++s) {
+                writer.createSheet("Sheet" + s);
+                writeHeader(writer, values);
+
+                // 第 i 个合并单元格所在的数据行 = (i / regionsPerRow) * stride
+                final int regionRows = (mergedRegions == 0) ? 0 : (mergedRegions + regionsPerRow - 1) / regionsPerRow;
+                final int stride = (regionRows == 0) ? 0 : rows / regionRows;
+                int nextRegion = 0;
+
+                for (int r = 0; r < rows; ++r) {
+                    values.clear();
+
+                    for (int c = 0; c < columns; ++c) {
+                        values.add(nextValue(random, sb));
+                    }
+
+                    // 数据行从 excel 的第 1 行开始
+                    while (nextRegion < mergedRegions && (nextRegion / regionsPerRow) * stride == r) {
+                        final int firstCol = (nextRegion % regionsPerRow) * 2;
+
+                        writer.merge(r + 1, r + 1, firstCol, firstCol + 1);
+                        values.set(firstCol + 1, null);
+                        ++nextRegion;
+                    }
+
+                    writer.writeRow(values);
+                }
+            }
+        }
+
+        return target;
+    }
+
+    private void writeHeader(@Nonnull ExcelWriter writer, @Nonnull ArrayList<Object> values) {
+        values.clear();
+
+        for (int c = 0; c < columns; ++c) {
+            values.add("列" + c);
+        }
+
+        writer.writeRow(values, ExcelWriter.CellFormat.builder().bold(true).build());
+    }
+
+    @Nullable
+    private Object nextValue(@Nonnull Random random, @Nonnull StringBuilder sb) {
+        if (random.nextDouble() >= density) {
+            return null;
+        }
+        if (random.nextDouble() < numericRatio) {
+            // 一半整数，一半两位小数
+            return random.nextBoolean() ? (Object) (long) random.nextInt(1_000_000) : (Object) (random.nextInt(10_000_000) / 100.0);
+        }
+
+        final int length = 1 + random.nextInt(Math.max(1, cellLength * 2 - 1));
+
+        sb.setLength(0);
+
+        for (int i = 0; i < length; ++i) {
+            sb.append(PLAIN.charAt(random.nextInt(PLAIN.length())));
+        }
+
+        return sb.toString();
+    }
+}
@@ -0,0 +1,79 @@
+package xyz.kuilei.tools.io;
+
+import org.openjdk.jmh.annotations.*;
+
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * {@link CharSearch} 在 Vector API 与逐个字符比较下的对比，与 {@link AnySeparatorLineIterator} 一样在一块 char[] 中依次找出所有分隔符
+ * <p>
+ * 两个方法各自 fork，都带 --add-modules jdk.incubator.vector，scalar 再加 -Dxyz.kuilei.tools.io.CharSearch.scalar=true。
+ * CharSearch 是包内可见的，所以放在同一个包中；只在 JDK 17 以上编译（profile java17），
+ * 上层也要用 JDK 17 install，jar 中才有 META-INF/versions/17。
+ *
+ * @author JiaKun Xu, 2026-10-20 09:12:37
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3)
+@Measurement(iterations = 5)
+@State(Scope.Benchmark)
+public class CharSearchBenchmark {
+    /**
+     * 8192 与 AnySeparatorLineIterator 的块一样大，在缓存内；32M 个 char 是 64 MB，受内存带宽限制
+     */
+    @Param({"8192", "33554432"})
+    private int chars;
+
+    @Param({"200"})
+    private int lineLength;
+
+    @Param({"LF", "CRLF"})
+    private String lineEnding;
+
+    private char[] source;
+    private char[] separator;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        separator = "CRLF".equals(lineEnding) ? "\r\n".toCharArray() : "\n".toCharArray();
+        source = new char[chars];
+
+        final Random random = new Random(0L);
+        final int period = lineLength + separator.length;
+
+        for (int i = 0; i < chars; ++i) {
+            final int offset = i % period;
+
+            source[i] = (offset < lineLength) ? (char) ('a' + random.nextInt(26)) : separator[offset - lineLength];
+        }
+    }
+
+    @Benchmark
+    @Fork(value = 1, jvmArgsAppend = {"--add-modules", "jdk.incubator.vector"})
+    public int vector() {
+        return countSeparators();
+    }
+
+    @Benchmark
+    @Fork(value = 1, jvmArgsAppend = {"--add-modules", "jdk.incubator.vector", "-Dxyz.kuilei.tools.io.CharSearch.scalar=true"})
+    public int scalar() {
+        return countSeparators();
+    }
+
+    private int countSeparators() {
+        final char[] source = this.source;
+        final char[] separator = this.separator;
+        int count = 0;
+        int from = 0;
+        int index;
+
+        while ((index = CharSearch.indexOf(source, from, source.length, separator)) >= 0) {
+            ++count;
+            from = index + separator.length;
+        }
+
+        return count;
+    }
+}
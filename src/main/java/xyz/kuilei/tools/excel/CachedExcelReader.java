@@ -0,0 +1,251 @@
+package xyz.kuilei.tools.excel;
+
+import javax.annotation.Nonnull;
+import javax.annotation.Nullable;
+import java.io.IOException;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.List;
+
+import static xyz.kuilei.tools.excel.CachedRowFormat.*;
+
+/**
+ * 从 {@link ExcelReadCache} 的缓存文件读取行，输出与 {@link ExcelReader#read()} 一致
+ * <p>
+ * 1. 缓存文件分段 mmap，每段最多 {@link #WINDOW_SIZE} 字节，文件再大也只占这么多地址空间；
+ * 2. 配置中的 sheet 选择器与列投影在读的时候应用，缓存文件里是整个 workbook。
+ * <p>
+ * NOTE: 非线程安全
+ *
+ * @author JiaKun Xu, 2026-10-19 17:05:10
+ */
+public class CachedExcelReader implements RowSource {
+    static final long WINDOW_SIZE = 64L << 20;
+
+    @Nonnull
+    private final FileChannel channel;
+    private final long size;
+    /**
+     * {@link #buffer} 在文件中的起始位置
+     */
+    private long base;
+    @Nullable
+    private MappedByteBuffer buffer;
+    private byte[] bytes = new byte[256];
+
+    /**
+     * 按出现顺序重建的字典
+     */
+    @Nonnull
+    private final ArrayList<String> dictionary = new ArrayList<>();
+
+    @Nullable
+    private final SheetSelector sheetSelector;
+    @Nullable
+    private final int[] columns;
+
+    @Nullable
+    private String currentSheetName;
+    private boolean currentSheetSelected = true;
+    private boolean eof;
+
+    CachedExcelReader(@Nonnull Path path, @Nonnull ExcelReaderConfig config) throws IOException {
+        this.channel = FileChannel.open(path, StandardOpenOption.READ);
+
+        try {
+            this.size = channel.size();
+            map(0);
+
+            if (readInt() != MAGIC || readInt() != VERSION) {
+                throw new IOException("Not a cache file of this version: " + path);
+            }
+        } catch (IOException | RuntimeException e) {
+            channel.close();
+            throw e;
+        }
+
+        this.sheetSelector = config.getSheetSelector();
+        this.columns = config.getColumns();
+    }
+
+    /**
+     * @return null if EOF
+     * @throws IllegalStateException if the cache file is corrupted
+     */
+    @Nullable
+    @Override
+    public List<String> read() {
+        try {
+            return nextLine();
+        } catch (IOException | RuntimeException e) {
+            eof = true;
+            throw new IllegalStateException("Corrupted cache file", e);
+        }
+    }
+
+    @Nullable
+    @Override
+    public String getCurrentSheetName() {
+        return eof ? null : currentSheetName;
+    }
+
+    @Override
+    public void close() throws IOException {
+        eof = true;
+        buffer = null;  // 映射在 GC 时释放
+        channel.close();
+    }
+
+    @Nullable
+    private List<String> nextLine() throws IOException {
+        while (!eof) {
+            switch (readByte()) {
+                case TAG_EOF:
+                    eof = true;
+                    return null;
+                case TAG_SHEET:
+                    final int index = readVarInt();
+                    currentSheetName = readString(readVarInt());
+                    currentSheetSelected = (sheetSelector == null || sheetSelector.select(index, currentSheetName));
+                    break;
+                case TAG_ROW:
+                    final List<String> line = readRow();
+
+                    if (currentSheetSelected) {
+                        return line;
+                    }
+                    break;
+                default:
+                    throw new IOException("Unknown tag at " + position());
+            }
+        }
+
+        return null;
+    }
+
+    /**
+     * 未选中的 sheet 也要读完，字典是内联定义的
+     */
+    @Nonnull
+    private List<String> readRow() throws IOException {
+        final int n = readVarInt();
+        final ArrayList<String> line = new ArrayList<>(n);
+
+        for (int i = 0; i < n; ++i) {
+            line.add(readCell());
+        }
+
+        final int[] columns = this.columns;
+
+        if (columns == null) {
+            return line;
+        }
+
+        // 与 SheetReader 投影一致：不存在的列为 null
+        final ArrayList<String> projected = new ArrayList<>(columns.length);
+
+        for (int column : columns) {
+            projected.add((column >= 0 && column < n) ? line.get(column) : null);
+        }
+
+        return projected;
+    }
+
+    @Nullable
+    private String readCell() throws IOException {
+        final int code = readVarInt();
+
+        switch (code) {
+            case CELL_NULL:
+                return null;
+            case CELL_LITERAL:
+                return readString(readVarInt());
+            case CELL_DEFINE:
+                final String value = readString(readVarInt());
+                dictionary.add(value);
+                return value;
+            default:
+                return dictionary.get(code - CELL_REF);
+        }
+    }
+
+    // --------------------------------
+    // mmap
+    // --------------------------------
+
+    private void map(long position) throws IOException {
+        final long length = Math.min(WINDOW_SIZE, size - position);
+
+        buffer = channel.map(FileChannel.MapMode.READ_ONLY, position, length);
+        base = position;
+    }
+
+    private long position() {
+        return base + buffer.position();
+    }
+
+    /**
+     * 保证当前段中至少还有 n 个字节，不够就从当前位置重新映射
+     */
+    private void ensure(int n) throws IOException {
+        if (buffer.remaining() >= n) {
+            return;
+        }
+
+        final long position = position();
+
+        if (size - position < n) {
+            throw new IOException("Unexpected end of cache file at " + position);
+        }
+
+        map(position);
+    }
+
+    private int readByte() throws IOException {
+        ensure(1);
+        return buffer.get() & 0xff;
+    }
+
+    private int readInt() throws IOException {
+        ensure(4);
+        return buffer.getInt();
+    }
+
+    private int readVarInt() throws IOException {
+        int value = 0;
+
+        for (int shift = 0; shift < 32; shift += 7) {
+            final int b = readByte();
+
+            value |= (b & 0x7f) << shift;
+
+            if ((b & 0x80) == 0) {
+                return value;
+            }
+        }
+
+        throw new IOException("Malformed varint at " + position());
+    }
+
+    @Nonnull
+    private String readString(int length) throws IOException {
+        if (length < 0) {
+            throw new IOException("Negative string length at " + position());
+        }
+
+        ensure(length);
+
+        byte[] bytes = this.bytes;
+
+        if (bytes.length < length) {
+            bytes = this.bytes = new byte[Math.max(length, bytes.length << 1)];
+        }
+
+        buffer.get(bytes, 0, length);
+        return new String(bytes, 0, length, StandardCharsets.UTF_8);
+    }
+}
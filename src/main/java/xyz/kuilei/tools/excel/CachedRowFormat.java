@@ -0,0 +1,169 @@
+package xyz.kuilei.tools.excel;
+
+import javax.annotation.Nonnull;
+import javax.annotation.Nullable;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * {@link ExcelReadCache} 的缓存文件格式，{@link ExcelReader#read()} 的输出原样写入，合并单元格已经展开
+ * <pre>
+ * file  := MAGIC(int) VERSION(int) { sheet | row } EOF
+ * sheet := TAG_SHEET index(varint) name(string)
+ * row   := TAG_ROW size(varint) { cell }
+ * cell  := CELL_NULL
+ *        | CELL_LITERAL string          -- 字典满了之后的新值
+ *        | CELL_DEFINE string           -- 新值，同时按出现顺序分配字典下标
+ *        | (CELL_REF + 下标)(varint)
+ * string := length(varint) UTF-8 bytes
+ * </pre>
+ * 字典随文件内联定义，读的时候按同样的顺序重建即可，不需要回头找。
+ *
+ * @author JiaKun Xu, 2026-10-19 16:48:21
+ */
+final class CachedRowFormat {
+    static final int MAGIC = 0x58524331;    // "XRC1"
+    static final int VERSION = 1;
+
+    static final int TAG_EOF = 0;
+    static final int TAG_SHEET = 1;
+    static final int TAG_ROW = 2;
+
+    static final int CELL_NULL = 0;
+    static final int CELL_LITERAL = 1;
+    static final int CELL_DEFINE = 2;
+    static final int CELL_REF = 3;
+
+    /**
+     * 字典的最大条数，超过之后新值按字面写入，不再占用内存
+     */
+    static final int MAX_DICTIONARY_SIZE = 1 << 20;
+
+    private CachedRowFormat() {
+    }
+
+    /**
+     * @param sheetIndexes sheet 名字 -> 下标
+     */
+    static void write(@Nonnull ExcelReader reader, @Nonnull Map<String, Integer> sheetIndexes, @Nonnull OutputStream out) throws IOException {
+        final Writer writer = new Writer(out);
+        final List<String> reuse = new ArrayList<>();
+        String currentSheetName = null;
+        List<String> line;
+
+        writer.writeInt(MAGIC);
+        writer.writeInt(VERSION);
+
+        while ((line = reader.read(reuse)) != null) {
+            final String sheetName = reader.getCurrentSheetName();
+
+            if (sheetName != null && !sheetName.equals(currentSheetName)) {
+                final Integer index = sheetIndexes.get(sheetName);
+
+                currentSheetName = sheetName;
+                writer.write(TAG_SHEET);
+                writer.writeVarInt((index == null) ? -1 : index);
+                writer.writeString(sheetName);
+            }
+
+            writer.write(TAG_ROW);
+            writer.writeVarInt(line.size());
+
+            for (String value : line) {
+                writer.writeCell(value);
+            }
+        }
+
+        writer.write(TAG_EOF);
+        writer.flush();
+    }
+
+    private static class Writer {
+        @Nonnull
+        private final OutputStream out;
+        @Nonnull
+        private final HashMap<String, Integer> dictionary = new HashMap<>();
+        @Nonnull
+        private final byte[] buffer = new byte[8192];
+        private int position;
+
+        private Writer(@Nonnull OutputStream out) {
+            this.out = out;
+        }
+
+        private void writeCell(@Nullable String value) throws IOException {
+            if (value == null) {
+                write(CELL_NULL);
+                return;
+            }
+
+            final Integer id = dictionary.get(value);
+
+            if (id != null) {
+                writeVarInt(CELL_REF + id);
+            } else if (dictionary.size() < MAX_DICTIONARY_SIZE) {
+                dictionary.put(value, dictionary.size());
+                write(CELL_DEFINE);
+                writeString(value);
+            } else {
+                write(CELL_LITERAL);
+                writeString(value);
+            }
+        }
+
+        private void writeString(@Nonnull String value) throws IOException {
+            final byte[] bytes = value.getBytes(StandardCharsets.UTF_8);
+
+            writeVarInt(bytes.length);
+
+            if (bytes.length > buffer.length - position) {
+                flush();
+
+                if (bytes.length > buffer.length) {
+                    out.write(bytes);
+                    return;
+                }
+            }
+
+            System.arraycopy(bytes, 0, buffer, position, bytes.length);
+            position += bytes.length;
+        }
+
+        private void writeInt(int v) throws IOException {
+            write(v >>> 24);
+            write(v >>> 16);
+            write(v >>> 8);
+            write(v);
+        }
+
+        /**
+         * 无符号 LEB128，-1 占 5 个字节
+         */
+        private void writeVarInt(int v) throws IOException {
+            while ((v & ~0x7f) != 0) {
+                write((v & 0x7f) | 0x80);
+                v >>>= 7;
+            }
+
+            write(v);
+        }
+
+        private void write(int b) throws IOException {
+            if (position == buffer.length) {
+                flush();
+            }
+
+            buffer[position++] = (byte) b;
+        }
+
+        private void flush() throws IOException {
+            out.write(buffer, 0, position);
+            position = 0;
+        }
+    }
+}
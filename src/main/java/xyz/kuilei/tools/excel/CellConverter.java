@@ -0,0 +1,285 @@
+package xyz.kuilei.tools.excel;
+
+import org.apache.poi.ss.usermodel.Cell;
+import org.apache.poi.ss.usermodel.CellStyle;
+import org.apache.poi.ss.usermodel.CellType;
+import org.apache.poi.ss.usermodel.CellValue;
+import org.apache.poi.ss.usermodel.DateUtil;
+import org.apache.poi.ss.usermodel.FormulaEvaluator;
+import org.apache.poi.xssf.usermodel.XSSFCell;
+import org.openxmlformats.schemas.spreadsheetml.x2006.main.CTCell;
+import org.openxmlformats.schemas.spreadsheetml.x2006.main.STCellType;
+import xyz.kuilei.tools.metrics.ReadMetrics;
+
+import javax.annotation.Nonnull;
+import javax.annotation.Nullable;
+import java.util.Arrays;
+
+import static cn.hutool.core.date.DatePattern.PURE_DATETIME_FORMAT;
+
+/**
+ * 单 workbook 内的单元格转换器，转换规则与 {@link CellUtils} 一致，额外持有 workbook 级别的缓存。
+ * <p>
+ * NOTE: 非线程安全，一个 workbook 一个
+ *
+ * @author JiaKun Xu, 2026-10-19 09:30:18
+ */
+public class CellConverter {
+    /**
+     * null: 不启用字典
+     */
+    @Nullable
+    private final CellValueDictionary dictionary;
+
+    /**
+     * 样式下标 -> 数字格式信息。样式下标在 workbook 内唯一，所以一个 workbook 只需解析一次格式
+     */
+    @Nonnull
+    private NumericFormat[] numericFormats = new NumericFormat[64];
+
+    /**
+     * null: 不求值，没有缓存结果的公式为 ""
+     *
+     * @see ExcelReaderConfig#isFormulaEvaluation()
+     */
+    @Nullable
+    private final FormulaEvaluator evaluator;
+
+    /**
+     * null: 不统计。{@link SheetReader} 也用这个
+     */
+    @Nullable
+    private final ReadMetrics metrics;
+    private final boolean cellTimingEnabled;
+
+    public CellConverter(@Nullable CellValueDictionary dictionary) {
+        this(dictionary, null);
+    }
+
+    /**
+     * @param evaluator 整个 workbook 共用一个，已经求过值的 cell 会被它缓存，被多个公式引用的区域只求值一次
+     */
+    public CellConverter(@Nullable CellValueDictionary dictionary, @Nullable FormulaEvaluator evaluator) {
+        this(dictionary, evaluator, null);
+    }
+
+    /**
+     * @param metrics 统计转换的 cell 类型，开启 cell 计时时统计转换耗时
+     */
+    public CellConverter(@Nullable CellValueDictionary dictionary, @Nullable FormulaEvaluator evaluator, @Nullable ReadMetrics metrics) {
+        this.dictionary = dictionary;
+        this.evaluator = evaluator;
+        this.metrics = metrics;
+        this.cellTimingEnabled = (metrics != null && metrics.isCellTimingEnabled());
+    }
+
+    public CellConverter() {
+        this(null);
+    }
+
+    /**
+     * @see CellUtils#getCellString(Cell)
+     */
+    @Nullable
+    public String getCellString(@Nullable Cell cell) {
+        if (cell == null) {
+            return null;
+        }
+
+        final ReadMetrics metrics = this.metrics;
+
+        if (metrics == null) {
+            return toCellString(cell);
+        }
+
+        metrics.cellConverted(cell.getCellType());
+
+        if (!cellTimingEnabled) {
+            return toCellString(cell);
+        }
+
+        final long start = System.nanoTime();
+        final String value = toCellString(cell);
+
+        metrics.stageTime(ReadMetrics.Stage.CELL_CONVERSION, System.nanoTime() - start);
+        return value;
+    }
+
+    @Nullable
+    ReadMetrics getMetrics() {
+        return metrics;
+    }
+
+    @Nullable
+    private String toCellString(@Nonnull Cell cell) {
+        final CellValueDictionary dictionary = this.dictionary;
+
+        if (dictionary == null) {
+            return convert(cell);
+        }
+
+        // xlsx 的共享字符串，按下标命中时不用再转换
+        final int index = getSharedStringIndex(cell);
+
+        if (index >= 0) {
+            String value = dictionary.getSharedString(index);
+
+            if (value == null) {
+                value = dictionary.share(cell.getStringCellValue());
+                dictionary.putSharedString(index, value);
+            }
+
+            return value;
+        }
+
+        final String value = convert(cell);
+
+        return (value == null) ? null : dictionary.share(value);
+    }
+
+    /**
+     * 数字走缓存的格式信息，其他类型交给 {@link CellUtils}
+     */
+    @Nullable
+    private String convert(@Nonnull Cell cell) {
+        CellType cellType = cell.getCellType();
+
+        if (cellType == CellType.FORMULA) {
+            if (evaluator != null && !hasCachedFormulaResult(cell)) {
+                final String value = evaluate(cell);
+
+                if (value != null) {
+                    return value;
+                }
+            }
+
+            cellType = cell.getCachedFormulaResultType();
+        }
+        if (cellType == CellType.NUMERIC) {
+            return getNumericString(cell, cell.getNumericCellValue(), false);
+        }
+
+        return CellUtils.getCellString(cell);
+    }
+
+    /**
+     * 被引用的 cell 由 evaluator 先求值（同样没有缓存结果的公式会递归求值），结果缓存在 evaluator 中
+     *
+     * @return null if evaluation failed, e.g. 不支持的函数、引用了未加载的 sheet
+     */
+    @Nullable
+    private String evaluate(@Nonnull Cell cell) {
+        final CellValue value;
+
+        try {
+            value = evaluator.evaluate(cell);
+        } catch (RuntimeException e) {
+            return null;
+        }
+
+        if (value != null && value.getCellType() == CellType.NUMERIC) {
+            return getNumericString(cell, value.getNumberValue(), true);
+        }
+
+        return CellUtils.toCellString(CellUtils.getEvaluatedObject(cell, value));
+    }
+
+    /**
+     * 结果与 CellUtils#getNumericValue(Cell) 再 toString 一致
+     *
+     * @param value     cell 的值，或者公式的求值结果
+     * @param evaluated value 是否为公式的求值结果
+     */
+    @Nonnull
+    private String getNumericString(@Nonnull Cell cell, double value, boolean evaluated) {
+        final CellStyle style = cell.getCellStyle();
+
+        if (style != null) {
+            final NumericFormat format = getNumericFormat(style);
+
+            if (format.builtinDate || (format.date && DateUtil.isValidExcelDate(value))) {
+                // INFO: 默认系统时区
+                return PURE_DATETIME_FORMAT.format(evaluated ? CellUtils.getJavaDate(cell, value) : cell.getDateCellValue());
+            }
+            if (format.integral) {
+                final long longPart = (long) value;
+
+                if ((double) longPart == value) {
+                    return Long.toString(longPart);
+                }
+            }
+        }
+
+        return CellUtils.toExcelDoubleString(value);
+    }
+
+    @Nonnull
+    private NumericFormat getNumericFormat(@Nonnull CellStyle style) {
+        final int index = style.getIndex() & 0xffff;
+        NumericFormat[] formats = this.numericFormats;
+
+        if (index >= formats.length) {
+            formats = this.numericFormats = Arrays.copyOf(formats, Math.max(index + 1, formats.length << 1));
+        }
+
+        NumericFormat format = formats[index];
+
+        if (format == null) {
+            format = formats[index] = new NumericFormat(style.getDataFormat(), style.getDataFormatString());
+        }
+
+        return format;
+    }
+
+    /**
+     * 只有 xlsx 能区分：其他工具生成的文件，公式经常没有 &lt;v&gt;。xls 的公式记录总是带着结果
+     */
+    private static boolean hasCachedFormulaResult(@Nonnull Cell cell) {
+        return !(cell instanceof XSSFCell) || ((XSSFCell) cell).getCTCell().isSetV();
+    }
+
+    /**
+     * @return -1 if not a shared string
+     */
+    private static int getSharedStringIndex(@Nonnull Cell cell) {
+        if (!(cell instanceof XSSFCell) || cell.getCellType() != CellType.STRING) {
+            return -1;
+        }
+
+        final CTCell ctCell = ((XSSFCell) cell).getCTCell();
+
+        if (ctCell.getT() != STCellType.S || !ctCell.isSetV()) {
+            return -1;
+        }
+
+        try {
+            return Integer.parseInt(ctCell.getV());
+        } catch (NumberFormatException e) {
+            return -1;
+        }
+    }
+
+    /**
+     * 一个样式的数字格式信息
+     */
+    private static class NumericFormat {
+        /**
+         * 内置日期格式，不管值是多少都当作日期
+         */
+        private final boolean builtinDate;
+        /**
+         * 日期格式，值是合法的 excel 日期时才当作日期
+         */
+        private final boolean date;
+        /**
+         * 格式里没有小数点，整数值按 long 输出
+         */
+        private final boolean integral;
+
+        private NumericFormat(short formatIndex, @Nullable String formatString) {
+            this.builtinDate = CellUtils.isBuiltinDateFormat(formatIndex);
+            this.date = DateUtil.isADateFormat(formatIndex, formatString);
+            this.integral = (null != formatString && formatString.indexOf('.') < 0);
+        }
+    }
+}
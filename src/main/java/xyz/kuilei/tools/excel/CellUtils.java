@@ -5,14 +5,19 @@ import cn.hutool.core.date.DateUtil;
 import cn.hutool.core.util.StrUtil;
 import cn.hutool.poi.excel.cell.CellEditor;
 import cn.hutool.poi.excel.cell.CellUtil;
+import org.apache.poi.hssf.usermodel.HSSFWorkbook;
 import org.apache.poi.ss.usermodel.Cell;
 import org.apache.poi.ss.usermodel.CellStyle;
 import org.apache.poi.ss.usermodel.CellType;
+import org.apache.poi.ss.usermodel.CellValue;
+import org.apache.poi.ss.usermodel.Date1904Support;
 import org.apache.poi.ss.usermodel.FormulaError;
+import org.apache.poi.ss.usermodel.Workbook;
 import org.apache.poi.ss.util.NumberToTextConverter;
 
 import javax.annotation.Nonnull;
 import javax.annotation.Nullable;
+import java.util.Date;
 
 import static cn.hutool.core.date.DatePattern.PURE_DATETIME_PATTERN;
 
@@ -41,8 +46,11 @@ public class CellUtils {
      */
     @Nullable
     public static String getCellString(@Nullable Cell cell) {
-        Object obj = getCellObject(cell);
+        return toCellString(getCellObject(cell));
+    }
 
+    @Nullable
+    static String toCellString(@Nullable Object obj) {
         if (obj == null) {
             return null;
         } else if (obj instanceof DateTime) {
@@ -91,17 +99,51 @@ public class CellUtils {
         }
     }
 
+    /**
+     * 公式的求值结果，按与 {@link #getCellObject(Cell, CellType)} 相同的规则映射，数字的格式取自 cell 的样式
+     *
+     * @param value null 表示结果为空
+     */
+    @Nonnull
+    static Object getEvaluatedObject(@Nonnull Cell cell, @Nullable CellValue value) {
+        if (null == value) {
+            return StrUtil.EMPTY;
+        }
+
+        switch (value.getCellType()) {
+            case NUMERIC:
+                return getNumericValue(cell, value.getNumberValue(), true);
+            case BOOLEAN:
+                return value.getBooleanValue();
+            case ERROR:
+                FormulaError error = FormulaError.forInt(value.getErrorValue());
+                return (null == error) ? StrUtil.EMPTY : error.getString();
+            case STRING:
+                return value.getStringValue();
+            default:
+                return StrUtil.EMPTY;
+        }
+    }
+
     /**
      * @see CellUtil#getNumericValue(Cell)
      */
     @Nonnull
     private static Object getNumericValue(@Nonnull Cell cell) {
-        double value = cell.getNumericCellValue();
+        return getNumericValue(cell, cell.getNumericCellValue(), false);
+    }
+
+    /**
+     * @param value     不一定是 cell 中缓存的值，例如公式的求值结果
+     * @param evaluated value 是否为公式的求值结果，否则就是 cell 自己的值
+     */
+    @Nonnull
+    private static Object getNumericValue(@Nonnull Cell cell, double value, boolean evaluated) {
         CellStyle style = cell.getCellStyle();
         if (null != style) {
             short formatIndex = style.getDataFormat();
-            if (isDateType(cell, formatIndex)) {
-                return DateUtil.date(cell.getDateCellValue());
+            if (isDateType(style, formatIndex, value)) {
+                return DateUtil.date(evaluated ? getJavaDate(cell, value) : cell.getDateCellValue());
             }
 
             String format = style.getDataFormatString();
@@ -113,13 +155,100 @@ public class CellUtils {
             }
         }
 
-        return Double.parseDouble(NumberToTextConverter.toText(value));
+        return toExcelDouble(value);
     }
 
     /**
+     * 与 isBuiltinDateFormat(formatIndex) || DateUtil.isCellDateFormatted(cell) 一致，只是值由参数给出
+     *
      * @see CellUtil#isDateType(Cell, int)
      */
-    private static boolean isDateType(Cell cell, int formatIndex) {
-        return formatIndex != 14 && formatIndex != 31 && formatIndex != 57 && formatIndex != 58 && formatIndex != 20 && formatIndex != 32 ? org.apache.poi.ss.usermodel.DateUtil.isCellDateFormatted(cell) : true;
+    private static boolean isDateType(@Nonnull CellStyle style, int formatIndex, double value) {
+        return isBuiltinDateFormat(formatIndex)
+                || (org.apache.poi.ss.usermodel.DateUtil.isValidExcelDate(value)
+                && org.apache.poi.ss.usermodel.DateUtil.isADateFormat(formatIndex, style.getDataFormatString()));
+    }
+
+    /**
+     * 等价于 cell.getDateCellValue()，只是值由参数给出
+     */
+    @Nonnull
+    static Date getJavaDate(@Nonnull Cell cell, double value) {
+        return org.apache.poi.ss.usermodel.DateUtil.getJavaDate(value, isDate1904(cell.getSheet().getWorkbook()));
+    }
+
+    /**
+     * WARN: POI 4.1.2 的 HSSFWorkbook 没有实现 Date1904Support，要从 InternalWorkbook 中取
+     */
+    private static boolean isDate1904(@Nonnull Workbook workbook) {
+        if (workbook instanceof HSSFWorkbook) {
+            return ((HSSFWorkbook) workbook).getInternalWorkbook().isUsing1904DateWindowing();
+        }
+
+        return (workbook instanceof Date1904Support) && ((Date1904Support) workbook).isDate1904();
+    }
+
+    /**
+     * hutool 认定的内置日期格式，不管值是多少都当作日期
+     */
+    static boolean isBuiltinDateFormat(int formatIndex) {
+        return formatIndex == 14 || formatIndex == 31 || formatIndex == 57 || formatIndex == 58 || formatIndex == 20 || formatIndex == 32;
+    }
+
+    /**
+     * 等价于 Double.parseDouble(NumberToTextConverter.toText(value))，即按 excel 的 15 位有效数字取整。
+     * <p>
+     * 不超过 15 位有效数字的整数本来就是精确的，不用走字符串往返
+     */
+    static double toExcelDouble(double value) {
+        if (value == (long) value && Math.abs(value) < 1E15) {
+            return value;
+        }
+
+        return Double.parseDouble(NumberToTextConverter.toText(value));
+    }
+
+    /**
+     * 等价于 Double.toString(toExcelDouble(value))。
+     * <p>
+     * Double.toString 的结果能原样 parse 回 value，只要它不超过 15 位有效数字，
+     * 按 15 位取整之后还是它自己，这时候就不用走 NumberToTextConverter 了。
+     * <p>
+     * WARN: NumberToTextConverter 在指数很大或很小时并不是精确取整的，所以只在常见的数量级内走快路径
+     */
+    @Nonnull
+    static String toExcelDoubleString(double value) {
+        final double abs = Math.abs(value);
+
+        if (value == 0 || (abs >= 1E-9 && abs < 1E15)) {
+            final String text = Double.toString(value);
+
+            if (countSignificantDigits(text) <= 15) {
+                return text;
+            }
+        }
+        // NaN、Infinity、非规格化数，excel 有自己的规则
+
+        return Double.toString(Double.parseDouble(NumberToTextConverter.toText(value)));
+    }
+
+    /**
+     * 数 Double.toString 结果中尾数部分的有效数字个数，前导 0 不算，多数一些只会走慢路径，不会出错
+     */
+    private static int countSignificantDigits(@Nonnull String text) {
+        int count = 0;
+
+        for (int i = 0, n = text.length(); i < n; ++i) {
+            final char c = text.charAt(i);
+
+            if (c == 'E') {
+                break;
+            }
+            if (c >= '1' && c <= '9' || (c == '0' && count != 0)) {
+                ++count;
+            }
+        }
+
+        return count;
     }
 }
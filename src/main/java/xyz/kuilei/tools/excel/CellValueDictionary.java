@@ -0,0 +1,93 @@
+package xyz.kuilei.tools.excel;
+
+import javax.annotation.Nonnull;
+import javax.annotation.Nullable;
+import java.util.Arrays;
+import java.util.HashMap;
+
+/**
+ * 单元格值字典，同一个 workbook 内相同的单元格值共享同一个 String 实例。
+ * <p>
+ * 1. xlsx 的字符串单元格按 shared strings table 的下标缓存，命中时连转换都省了；
+ * 2. 其他单元格按转换后的值去重。
+ * <p>
+ * NOTE: 字典的生命周期与 workbook 一致，非线程安全
+ *
+ * @author JiaKun Xu, 2026-10-19 09:12:36
+ */
+public class CellValueDictionary {
+    /**
+     * 默认最多收录的值个数，防止 id 之类的高基数列把字典撑爆
+     */
+    public static final int DEFAULT_MAX_SIZE = 1 << 20;
+
+    private final int maxSize;
+
+    @Nonnull
+    private final HashMap<String, String> values = new HashMap<>();
+
+    /**
+     * shared strings table 的下标 -> 值
+     */
+    @Nonnull
+    private String[] sharedStrings = new String[256];
+
+    public CellValueDictionary(int maxSize) {
+        if (maxSize <= 0) {
+            throw new IllegalArgumentException("maxSize <= 0");
+        }
+
+        this.maxSize = maxSize;
+    }
+
+    public CellValueDictionary() {
+        this(DEFAULT_MAX_SIZE);
+    }
+
+    /**
+     * @return 字典中与 value 相等的实例，字典已满且不存在时返回 value 本身
+     */
+    @Nonnull
+    public String share(@Nonnull String value) {
+        final HashMap<String, String> values = this.values;
+        final String shared = values.get(value);
+
+        if (shared != null) {
+            return shared;
+        }
+        if (values.size() < maxSize) {
+            values.put(value, value);
+        }
+
+        return value;
+    }
+
+    /**
+     * @return null if not cached
+     */
+    @Nullable
+    String getSharedString(int index) {
+        final String[] sharedStrings = this.sharedStrings;
+
+        return (index < sharedStrings.length) ? sharedStrings[index] : null;
+    }
+
+    void putSharedString(int index, @Nonnull String value) {
+        String[] sharedStrings = this.sharedStrings;
+
+        if (index >= sharedStrings.length) {
+            sharedStrings = this.sharedStrings = Arrays.copyOf(sharedStrings, Math.max(index + 1, sharedStrings.length << 1));
+        }
+
+        sharedStrings[index] = value;
+    }
+
+    public int size() {
+        return values.size();
+    }
+
+    public void clear() {
+        values.clear();
+        sharedStrings = new String[256];
+    }
+}
@@ -0,0 +1,194 @@
+package xyz.kuilei.tools.excel;
+
+import lombok.Getter;
+import lombok.Setter;
+import lombok.experimental.Accessors;
+import xyz.kuilei.tools.io.ChannelTextWriter;
+
+import javax.annotation.Nonnull;
+import javax.annotation.Nullable;
+import java.io.File;
+import java.io.IOException;
+import java.io.Writer;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.function.Function;
+
+/**
+ * 把 sheet 直接导出为分隔符文本，给批量导入工具用
+ * <p>
+ * 1. 每行复用同一个 list 读取，合并单元格由 {@link SheetReader} 展开，直接写进 {@link ChannelTextWriter}，中间不拼字符串；
+ * 2. 内存只有一行与写缓冲，与行数无关；
+ * 3. 行分隔符可以是任意字符串，导出的文件可以用 {@link xyz.kuilei.tools.io.AnySeparatorLineIterator} 按行读回来。
+ * <p>
+ * 与 {@link ExcelReader#read()} 一致，空行不导出，null 导出为空字段。
+ *
+ * @author JiaKun Xu, 2026-10-19 18:42:03
+ */
+@Getter
+@Setter
+@Accessors(chain = true)
+public class DelimitedExporter {
+    /**
+     * 字段分隔符
+     */
+    @Nonnull
+    private String fieldSeparator = ",";
+
+    /**
+     * 行分隔符。{@link xyz.kuilei.tools.io.AnySeparatorLineIterator} 不认引号，值里可能有换行时，换一个值里不会出现的行分隔符
+     */
+    @Nonnull
+    private String lineSeparator = "\n";
+
+    private char quote = '"';
+
+    @Nonnull
+    private QuoteMode quoteMode = QuoteMode.MINIMAL;
+
+    /**
+     * null: 默认字符集
+     */
+    @Nullable
+    private String encoding = null;
+
+    private int bufferSize = ChannelTextWriter.DEFAULT_BUFFER_SIZE;
+
+    /**
+     * 导出一个 sheet
+     *
+     * @return 导出的行数
+     */
+    public long export(@Nonnull SheetReader reader, @Nonnull File target) throws IOException {
+        try (Writer writer = new ChannelTextWriter(target, encoding, bufferSize)) {
+            final List<String> reuse = new ArrayList<>();
+            long rows = 0;
+
+            while (reader.read(reuse) != null) {
+                if (reuse.size() != 0) {
+                    writeLine(writer, reuse);
+                    ++rows;
+                }
+            }
+
+            return rows;
+        }
+    }
+
+    /**
+     * 每个 sheet 导出为一个文件，sheet 的选择、投影、求值等都按 reader 的配置
+     *
+     * @param targetOf sheet 名字 -> 导出的文件
+     * @return sheet 名字 -> 导出的行数，没有行的 sheet 不导出
+     */
+    @Nonnull
+    public LinkedHashMap<String, Long> export(@Nonnull ExcelReader reader, @Nonnull Function<String, File> targetOf) throws IOException {
+        final LinkedHashMap<String, Long> counts = new LinkedHashMap<>();
+        final List<String> reuse = new ArrayList<>();
+        Writer writer = null;
+        String currentSheetName = null;
+        long rows = 0;
+
+        try {
+            while (reader.read(reuse) != null) {
+                final String sheetName = reader.getCurrentSheetName();
+
+                if (writer == null || !sheetName.equals(currentSheetName)) {
+                    if (writer != null) {
+                        writer.close();
+                        counts.put(currentSheetName, rows);
+                    }
+
+                    writer = new ChannelTextWriter(targetOf.apply(sheetName), encoding, bufferSize);
+                    currentSheetName = sheetName;
+                    rows = 0;
+                }
+
+                writeLine(writer, reuse);
+                ++rows;
+            }
+
+            if (writer != null) {
+                final Writer last = writer;
+                writer = null;
+                last.close();
+                counts.put(currentSheetName, rows);
+            }
+        } finally {
+            if (writer != null) {
+                writer.close();
+            }
+        }
+
+        return counts;
+    }
+
+    private void writeLine(@Nonnull Writer writer, @Nonnull List<String> line) throws IOException {
+        final String fieldSeparator = this.fieldSeparator;
+
+        for (int i = 0, n = line.size(); i < n; ++i) {
+            if (i != 0) {
+                writer.write(fieldSeparator);
+            }
+
+            writeField(writer, line.get(i));
+        }
+
+        writer.write(lineSeparator);
+    }
+
+    private void writeField(@Nonnull Writer writer, @Nullable String value) throws IOException {
+        if (value == null || value.isEmpty()) {
+            if (quoteMode == QuoteMode.ALL) {
+                writer.write(quote);
+                writer.write(quote);
+            }
+            return;
+        }
+
+        if (quoteMode == QuoteMode.NONE || (quoteMode == QuoteMode.MINIMAL && !needsQuote(value))) {
+            writer.write(value);
+            return;
+        }
+
+        final char quote = this.quote;
+        int from = 0;
+        int i;
+
+        writer.write(quote);
+
+        // 引号重复一次
+        while ((i = value.indexOf(quote, from)) >= 0) {
+            writer.write(value, from, i + 1 - from);
+            writer.write(quote);
+            from = i + 1;
+        }
+
+        writer.write(value, from, value.length() - from);
+        writer.write(quote);
+    }
+
+    private boolean needsQuote(@Nonnull String value) {
+        return value.indexOf(quote) >= 0
+                || value.contains(fieldSeparator)
+                || value.contains(lineSeparator)
+                || value.indexOf('\n') >= 0
+                || value.indexOf('\r') >= 0;
+    }
+
+    public enum QuoteMode {
+        /**
+         * 原样输出。值里有分隔符时读不回来，只在确定不会有时用
+         */
+        NONE,
+        /**
+         * 只给包含分隔符、引号、换行的值加引号
+         */
+        MINIMAL,
+        /**
+         * 所有字段都加引号
+         */
+        ALL
+    }
+}
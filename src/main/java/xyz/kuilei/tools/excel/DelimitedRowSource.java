@@ -0,0 +1,243 @@
+package xyz.kuilei.tools.excel;
+
+import xyz.kuilei.tools.io.AnySeparatorLineIterator;
+
+import javax.annotation.Nonnull;
+import javax.annotation.Nullable;
+import java.io.File;
+import java.io.IOException;
+import java.util.AbstractList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.RandomAccess;
+
+/**
+ * 分隔符文本的 {@link RowSource}，能读回 {@link DelimitedExporter} 导出的文件
+ * <p>
+ * 1. 行由 {@link AnySeparatorLineIterator} 按任意行分隔符切分；
+ * 2. 字段只记录在行中的起止位置，{@link List#get(int)} 时才生成字符串，表头匹配、按列绑定只会生成用到的字段；
+ * 3. 支持引号：被引号包围的字段中可以有字段分隔符，两个引号表示一个引号。行分隔符不能出现在字段中。
+ * 引号字符与 {@link DelimitedExporter#setQuote(char)} 一致才能读回，默认都是 {@value #DEFAULT_QUOTE}。
+ * <p>
+ * NOTE: 非线程安全
+ *
+ * @author JiaKun Xu, 2026-10-19 20:46:03
+ */
+public class DelimitedRowSource implements RowSource {
+    public static final String DEFAULT_FIELD_SEPARATOR = ",";
+    public static final String DEFAULT_LINE_SEPARATOR = "\n";
+    public static final char DEFAULT_QUOTE = '"';
+
+    @Nonnull
+    private final AnySeparatorLineIterator iterator;
+    @Nonnull
+    private final String fieldSeparator;
+    private final char quote;
+    /**
+     * 行分隔符为 "\n" 时，兼容 "\r\n"
+     */
+    private final boolean stripCarriageReturn;
+
+    /**
+     * 字段的起止位置，每行复用，每 2 个一组
+     */
+    @Nonnull
+    private int[] bounds = new int[32];
+
+    public DelimitedRowSource(@Nonnull File file) throws IOException {
+        this(file, DEFAULT_FIELD_SEPARATOR, DEFAULT_LINE_SEPARATOR, null);
+    }
+
+    public DelimitedRowSource(@Nonnull File file, @Nonnull String fieldSeparator,
+                              @Nonnull String lineSeparator, @Nullable String encoding) throws IOException {
+        this(file, fieldSeparator, lineSeparator, encoding, DEFAULT_QUOTE);
+    }
+
+    /**
+     * @param quote 与导出时的 {@link DelimitedExporter#getQuote()} 一致
+     */
+    public DelimitedRowSource(@Nonnull File file, @Nonnull String fieldSeparator,
+                              @Nonnull String lineSeparator, @Nullable String encoding, char quote) throws IOException {
+        if (fieldSeparator.isEmpty()) {
+            throw new IllegalArgumentException("fieldSeparator is empty");
+        }
+
+        this.iterator = new AnySeparatorLineIterator(lineSeparator, file, encoding);
+        this.fieldSeparator = fieldSeparator;
+        this.quote = quote;
+        this.stripCarriageReturn = DEFAULT_LINE_SEPARATOR.equals(lineSeparator);
+    }
+
+    /**
+     * @return 行中的字段按需生成，可以一直持有
+     */
+    @Nullable
+    @Override
+    public List<String> read() {
+        final AnySeparatorLineIterator iterator = this.iterator;
+
+        while (iterator.hasNext()) {
+            String line = iterator.next();
+
+            if (stripCarriageReturn && !line.isEmpty() && line.charAt(line.length() - 1) == '\r') {
+                line = line.substring(0, line.length() - 1);
+            }
+            if (!line.isEmpty()) {
+                return split(line);
+            }
+        }
+
+        return null;
+    }
+
+    @Nullable
+    @Override
+    public String getCurrentSheetName() {
+        return null;
+    }
+
+    @Override
+    public void close() throws IOException {
+        iterator.close();
+    }
+
+    @Nonnull
+    private DelimitedLine split(@Nonnull String line) {
+        final String separator = this.fieldSeparator;
+        final char quote = this.quote;
+        final int separatorLength = separator.length();
+        final int n = line.length();
+        int count = 0;
+        int pos = 0;
+
+        while (true) {
+            int start = pos;
+            int end;
+            boolean escaped = false;
+            int next;
+
+            if (pos < n && line.charAt(pos) == quote) {
+                // 找配对的引号，"" 是转义
+                int i = pos + 1;
+                int close;
+
+                while ((close = line.indexOf(quote, i)) >= 0 && close + 1 < n && line.charAt(close + 1) == quote) {
+                    escaped = true;
+                    i = close + 2;
+                }
+
+                if (close >= 0 && (close + 1 == n || line.startsWith(separator, close + 1))) {
+                    start = pos + 1;
+                    end = close;
+                    next = close + 1;
+                } else {
+                    // 引号不完整，按原样处理
+                    escaped = false;
+                    next = line.indexOf(separator, pos);
+                    end = (next < 0) ? n : next;
+                    next = end;
+                }
+            } else {
+                next = line.indexOf(separator, pos);
+                end = (next < 0) ? n : next;
+                next = end;
+            }
+
+            int[] bounds = this.bounds;
+
+            if ((count << 1) == bounds.length) {
+                bounds = this.bounds = Arrays.copyOf(bounds, bounds.length << 1);
+            }
+
+            bounds[count << 1] = start;
+            bounds[(count << 1) + 1] = escaped ? ~end : end;
+            ++count;
+
+            if (next >= n) {
+                break;
+            }
+
+            pos = next + separatorLength;
+
+            if (pos == n) {
+                // 以分隔符结尾，最后一个字段为空
+                start = n;
+
+                if ((count << 1) == bounds.length) {
+                    bounds = this.bounds = Arrays.copyOf(bounds, bounds.length << 1);
+                }
+
+                bounds[count << 1] = start;
+                bounds[(count << 1) + 1] = n;
+                ++count;
+                break;
+            }
+        }
+
+        return new DelimitedLine(line, Arrays.copyOf(bounds, count << 1), count, quote);
+    }
+
+    /**
+     * 一行中的字段，get 时才生成字符串，生成之后缓存
+     */
+    private static class DelimitedLine extends AbstractList<String> implements RandomAccess {
+        @Nonnull
+        private final String line;
+        /**
+         * 每 2 个一组：start，end（取反表示需要把两个引号还原为一个）
+         */
+        @Nonnull
+        private final int[] bounds;
+        private final int size;
+        private final char quote;
+        @Nullable
+        private String[] values;
+
+        private DelimitedLine(@Nonnull String line, @Nonnull int[] bounds, int size, char quote) {
+            this.line = line;
+            this.bounds = bounds;
+            this.size = size;
+            this.quote = quote;
+        }
+
+        @Override
+        public String get(int index) {
+            if (index < 0 || index >= size) {
+                throw new IndexOutOfBoundsException("Index: " + index + ", Size: " + size);
+            }
+
+            String[] values = this.values;
+
+            if (values == null) {
+                values = this.values = new String[size];
+            }
+
+            String value = values[index];
+
+            if (value == null) {
+                value = values[index] = field(index);
+            }
+
+            return value;
+        }
+
+        @Override
+        public int size() {
+            return size;
+        }
+
+        @Nonnull
+        private String field(int index) {
+            final int start = bounds[index << 1];
+            final int end = bounds[(index << 1) + 1];
+
+            if (end >= 0) {
+                return line.substring(start, end);
+            }
+
+            final String value = line.substring(start, ~end);
+            final String quote = String.valueOf(this.quote);
+            return value.replace(quote + quote, quote);
+        }
+    }
+}
@@ -0,0 +1,214 @@
+package xyz.kuilei.tools.excel;
+
+import cn.hutool.crypto.digest.DigestUtil;
+
+import javax.annotation.Nonnull;
+import java.io.BufferedOutputStream;
+import java.io.File;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.file.*;
+import java.nio.file.attribute.BasicFileAttributes;
+import java.nio.file.attribute.FileTime;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * {@link ExcelReader} 输出的磁盘缓存：同一个 workbook 反复导入时，只有第一次付出 POI 解析的代价
+ * <p>
+ * 1. 缓存文件以内容哈希 + 文件大小命名，重新上传的同一个文件也能命中；
+ * 同一路径的大小、修改时间不变时，复用上次算出的哈希，不再读一遍文件；
+ * 2. 缓存文件的格式见 {@link CachedRowFormat}，命中时由 {@link CachedExcelReader} 分段 mmap 读取；
+ * 3. 缓存目录超过 maxBytes 时，按最近使用时间（即缓存文件的修改时间，命中时更新）淘汰最久未用的。
+ * <p>
+ * 缓存里是整个 workbook，{@link ExcelReaderConfig#getSheetSelector()}、{@link ExcelReaderConfig#getColumns()} 在读的时候应用。
+ * 多个进程共享同一个缓存目录也是安全的：缓存文件先写到临时文件，写完再原子地改名。
+ *
+ * @author JiaKun Xu, 2026-10-19 17:31:56
+ */
+public class ExcelReadCache {
+    private static final String SUFFIX = ".rows";
+
+    @Nonnull
+    private final Path directory;
+    private final long maxBytes;
+
+    /**
+     * 文件路径 -> 上次的指纹
+     */
+    @Nonnull
+    private final ConcurrentHashMap<Path, Fingerprint> fingerprints = new ConcurrentHashMap<>();
+
+    /**
+     * @param maxBytes 缓存目录的大小上限
+     */
+    public ExcelReadCache(@Nonnull File directory, long maxBytes) throws IOException {
+        if (maxBytes <= 0) {
+            throw new IllegalArgumentException("maxBytes <= 0");
+        }
+
+        this.directory = Files.createDirectories(directory.toPath());
+        this.maxBytes = maxBytes;
+    }
+
+    @Nonnull
+    public CachedExcelReader open(@Nonnull File file) throws IOException {
+        return open(file, new ExcelReaderConfig());
+    }
+
+    /**
+     * 命中则直接读缓存，否则用 {@link ExcelReader} 读一遍写进缓存，再读缓存
+     */
+    @Nonnull
+    public CachedExcelReader open(@Nonnull File file, @Nonnull ExcelReaderConfig config) throws IOException {
+        // 求值与否结果不同，分开缓存
+        final String key = fingerprint(file.toPath()).key() + (config.isFormulaEvaluation() ? "-eval" : "");
+        final Path cacheFile = directory.resolve(key + SUFFIX);
+
+        if (Files.isRegularFile(cacheFile)) {
+            try {
+                final CachedExcelReader reader = new CachedExcelReader(cacheFile, config);
+                touch(cacheFile);
+                return reader;
+            } catch (IOException e) {
+                // 旧版本或损坏的缓存文件，重建
+            }
+        }
+
+        build(file, config, cacheFile);
+        evict(cacheFile);
+
+        return new CachedExcelReader(cacheFile, config);
+    }
+
+    @Nonnull
+    private Fingerprint fingerprint(@Nonnull Path path) throws IOException {
+        final Path key = path.toAbsolutePath().normalize();
+        final BasicFileAttributes attrs = Files.readAttributes(key, BasicFileAttributes.class);
+        final long size = attrs.size();
+        final long lastModified = attrs.lastModifiedTime().toMillis();
+        final Fingerprint last = fingerprints.get(key);
+
+        if (last != null && last.size == size && last.lastModified == lastModified) {
+            return last;
+        }
+
+        final Fingerprint fingerprint = new Fingerprint(DigestUtil.sha256Hex(key.toFile()), size, lastModified);
+        fingerprints.put(key, fingerprint);
+        return fingerprint;
+    }
+
+    private void build(@Nonnull File file, @Nonnull ExcelReaderConfig config, @Nonnull Path cacheFile) throws IOException {
+        // 缓存整个 workbook：不投影，选择器只用来记录 sheet 的下标
+        final Map<String, Integer> sheetIndexes = new ConcurrentHashMap<>();
+        final ExcelReaderConfig buildConfig = new ExcelReaderConfig()
+                .setXlsEventModel(config.isXlsEventModel())
+                .setFormulaEvaluation(config.isFormulaEvaluation())
+                .setSheetSelector((index, name) -> {
+                    sheetIndexes.put(name, index);
+                    return true;
+                });
+
+        final Path tmp = Files.createTempFile(directory, cacheFile.getFileName().toString(), ".tmp");
+
+        try {
+            try (ExcelReader reader = new ExcelReader(file, buildConfig);
+                 OutputStream out = new BufferedOutputStream(Files.newOutputStream(tmp), 1 << 16)) {
+                CachedRowFormat.write(reader, sheetIndexes, out);
+            }
+
+            try {
+                Files.move(tmp, cacheFile, StandardCopyOption.ATOMIC_MOVE, StandardCopyOption.REPLACE_EXISTING);
+            } catch (AtomicMoveNotSupportedException e) {
+                Files.move(tmp, cacheFile, StandardCopyOption.REPLACE_EXISTING);
+            }
+        } finally {
+            Files.deleteIfExists(tmp);
+        }
+    }
+
+    /**
+     * 按修改时间从旧到新删除，直到总大小不超过 maxBytes，keep 不删
+     */
+    private void evict(@Nonnull Path keep) throws IOException {
+        final List<Entry> entries = new ArrayList<>();
+        long total = 0;
+
+        try (DirectoryStream<Path> stream = Files.newDirectoryStream(directory, "*" + SUFFIX)) {
+            for (Path path : stream) {
+                try {
+                    final BasicFileAttributes attrs = Files.readAttributes(path, BasicFileAttributes.class);
+
+                    entries.add(new Entry(path, attrs.size(), attrs.lastModifiedTime().toMillis()));
+                    total += attrs.size();
+                } catch (NoSuchFileException e) {
+                    // 被别的进程淘汰了
+                }
+            }
+        }
+
+        if (total <= maxBytes) {
+            return;
+        }
+
+        entries.sort(Comparator.comparingLong(entry -> entry.lastUsed));
+
+        for (Entry entry : entries) {
+            if (total <= maxBytes) {
+                break;
+            }
+            if (entry.path.equals(keep)) {
+                continue;
+            }
+
+            try {
+                Files.deleteIfExists(entry.path);
+                total -= entry.size;
+            } catch (IOException e) {
+                // 例如 windows 下正在被读取
+            }
+        }
+    }
+
+    private static void touch(@Nonnull Path path) {
+        try {
+            Files.setLastModifiedTime(path, FileTime.fromMillis(System.currentTimeMillis()));
+        } catch (IOException e) {
+            // 只影响淘汰顺序
+        }
+    }
+
+    private static class Fingerprint {
+        @Nonnull
+        private final String sha256;
+        private final long size;
+        private final long lastModified;
+
+        private Fingerprint(@Nonnull String sha256, long size, long lastModified) {
+            this.sha256 = sha256;
+            this.size = size;
+            this.lastModified = lastModified;
+        }
+
+        @Nonnull
+        private String key() {
+            return sha256 + "-" + size;
+        }
+    }
+
+    private static class Entry {
+        @Nonnull
+        private final Path path;
+        private final long size;
+        private final long lastUsed;
+
+        private Entry(@Nonnull Path path, long size, long lastUsed) {
+            this.path = path;
+            this.size = size;
+            this.lastUsed = lastUsed;
+        }
+    }
+}
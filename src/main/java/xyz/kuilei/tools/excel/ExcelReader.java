@@ -2,22 +2,25 @@ package xyz.kuilei.tools.excel;
 
 import lombok.Getter;
 import org.apache.commons.io.IOUtils;
+import org.apache.poi.poifs.filesystem.FileMagic;
 import org.apache.poi.ss.usermodel.Sheet;
 import org.apache.poi.ss.usermodel.Workbook;
 import org.apache.poi.ss.usermodel.WorkbookFactory;
+import xyz.kuilei.tools.metrics.ReadMetrics;
 
 import javax.annotation.Nonnull;
 import javax.annotation.Nullable;
-import java.io.Closeable;
 import java.io.File;
 import java.io.IOException;
+import java.util.ArrayList;
 import java.util.Iterator;
 import java.util.List;
+import java.util.Objects;
 
 /**
  * @author JiaKun Xu, 2023-09-08 11:09:44
  */
-public class ExcelReader implements Closeable {
+public class ExcelReader implements RowSource {
     private Workbook workbook;
     private Iterator<Sheet> sheetIterator;
 
@@ -25,31 +28,195 @@ public class ExcelReader implements Closeable {
     private Sheet currentSheet;
     private SheetReader currentSheetReader;
 
+    /**
+     * 整个 workbook 共用一个，workbook 级别的缓存都放在这里
+     */
+    @Nonnull
+    private final CellConverter converter;
+
+    @Nonnull
+    private final ExcelReaderConfig config;
+
+    /**
+     * .xls 事件模型，不为 null 时不使用 {@link #workbook}
+     *
+     * @see ExcelReaderConfig#isXlsEventModel()
+     */
+    private RowPipeline eventPipeline;
+    private String eventSheetName;
+    private String skippedEventSheetName;
+    /**
+     * 事件模型下当前 sheet 的列投影，是生产者交来的行中的下标，换 sheet 时清空
+     *
+     * @see #setCurrentSheetColumns(int...)
+     */
+    private int[] eventColumns;
+    private String eventColumnsSheetName;
+
     public ExcelReader(@Nonnull File file) throws IOException {
-        workbook = WorkbookFactory.create(file, null, true);
-        sheetIterator = workbook.sheetIterator();
+        this(file, new ExcelReaderConfig());
+    }
+
+    public ExcelReader(@Nonnull File file, @Nonnull ExcelReaderConfig config) throws IOException {
+        final CellValueDictionary dictionary = config.isValueDictionary() ? new CellValueDictionary() : null;
+        final ReadMetrics metrics = config.getMetrics();
+
+        this.config = config;
+
+        if (metrics != null) {
+            metrics.bytesRead(file.length());
+        }
+
+        if (config.isXlsEventModel() && FileMagic.valueOf(file) == FileMagic.OLE2) {
+            converter = new CellConverter(dictionary);
+            eventPipeline = new RowPipeline("xls-event", PrefetchExcelReader.DEFAULT_DEPTH, PrefetchExcelReader.DEFAULT_BATCH_SIZE,
+                    new HssfEventRowProducer(file, config, dictionary));
+            return;
+        }
+
+        final long start = (metrics == null) ? 0L : System.nanoTime();
+        final SheetSelector selector = config.getSheetSelector();
+
+        if (selector == null) {
+            workbook = WorkbookFactory.create(file, null, true);
+            sheetIterator = workbook.sheetIterator();
+        } else if (FileMagic.valueOf(file) == FileMagic.OOXML) {
+            // 未选中的 sheet 根本不会被解析
+            workbook = SelectiveXSSFWorkbook.open(file, selector);
+            sheetIterator = workbook.sheetIterator();
+        } else {
+            workbook = WorkbookFactory.create(file, null, true);
+            sheetIterator = selectedSheets(workbook, selector).iterator();
+        }
+
+        if (metrics != null) {
+            metrics.stageTime(ReadMetrics.Stage.WORKBOOK_OPEN, System.nanoTime() - start);
+        }
+
+        converter = new CellConverter(dictionary,
+                config.isFormulaEvaluation() ? workbook.getCreationHelper().createFormulaEvaluator() : null, metrics);
     }
 
     /**
      * @return null if EOF
+     * @throws IllegalStateException if read failed in xls event model
      */
     @Nullable
+    @Override
     public List<String> read() {
+        if (eventPipeline != null) {
+            return nextEventLine();
+        }
+
+        List<String> line;
+
+        if ((line = nextLine(null)) != null) {
+            return line;
+        }
+
+        if ((line = nextSheetNextLine(null)) != null) {
+            return line;
+        }
+
+        return null;
+    }
+
+    /**
+     * 与 {@link #read()} 一致，但是把结果放进 reuse，空行在内部跳过，不再为每行新建 list
+     *
+     * @param reuse 会先被清空
+     * @return reuse, or null if EOF
+     */
+    @Nullable
+    public List<String> read(@Nonnull List<String> reuse) {
+        if (eventPipeline != null) {
+            final List<String> line = nextEventLine();
+
+            if (line == null) {
+                return null;
+            }
+
+            reuse.clear();
+            reuse.addAll(line);
+            return reuse;
+        }
+
         List<String> line;
 
-        if ((line = nextLine()) != null) {
+        if ((line = nextLine(reuse)) != null) {
             return line;
         }
 
-        if ((line = nextSheetNextLine()) != null) {
+        if ((line = nextSheetNextLine(reuse)) != null) {
             return line;
         }
 
         return null;
     }
 
+    /**
+     * 等价于 TrimmedLine.fromLine(read())，空白行直接跳过
+     *
+     * @return null if EOF
+     * @see SheetReader#readTrimmed()
+     */
+    @Nullable
+    @Override
+    public TrimmedLine readTrimmed() {
+        if (eventPipeline != null) {
+            List<String> line;
+
+            while ((line = nextEventLine()) != null) {
+                final TrimmedLine trimmed = TrimmedLine.fromLine(line);
+
+                if (trimmed != null) {
+                    return trimmed;
+                }
+            }
+
+            return null;
+        }
+
+        do {
+            final SheetReader reader = this.currentSheetReader;
+
+            if (reader != null) {
+                final TrimmedLine line = reader.readTrimmed();
+
+                if (line != null) {
+                    return line;
+                }
+
+                skipCurrentSheet();
+            }
+        } while (nextSheet());
+
+        return null;
+    }
+
+    /**
+     * 当前 sheet 的名字，.xls 事件模型下 {@link #getCurrentSheet()} 为 null，用这个
+     */
+    @Nullable
+    @Override
+    public String getCurrentSheetName() {
+        if (eventPipeline != null) {
+            return eventSheetName;
+        }
+
+        final Sheet sheet = currentSheet;
+        return (sheet == null) ? null : sheet.getSheetName();
+    }
+
     @Override
     public void close() {
+        final RowPipeline eventPipeline = this.eventPipeline;
+
+        if (eventPipeline != null) {
+            eventSheetName = null;
+            eventPipeline.close();
+        }
+
         final Workbook workbook = this.workbook;
 
         if (workbook != null) {
@@ -62,8 +229,11 @@ public class ExcelReader implements Closeable {
         }
     }
 
+    /**
+     * @param reuse null 则每行新建 list
+     */
     @Nullable
-    private List<String> nextLine() {
+    private List<String> nextLine(@Nullable List<String> reuse) {
         final SheetReader reader = this.currentSheetReader;
 
         if (reader == null) {
@@ -72,7 +242,7 @@ public class ExcelReader implements Closeable {
 
         List<String> line;
 
-        while ((line = reader.read()) != null) {
+        while ((line = (reuse == null) ? reader.read() : reader.read(reuse)) != null) {
             if (line.size() != 0) {
                 return line;
             }
@@ -83,29 +253,157 @@ public class ExcelReader implements Closeable {
     }
 
     @Nullable
-    private List<String> nextSheetNextLine() {
+    private List<String> nextSheetNextLine(@Nullable List<String> reuse) {
+        List<String> line;
+
+        while (nextSheet()) {
+            if ((line = nextLine(reuse)) != null) {
+                return line;
+            }
+        }
+
+        return null;
+    }
+
+    /**
+     * 切换到下一个 sheet
+     *
+     * @return false if no more sheets
+     */
+    private boolean nextSheet() {
         final Iterator<Sheet> iterator = this.sheetIterator;
 
         if (iterator == null) {
-            return null;
+            return false;
+        }
+        if (!iterator.hasNext()) {
+            sheetIterator = null;
+            return false;
+        }
+
+        currentSheet = iterator.next();
+        currentSheetReader = new SheetReader(currentSheet, converter);
+        currentSheetReader.setColumns(config.getColumns());
+        return true;
+    }
+
+    @Nonnull
+    private static List<Sheet> selectedSheets(@Nonnull Workbook workbook, @Nonnull SheetSelector selector) {
+        final int n = workbook.getNumberOfSheets();
+        final List<Sheet> sheets = new ArrayList<>(n);
+
+        for (int i = 0; i < n; ++i) {
+            final Sheet sheet = workbook.getSheetAt(i);
+
+            if (selector.select(i, sheet.getSheetName())) {
+                sheets.add(sheet);
+            }
+        }
+
+        return sheets;
+    }
+
+    /**
+     * 设置当前 sheet 的列投影，常见用法是读到表头之后按表头名投影，下一个 sheet 恢复为配置的投影
+     * <p>
+     * .xls 事件模型下行在生产者线程中已经按配置投影，这里在取行时再投影一次：配置的投影之外的列为 null，
+     * columns 为 null 时恢复为配置的投影
+     *
+     * @see TrimmedLine#indexesOf(String...)
+     */
+    public void setCurrentSheetColumns(@Nullable int... columns) {
+        if (eventPipeline != null) {
+            eventColumns = (columns == null) ? null : eventColumnIndexes(columns);
+            eventColumnsSheetName = eventSheetName;
+            return;
         }
 
+        final SheetReader reader = this.currentSheetReader;
+
+        if (reader != null) {
+            reader.setColumns(columns);
+        }
+    }
+
+    /**
+     * 事件模型下 sheet 名字唯一，跳过与当前 sheet 同名的行即可
+     */
+    @Nullable
+    private List<String> nextEventLine() {
+        final RowPipeline pipeline = this.eventPipeline;
         List<String> line;
 
-        while (iterator.hasNext()) {
-            currentSheet = iterator.next();
-            currentSheetReader = new SheetReader(currentSheet);
+        while ((line = pipeline.next()) != null) {
+            final String sheetName = pipeline.getCurrentSheetName();
 
-            if ((line = nextLine()) != null) {
-                return line;
+            if (sheetName == null || !sheetName.equals(skippedEventSheetName)) {
+                eventSheetName = sheetName;
+
+                if (eventColumns != null && !Objects.equals(sheetName, eventColumnsSheetName)) {
+                    eventColumns = null;
+                }
+                if (config.getMetrics() != null) {
+                    config.getMetrics().rowsRead(1);
+                }
+                return (eventColumns == null) ? line : projectEventLine(line, eventColumns);
             }
         }
 
-        sheetIterator = null;
+        eventSheetName = null;
         return null;
     }
 
+    /**
+     * 把列号换成生产者交来的行中的下标，不在配置的投影中的为 -1
+     */
+    @Nonnull
+    private int[] eventColumnIndexes(@Nonnull int[] columns) {
+        final int[] produced = config.getColumns();
+        final int[] indexes = new int[columns.length];
+
+        for (int i = 0; i < columns.length; ++i) {
+            final int column = columns[i];
+
+            if (column < 0 || produced == null) {
+                indexes[i] = column;
+                continue;
+            }
+
+            indexes[i] = -1;
+
+            for (int j = 0; j < produced.length; ++j) {
+                if (produced[j] == column) {
+                    indexes[i] = j;
+                    break;
+                }
+            }
+        }
+
+        return indexes;
+    }
+
+    @Nonnull
+    private static List<String> projectEventLine(@Nonnull List<String> line, @Nonnull int[] indexes) {
+        if (line.isEmpty()) {
+            return line;
+        }
+
+        final ArrayList<String> ret = new ArrayList<>(indexes.length);
+
+        for (int index : indexes) {
+            ret.add((index < 0 || index >= line.size()) ? null : line.get(index));
+        }
+
+        return ret;
+    }
+
     public void skipCurrentSheet() {
+        if (eventPipeline != null) {
+            skippedEventSheetName = eventSheetName;
+            eventSheetName = null;
+            return;
+        }
+
         Sheet sheet = currentSheet;
 
         if (sheet != null) {
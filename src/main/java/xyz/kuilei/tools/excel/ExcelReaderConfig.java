@@ -0,0 +1,67 @@
+package xyz.kuilei.tools.excel;
+
+import lombok.Getter;
+import lombok.Setter;
+import lombok.experimental.Accessors;
+import xyz.kuilei.tools.metrics.ReadMetrics;
+
+/**
+ * {@link ExcelReader} 的可选配置，默认值与原先的行为一致
+ *
+ * @author JiaKun Xu, 2026-10-19 09:41:05
+ */
+@Getter
+@Setter
+@Accessors(chain = true)
+public class ExcelReaderConfig {
+    /**
+     * 是否启用 workbook 级别的单元格值字典，相同的值共享同一个 String 实例
+     *
+     * @see CellValueDictionary
+     */
+    private boolean valueDictionary = false;
+
+    /**
+     * 每个 sheet 的列投影，只读取这些列，投影外的 cell 不会被转换
+     * <p>
+     * null: 读取所有列
+     *
+     * @see SheetReader#setColumns(int...)
+     */
+    private int[] columns = null;
+
+    /**
+     * .xls 是否用 HSSF 事件模型读取：不构建 HSSFWorkbook，内存不随文件大小增长。
+     * <p>
+     * 开启后 {@link ExcelReader#getCurrentSheet()} 为 null，用 {@link ExcelReader#getCurrentSheetName()}。
+     * 对 .xlsx 无效。
+     */
+    private boolean xlsEventModel = false;
+
+    /**
+     * 只读取选中的 sheet
+     * <p>
+     * null: 读取所有 sheet
+     *
+     * @see SheetSelector#names(String...)
+     * @see SheetSelector#indexes(int...)
+     */
+    private SheetSelector sheetSelector = null;
+
+    /**
+     * 没有缓存结果的公式是否求值。其他工具生成的 xlsx 经常不带公式结果，不求值时为 ""
+     * <p>
+     * 整个 workbook 共用一个 FormulaEvaluator，被引用的 cell 先求值并缓存，同一个区域被多个公式引用也只求值一次。
+     * 求值失败（不支持的函数、引用了未选中的 sheet 等）时退回缓存结果。对 .xls 无效，xls 的公式总是带着结果。
+     */
+    private boolean formulaEvaluation = false;
+
+    /**
+     * 读取过程的指标：打开 workbook 的耗时、行数、cell 类型、合并单元格的查找等
+     * <p>
+     * null: 不统计。xls 事件模型下只统计字节数与行数
+     *
+     * @see xyz.kuilei.tools.metrics.LongAdderReadMetrics
+     */
+    private ReadMetrics metrics = null;
+}
@@ -0,0 +1,370 @@
+package xyz.kuilei.tools.excel;
+
+import lombok.Builder;
+import lombok.Value;
+import org.apache.poi.ss.SpreadsheetVersion;
+import org.apache.poi.ss.usermodel.*;
+import org.apache.poi.ss.util.CellRangeAddress;
+import org.apache.poi.xssf.streaming.SXSSFSheet;
+
+import javax.annotation.Nonnull;
+import javax.annotation.Nullable;
+import java.io.Closeable;
+import java.io.File;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.file.Files;
+import java.util.*;
+
+/**
+ * {@link ExcelReader} 的反向：按行流式写 xlsx，布局（合并单元格的表头等）与 {@link SheetReader} 读到的一致
+ * <p>
+ * 1. 基于 SXSSF，内存中只保留最近 windowSize 行，其余行写进压缩的临时文件，百万行也是常量内存；
+ * 2. 合并单元格不走 addMergedRegion 的重叠校验（每次 O(n)，整体 O(n²)），每个只按 4 个 int 记下来，
+ * 写文件时流式生成 &lt;mergeCells&gt;，见 {@link MergeStreamingWorkbook}，调用者自己保证不重叠；
+ * 3. 合并单元格涵盖的位置补空白 cell，{@link SheetReader} 读回来时能展开为左上角的值（行已经被写进临时文件的除外）；
+ * 4. 单元格样式按 {@link CellFormat} 的值缓存，相同的格式只创建一个 CellStyle，不会超出 excel 的样式个数上限。
+ * <p>
+ * {@link #close()} 时写文件并删除临时文件。
+ * <p>
+ * NOTE: 非线程安全
+ *
+ * @author JiaKun Xu, 2026-10-19 19:10:26
+ */
+public class ExcelWriter implements Closeable {
+    public static final int DEFAULT_WINDOW_SIZE = 100;
+
+    /**
+     * Date 没有指定格式时用这个
+     */
+    private static final String DEFAULT_DATE_FORMAT = "yyyy-mm-dd hh:mm:ss";
+
+    @Nonnull
+    private final File target;
+    @Nonnull
+    private final MergeStreamingWorkbook workbook;
+
+    /**
+     * 格式 -> 样式
+     */
+    @Nonnull
+    private final HashMap<CellFormat, CellStyle> styles = new HashMap<>();
+
+    @Nullable
+    private SXSSFSheet currentSheet;
+    private int nextRow;
+    /**
+     * 当前 sheet 的合并单元格，每 4 个一组：firstRow, lastRow, firstCol, lastCol
+     */
+    private int[] mergedRegions = new int[64];
+    private int mergedRegionCount;
+    /**
+     * 还没写完的合并单元格（lastRow &gt;= nextRow），写到这些行时给涵盖的位置补空白 cell
+     */
+    @Nonnull
+    private final ArrayList<int[]> pendingMergedRegions = new ArrayList<>();
+    private boolean closed;
+
+    public ExcelWriter(@Nonnull File target) {
+        this(target, DEFAULT_WINDOW_SIZE);
+    }
+
+    /**
+     * @param windowSize 内存中保留的行数
+     */
+    public ExcelWriter(@Nonnull File target, int windowSize) {
+        this.target = target;
+        this.workbook = new MergeStreamingWorkbook(windowSize);
+        this.workbook.setCompressTempFiles(true);
+    }
+
+    /**
+     * 之后的行写进一个新的 sheet
+     */
+    @Nonnull
+    public ExcelWriter createSheet(@Nonnull String name) {
+        ensureOpen();
+        finishSheet();
+
+        currentSheet = workbook.createSheet(name);
+        nextRow = 0;
+        pendingMergedRegions.clear();
+        return this;
+    }
+
+    /**
+     * 写一行，null 不创建 cell（例如合并单元格中左上角以外的 cell）
+     * <p>
+     * String、Number、Boolean、Date 按对应的类型写入，其他类型写 toString()
+     *
+     * @return 这一行的行号
+     */
+    public int writeRow(@Nonnull List<?> values) {
+        return writeRow(values, null);
+    }
+
+    /**
+     * @param format 这一行所有 cell 的格式，null 为默认
+     * @return 这一行的行号
+     */
+    public int writeRow(@Nonnull List<?> values, @Nullable CellFormat format) {
+        final Sheet sheet = obtainSheet();
+        final int rowIndex = nextRow++;
+        final Row row = sheet.createRow(rowIndex);
+        final CellStyle style = (format == null) ? null : getStyle(format);
+
+        for (int i = 0, n = values.size(); i < n; ++i) {
+            final Object value = values.get(i);
+
+            if (value == null) {
+                continue;
+            }
+
+            final Cell cell = row.createCell(i);
+            setCellValue(cell, value, format);
+
+            if (style != null && !(value instanceof Date)) {
+                cell.setCellStyle(style);
+            }
+        }
+
+        if (!pendingMergedRegions.isEmpty()) {
+            fillMergedBlanks(row);
+        }
+
+        return rowIndex;
+    }
+
+    /**
+     * 空出 n 行
+     */
+    @Nonnull
+    public ExcelWriter skipRows(int n) {
+        obtainSheet();
+        nextRow += n;
+        return this;
+    }
+
+    /**
+     * 合并当前 sheet 的单元格，行号、列号都从 0 开始，包含首尾
+     *
+     * @throws IllegalArgumentException 如果不足 2 个单元格或超出 excel 的范围；不检查重叠
+     */
+    @Nonnull
+    public ExcelWriter merge(int firstRow, int lastRow, int firstCol, int lastCol) {
+        obtainSheet();
+
+        final SpreadsheetVersion version = SpreadsheetVersion.EXCEL2007;
+
+        if (firstRow < 0 || firstRow > lastRow || lastRow > version.getLastRowIndex()
+                || firstCol < 0 || firstCol > lastCol || lastCol > version.getLastColumnIndex()) {
+            throw new IllegalArgumentException("Invalid merged region: " + new CellRangeAddress(firstRow, lastRow, firstCol, lastCol).formatAsString());
+        }
+        if (firstRow == lastRow && firstCol == lastCol) {
+            throw new IllegalArgumentException("Merged region must contain 2 or more cells");
+        }
+
+        int[] regions = this.mergedRegions;
+        final int offset = mergedRegionCount << 2;
+
+        if (offset == regions.length) {
+            regions = this.mergedRegions = Arrays.copyOf(regions, regions.length << 1);
+        }
+
+        regions[offset] = firstRow;
+        regions[offset + 1] = lastRow;
+        regions[offset + 2] = firstCol;
+        regions[offset + 3] = lastCol;
+        ++mergedRegionCount;
+
+        // SheetReader 只展开实际存在的 cell，涵盖的位置都要有 cell：已经写了、还在窗口中的行现在补，之后的行写的时候补
+        final int[] region = {firstRow, lastRow, firstCol, lastCol};
+        final SXSSFSheet sheet = this.currentSheet;
+
+        for (int r = firstRow, end = Math.min(lastRow, nextRow - 1); r <= end; ++r) {
+            final Row row = sheet.getRow(r);
+
+            if (row != null) {
+                fillBlanks(row, region);
+            }
+        }
+        if (lastRow >= nextRow) {
+            pendingMergedRegions.add(region);
+        }
+
+        return this;
+    }
+
+    @Nonnull
+    public ExcelWriter merge(@Nonnull Collection<CellRangeAddress> regions) {
+        for (CellRangeAddress region : regions) {
+            merge(region.getFirstRow(), region.getLastRow(), region.getFirstColumn(), region.getLastColumn());
+        }
+
+        return this;
+    }
+
+    private void fillMergedBlanks(@Nonnull Row row) {
+        final int rowIndex = row.getRowNum();
+        final Iterator<int[]> it = pendingMergedRegions.iterator();
+
+        while (it.hasNext()) {
+            final int[] region = it.next();
+
+            if (region[0] <= rowIndex) {
+                fillBlanks(row, region);
+            }
+            if (region[1] <= rowIndex) {
+                it.remove();
+            }
+        }
+    }
+
+    private static void fillBlanks(@Nonnull Row row, @Nonnull int[] region) {
+        for (int c = region[2]; c <= region[3]; ++c) {
+            if (row.getCell(c) == null) {
+                row.createCell(c, CellType.BLANK);
+            }
+        }
+    }
+
+    public void setColumnWidth(int column, int width) {
+        obtainSheet().setColumnWidth(column, width);
+    }
+
+    /**
+     * 写文件，删除临时文件
+     */
+    @Override
+    public void close() throws IOException {
+        if (closed) {
+            return;
+        }
+
+        closed = true;
+
+        try {
+            finishSheet();
+
+            try (OutputStream out = Files.newOutputStream(target.toPath())) {
+                workbook.write(out);
+            }
+        } finally {
+            workbook.dispose();
+
+            try {
+                workbook.close();
+            } catch (IOException ignored) {
+                // 文件已经写完，这里只是释放 workbook 的资源
+            }
+        }
+    }
+
+    @Nonnull
+    private SXSSFSheet obtainSheet() {
+        ensureOpen();
+
+        if (currentSheet == null) {
+            createSheet("Sheet" + workbook.getNumberOfSheets());
+        }
+
+        return currentSheet;
+    }
+
+    /**
+     * 当前 sheet 的合并单元格交给 workbook，写文件时流式生成
+     */
+    private void finishSheet() {
+        final SXSSFSheet sheet = this.currentSheet;
+        final int count = this.mergedRegionCount;
+
+        if (sheet == null || count == 0) {
+            return;
+        }
+
+        workbook.setMergedRegions(sheet, mergedRegions, count);
+        mergedRegions = new int[64];
+        mergedRegionCount = 0;
+    }
+
+    private void setCellValue(@Nonnull Cell cell, @Nonnull Object value, @Nullable CellFormat format) {
+        if (value instanceof String) {
+            cell.setCellValue((String) value);
+        } else if (value instanceof Number) {
+            cell.setCellValue(((Number) value).doubleValue());
+        } else if (value instanceof Boolean) {
+            cell.setCellValue((Boolean) value);
+        } else if (value instanceof Date) {
+            cell.setCellValue((Date) value);
+
+            // 日期必须有日期格式，否则读出来是数字
+            final CellFormat base = (format == null) ? CellFormat.builder().build() : format;
+
+            cell.setCellStyle(getStyle((base.getDataFormat() == null) ? base.toBuilder().dataFormat(DEFAULT_DATE_FORMAT).build() : base));
+        } else {
+            cell.setCellValue(value.toString());
+        }
+    }
+
+    @Nonnull
+    private CellStyle getStyle(@Nonnull CellFormat format) {
+        CellStyle style = styles.get(format);
+
+        if (style == null) {
+            style = createStyle(format);
+            styles.put(format, style);
+        }
+
+        return style;
+    }
+
+    @Nonnull
+    private CellStyle createStyle(@Nonnull CellFormat format) {
+        final CellStyle style = workbook.createCellStyle();
+
+        if (format.getDataFormat() != null) {
+            style.setDataFormat(workbook.createDataFormat().getFormat(format.getDataFormat()));
+        }
+        if (format.getHorizontalAlignment() != null) {
+            style.setAlignment(format.getHorizontalAlignment());
+        }
+        if (format.getVerticalAlignment() != null) {
+            style.setVerticalAlignment(format.getVerticalAlignment());
+        }
+        if (format.isWrapText()) {
+            style.setWrapText(true);
+        }
+        if (format.isBold()) {
+            final Font font = workbook.createFont();
+            font.setBold(true);
+            style.setFont(font);
+        }
+
+        return style;
+    }
+
+    private void ensureOpen() {
+        if (closed) {
+            throw new IllegalStateException("ExcelWriter closed");
+        }
+    }
+
+    /**
+     * 单元格格式，按值比较：相同的格式共用一个 CellStyle
+     */
+    @Value
+    @Builder(toBuilder = true)
+    public static class CellFormat {
+        /**
+         * 例如 "0.00"、"yyyy-mm-dd"，null 为常规
+         */
+        @Nullable
+        String dataFormat;
+        boolean bold;
+        @Nullable
+        HorizontalAlignment horizontalAlignment;
+        @Nullable
+        VerticalAlignment verticalAlignment;
+        boolean wrapText;
+    }
+}
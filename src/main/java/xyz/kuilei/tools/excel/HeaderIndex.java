@@ -0,0 +1,141 @@
+package xyz.kuilei.tools.excel;
+
+import javax.annotation.Nonnull;
+import javax.annotation.Nullable;
+import java.util.HashMap;
+
+/**
+ * 表头名 -> 绝对列号的索引，每个表头只构建一次，之后按名取列是 O(1)
+ * <p>
+ * 1. 精确匹配优先；
+ * 2. fuzzy 时再按“去掉所有空白、忽略大小写”匹配，应付“ 名称 ”、“名 称”这类表头；
+ * 3. 别名指向的是表头名，而不是列号，所以要先有表头。
+ * <p>
+ * 列号是绝对的，因为 {@link SheetReader#read()} 是从 0 开始读的，
+ * 所以可以直接配合 {@link TrimmedLine#get(int)} 与 {@link SheetReader#setColumns(int...)} 使用。
+ *
+ * @author JiaKun Xu, 2026-10-19 10:48:21
+ */
+public class HeaderIndex {
+    @Nonnull
+    private final HashMap<String, Integer> exact = new HashMap<>();
+    /**
+     * null: 不启用模糊匹配
+     */
+    @Nullable
+    private final HashMap<String, Integer> fuzzy;
+
+    private HeaderIndex(@Nonnull TrimmedLine header, boolean fuzzy) {
+        this.fuzzy = fuzzy ? new HashMap<>() : null;
+
+        for (int i = header.getFrom(), to = header.getTo(); i < to; ++i) {
+            final String name = header.get(i);
+
+            if (name != null) {
+                put(name, i);
+            }
+        }
+    }
+
+    @Nonnull
+    public static HeaderIndex of(@Nonnull TrimmedLine header) {
+        return new HeaderIndex(header, false);
+    }
+
+    @Nonnull
+    public static HeaderIndex of(@Nonnull TrimmedLine header, boolean fuzzy) {
+        return new HeaderIndex(header, fuzzy);
+    }
+
+    /**
+     * 给已有的表头起别名，表头不存在时忽略
+     *
+     * @return this
+     */
+    @Nonnull
+    public HeaderIndex alias(@Nonnull String alias, @Nonnull String header) {
+        final int index = indexOf(header);
+
+        if (index >= 0) {
+            put(alias, index);
+        }
+
+        return this;
+    }
+
+    /**
+     * @return -1 if not found
+     */
+    public int indexOf(@Nullable String name) {
+        if (name == null) {
+            return -1;
+        }
+
+        Integer index = exact.get(name);
+
+        if (index == null && fuzzy != null) {
+            index = fuzzy.get(normalize(name));
+        }
+
+        return (index == null) ? -1 : index;
+    }
+
+    /**
+     * @return 与 names 一一对应，找不到的为 -1
+     * @see SheetReader#setColumns(int...)
+     */
+    @Nonnull
+    public int[] indexesOf(@Nonnull String... names) {
+        final int[] ret = new int[names.length];
+
+        for (int i = 0; i < names.length; ++i) {
+            ret[i] = indexOf(names[i]);
+        }
+
+        return ret;
+    }
+
+    public boolean containsAll(@Nonnull String... names) {
+        for (String name : names) {
+            if (indexOf(name) < 0) {
+                return false;
+            }
+        }
+
+        return true;
+    }
+
+    @Override
+    public String toString() {
+        return exact.toString();
+    }
+
+    /**
+     * 重复的表头以第一个为准
+     */
+    private void put(@Nonnull String name, int index) {
+        exact.putIfAbsent(name, index);
+
+        if (fuzzy != null) {
+            fuzzy.putIfAbsent(normalize(name), index);
+        }
+    }
+
+    /**
+     * 去掉所有空白（包括全角空格、不间断空格），并转小写
+     */
+    @Nonnull
+    private static String normalize(@Nonnull String name) {
+        final StringBuilder builder = new StringBuilder(name.length());
+
+        for (int i = 0, n = name.length(); i < n; ++i) {
+            final char c = name.charAt(i);
+
+            if (!Character.isWhitespace(c) && !Character.isSpaceChar(c)) {
+                builder.append(Character.toLowerCase(c));
+            }
+        }
+
+        return builder.toString();
+    }
+}
@@ -0,0 +1,676 @@
+package xyz.kuilei.tools.excel;
+
+import org.apache.commons.lang3.StringUtils;
+import org.apache.poi.hssf.eventusermodel.HSSFEventFactory;
+import org.apache.poi.hssf.eventusermodel.HSSFListener;
+import org.apache.poi.hssf.eventusermodel.HSSFRequest;
+import org.apache.poi.hssf.record.*;
+import org.apache.poi.hssf.usermodel.HSSFDataFormat;
+import org.apache.poi.hssf.usermodel.HSSFWorkbook;
+import org.apache.poi.poifs.filesystem.POIFSFileSystem;
+import org.apache.poi.ss.usermodel.CellType;
+import org.apache.poi.ss.usermodel.DateUtil;
+import org.apache.poi.ss.usermodel.FormulaError;
+import org.apache.poi.ss.util.CellRangeAddress;
+
+import javax.annotation.Nonnull;
+import javax.annotation.Nullable;
+import java.io.File;
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.*;
+
+import static cn.hutool.core.date.DatePattern.PURE_DATETIME_FORMAT;
+
+/**
+ * 用 HSSF 的事件模型（record listener）读取 .xls，结果与 {@link SheetReader} 一致，内存不随文件大小增长。
+ * <p>
+ * 1. 合并单元格的 MergeCellsRecord 在 sheet 的 cell 之后，所以要读 2 遍：第 1 遍只收集合并单元格，第 2 遍读 cell；
+ * 2. 合并单元格左上角的 cell 一定先于涵盖的 cell 被读到，记下它的值即可；
+ * 3. SST 字符串、数字格式都是边读边解析的。
+ *
+ * @author JiaKun Xu, 2026-10-19 14:21:37
+ */
+class HssfEventRowProducer implements RowPipeline.Producer {
+    /**
+     * {@link FormulaRecord#getCachedResultType()} 的取值，与 {@link CellType} 的 code 相同，
+     * POI 4.1 中 CellType.forInt/getCode 都已废弃
+     */
+    private static final int CACHED_NUMERIC = 0;
+    private static final int CACHED_BOOLEAN = 4;
+    private static final int CACHED_ERROR = 5;
+
+    @Nonnull
+    private final POIFSFileSystem fs;
+    @Nonnull
+    private final String workbookEntryName;
+    @Nullable
+    private final int[] columns;
+    @Nullable
+    private final CellValueDictionary dictionary;
+    @Nullable
+    private final SheetSelector sheetSelector;
+
+    /**
+     * 在调用者线程打开，打不开直接抛
+     */
+    HssfEventRowProducer(@Nonnull File file, @Nonnull ExcelReaderConfig config, @Nullable CellValueDictionary dictionary) throws IOException {
+        this.fs = new POIFSFileSystem(file, true);
+
+        try {
+            this.workbookEntryName = HSSFWorkbook.getWorkbookDirEntryName(fs.getRoot());
+        } catch (RuntimeException e) {
+            try {
+                fs.close();
+            } catch (IOException e1) {
+                e.addSuppressed(e1);
+            }
+            throw e;
+        }
+
+        this.columns = config.getColumns();
+        this.dictionary = dictionary;
+        this.sheetSelector = config.getSheetSelector();
+    }
+
+    @Override
+    public void produce(@Nonnull RowPipeline.Sink sink) throws Exception {
+        try {
+            final MergedRegionCollector collector = new MergedRegionCollector();
+            process(collector);
+
+            final RowAssembler assembler = new RowAssembler(sink, collector.sheetRegions);
+            process(assembler);
+            assembler.finish();
+        } catch (AbortedException e) {
+            throw e.cause;
+        } finally {
+            try {
+                fs.close();
+            } catch (IOException ignored) {
+                // 只读打开，关闭失败不影响已经读到的行
+            }
+        }
+    }
+
+    private void process(@Nonnull HSSFListener listener) throws IOException {
+        final HSSFRequest request = new HSSFRequest();
+        request.addListenerForAllRecords(listener);
+
+        try (InputStream in = fs.createDocumentInputStream(workbookEntryName)) {
+            new HSSFEventFactory().processEvents(request, in);
+        }
+    }
+
+    /**
+     * BOF/EOF 可以嵌套（sheet 中嵌入的图表），深度为 0 时遇到的 BOF 才是新的 sheet
+     */
+    private abstract static class SheetTracker implements HSSFListener {
+        private int depth;
+        /**
+         * -1: workbook globals
+         */
+        int sheetIndex = -1;
+
+        @Override
+        public void processRecord(Record record) {
+            switch (record.getSid()) {
+                case BOFRecord.sid:
+                    if (depth++ == 0 && ((BOFRecord) record).getType() != BOFRecord.TYPE_WORKBOOK) {
+                        ++sheetIndex;
+                        onSheetStart();
+                    }
+                    break;
+                case EOFRecord.sid:
+                    if (--depth == 0 && sheetIndex >= 0) {
+                        onSheetEnd();
+                    }
+                    break;
+                default:
+                    if (depth == 1 && sheetIndex >= 0) {
+                        onRecord(record);
+                    }
+                    break;
+            }
+        }
+
+        void onSheetStart() {
+        }
+
+        void onSheetEnd() {
+        }
+
+        abstract void onRecord(@Nonnull Record record);
+    }
+
+    /**
+     * 第 1 遍：每个 sheet 的合并单元格
+     */
+    private static class MergedRegionCollector extends SheetTracker {
+        @Nonnull
+        private final List<List<CellRangeAddress>> sheetRegions = new ArrayList<>();
+
+        @Override
+        void onSheetStart() {
+            sheetRegions.add(new ArrayList<>());
+        }
+
+        @Override
+        void onRecord(@Nonnull Record record) {
+            if (record.getSid() == MergeCellsRecord.sid && sheetIndex >= 0) {
+                final MergeCellsRecord mcr = (MergeCellsRecord) record;
+                final List<CellRangeAddress> regions = sheetRegions.get(sheetIndex);
+
+                for (int i = 0, n = mcr.getNumAreas(); i < n; ++i) {
+                    regions.add(mcr.getAreaAt(i));
+                }
+            }
+        }
+    }
+
+    /**
+     * 第 2 遍：按行组装，行与行之间按行号递增
+     */
+    private class RowAssembler extends SheetTracker {
+        @Nonnull
+        private final RowPipeline.Sink sink;
+        @Nonnull
+        private final List<List<CellRangeAddress>> sheetRegions;
+
+        // --------------------------------
+        // workbook globals
+        // --------------------------------
+        @Nonnull
+        private final List<BoundSheetRecord> boundSheets = new ArrayList<>();
+        @Nullable
+        private BoundSheetRecord[] orderedSheets;
+        @Nullable
+        private SSTRecord sst;
+        @Nonnull
+        private final List<ExtendedFormatRecord> xfs = new ArrayList<>();
+        @Nonnull
+        private final HashMap<Integer, String> customFormats = new HashMap<>();
+        private boolean date1904;
+        /**
+         * format index -> NumericFormat
+         */
+        @Nonnull
+        private final HashMap<Integer, NumericFormat> numericFormats = new HashMap<>();
+
+        // --------------------------------
+        // current sheet
+        // --------------------------------
+        /**
+         * 当前 sheet 未被选中，记录流还是要读过去，但是不转换其中的单元格
+         */
+        private boolean skipping;
+        @Nullable
+        private MergedRegions regions;
+        /**
+         * 只有 RowRecord、还没有 cell 的行：行号 -> last col
+         */
+        @Nonnull
+        private final TreeMap<Integer, Integer> pendingRows = new TreeMap<>();
+        private int currentRow = -1;
+        private int currentRowLastCol;
+        @Nonnull
+        private final TreeMap<Integer, String> currentCells = new TreeMap<>();
+        /**
+         * 字符串公式的值在紧随其后的 StringRecord 中
+         */
+        @Nullable
+        private FormulaRecord pendingFormula;
+
+        private RowAssembler(@Nonnull RowPipeline.Sink sink, @Nonnull List<List<CellRangeAddress>> sheetRegions) {
+            this.sink = sink;
+            this.sheetRegions = sheetRegions;
+        }
+
+        @Override
+        public void processRecord(Record record) {
+            if (sheetIndex < 0) {
+                onGlobalRecord(record);
+            }
+
+            super.processRecord(record);
+        }
+
+        private void onGlobalRecord(@Nonnull Record record) {
+            switch (record.getSid()) {
+                case BoundSheetRecord.sid:
+                    boundSheets.add((BoundSheetRecord) record);
+                    break;
+                case SSTRecord.sid:
+                    sst = (SSTRecord) record;
+                    break;
+                case ExtendedFormatRecord.sid:
+                    xfs.add((ExtendedFormatRecord) record);
+                    break;
+                case FormatRecord.sid:
+                    final FormatRecord fr = (FormatRecord) record;
+                    customFormats.put(fr.getIndexCode(), fr.getFormatString());
+                    break;
+                case DateWindow1904Record.sid:
+                    date1904 = ((DateWindow1904Record) record).getWindowing() == 1;
+                    break;
+                default:
+                    break;
+            }
+        }
+
+        @Override
+        void onSheetStart() {
+            if (orderedSheets == null) {
+                orderedSheets = BoundSheetRecord.orderByBofPosition(boundSheets);
+            }
+
+            final String name = (sheetIndex < orderedSheets.length) ? orderedSheets[sheetIndex].getSheetname() : ("Sheet" + sheetIndex);
+
+            final SheetSelector selector = HssfEventRowProducer.this.sheetSelector;
+
+            skipping = (selector != null && !selector.select(sheetIndex, name));
+            if (skipping) {
+                return;
+            }
+
+            regions = new MergedRegions(sheetIndex < sheetRegions.size() ? sheetRegions.get(sheetIndex) : Collections.emptyList());
+            pendingRows.clear();
+            currentRow = -1;
+            currentCells.clear();
+            pendingFormula = null;
+
+            try {
+                sink.sheet(null, name);
+            } catch (InterruptedException e) {
+                throw new AbortedException(e);
+            }
+        }
+
+        @Override
+        void onSheetEnd() {
+            if (skipping) {
+                skipping = false;
+                return;
+            }
+
+            try {
+                flushRowsBefore(Integer.MAX_VALUE);
+            } catch (InterruptedException e) {
+                throw new AbortedException(e);
+            }
+
+            regions = null;
+        }
+
+        @Override
+        void onRecord(@Nonnull Record record) {
+            if (skipping) {
+                return;
+            }
+
+            try {
+                onSheetRecord(record);
+            } catch (InterruptedException e) {
+                throw new AbortedException(e);
+            }
+        }
+
+        private void onSheetRecord(@Nonnull Record record) throws InterruptedException {
+            if (record.getSid() == StringRecord.sid) {
+                final FormulaRecord formula = this.pendingFormula;
+
+                if (formula != null) {
+                    this.pendingFormula = null;
+                    addCell(formula.getRow(), formula.getColumn(), ((StringRecord) record).getString());
+                }
+                return;
+            }
+
+            pendingFormula = null;
+
+            switch (record.getSid()) {
+                case RowRecord.sid:
+                    final RowRecord row = (RowRecord) record;
+                    if (!row.isEmpty()) {
+                        pendingRows.merge(row.getRowNumber(), row.getLastCol(), Math::max);
+                    }
+                    break;
+                case NumberRecord.sid:
+                    final NumberRecord number = (NumberRecord) record;
+                    addCell(number.getRow(), number.getColumn(), () -> getNumericString(number.getValue(), number.getXFIndex()));
+                    break;
+                case LabelSSTRecord.sid:
+                    final LabelSSTRecord label = (LabelSSTRecord) record;
+                    addCell(label.getRow(), label.getColumn(), () -> getSharedString(label.getSSTIndex()));
+                    break;
+                case LabelRecord.sid:
+                    final LabelRecord oldLabel = (LabelRecord) record;
+                    addCell(oldLabel.getRow(), oldLabel.getColumn(), oldLabel::getValue);
+                    break;
+                case BlankRecord.sid:
+                    final BlankRecord blank = (BlankRecord) record;
+                    addCell(blank.getRow(), blank.getColumn(), StringUtils.EMPTY);
+                    break;
+                case MulBlankRecord.sid:
+                    final MulBlankRecord mulBlank = (MulBlankRecord) record;
+                    for (int column = mulBlank.getFirstColumn(); column <= mulBlank.getLastColumn(); ++column) {
+                        addCell(mulBlank.getRow(), column, StringUtils.EMPTY);
+                    }
+                    break;
+                case BoolErrRecord.sid:
+                    final BoolErrRecord boolErr = (BoolErrRecord) record;
+                    addCell(boolErr.getRow(), boolErr.getColumn(), () -> boolErr.isBoolean()
+                            ? Boolean.toString(boolErr.getBooleanValue())
+                            : getErrorString(boolErr.getErrorValue()));
+                    break;
+                case FormulaRecord.sid:
+                    final FormulaRecord formula = (FormulaRecord) record;
+                    onFormula(formula);
+                    break;
+                default:
+                    break;
+            }
+        }
+
+        /**
+         * @see CellUtils#getCellObject(org.apache.poi.ss.usermodel.Cell, CellType)
+         */
+        private void onFormula(@Nonnull FormulaRecord formula) throws InterruptedException {
+            switch (formula.getCachedResultType()) {
+                case CACHED_NUMERIC:
+                    addCell(formula.getRow(), formula.getColumn(), () -> getNumericString(formula.getValue(), formula.getXFIndex()));
+                    break;
+                case CACHED_BOOLEAN:
+                    addCell(formula.getRow(), formula.getColumn(), () -> Boolean.toString(formula.getCachedBooleanValue()));
+                    break;
+                case CACHED_ERROR:
+                    addCell(formula.getRow(), formula.getColumn(), () -> getErrorString(formula.getCachedErrorValue()));
+                    break;
+                default:
+                    if (formula.hasCachedResultString()) {
+                        // 先占位，StringRecord 到了再填值
+                        addCell(formula.getRow(), formula.getColumn(), StringUtils.EMPTY);
+                        pendingFormula = formula;
+                    } else {
+                        addCell(formula.getRow(), formula.getColumn(), StringUtils.EMPTY);
+                    }
+                    break;
+            }
+        }
+
+        private void addCell(int row, int column, @Nullable String value) throws InterruptedException {
+            addCell(row, column, () -> value);
+        }
+
+        /**
+         * @param value 只有需要时才转换
+         */
+        private void addCell(int row, int column, @Nonnull ValueSupplier value) throws InterruptedException {
+            if (row != currentRow) {
+                flushRowsBefore(row);
+                startRow(row);
+            }
+
+            final MergedRegions regions = this.regions;
+            final MergedRegion region = (regions == null) ? null : regions.find(row, column);
+            final boolean anchor = (region != null && region.isAnchor(row, column));
+
+            if (anchor) {
+                region.anchorValue = share(value.get());
+            }
+
+            currentRowLastCol = Math.max(currentRowLastCol, column + 1);
+
+            if (!selected(column)) {
+                return;
+            }
+
+            if (region == null) {
+                currentCells.put(column, share(value.get()));
+            } else {
+                currentCells.put(column, region.anchorValue);
+            }
+        }
+
+        private void startRow(int row) {
+            currentRow = row;
+            final Integer lastCol = pendingRows.remove(row);
+            currentRowLastCol = (lastCol == null) ? 0 : lastCol;
+            currentCells.clear();
+        }
+
+        /**
+         * 交出行号小于 row 的所有行，包括只有 RowRecord 的行
+         */
+        private void flushRowsBefore(int row) throws InterruptedException {
+            if (currentRow >= 0 && currentRow < row) {
+                emit(currentRowLastCol);
+                currentRow = -1;
+            }
+
+            while (!pendingRows.isEmpty() && pendingRows.firstKey() < row) {
+                final int lastCol = pendingRows.pollFirstEntry().getValue();
+                currentCells.clear();
+                emit(lastCol);
+            }
+        }
+
+        /**
+         * @see SheetReader#read()
+         */
+        private void emit(int lastCol) throws InterruptedException {
+            if (lastCol <= 0) {
+                return;
+            }
+
+            final int[] columns = HssfEventRowProducer.this.columns;
+            final ArrayList<String> line;
+
+            if (columns == null) {
+                line = new ArrayList<>(lastCol);
+                for (int i = 0; i < lastCol; ++i) {
+                    line.add(currentCells.get(i));
+                }
+            } else {
+                line = new ArrayList<>(columns.length);
+                for (int column : columns) {
+                    line.add((column < 0) ? null : currentCells.get(column));
+                }
+            }
+
+            currentCells.clear();
+            sink.row(line);
+        }
+
+        private boolean selected(int column) {
+            final int[] columns = HssfEventRowProducer.this.columns;
+
+            if (columns == null) {
+                return true;
+            }
+            for (int c : columns) {
+                if (c == column) {
+                    return true;
+                }
+            }
+
+            return false;
+        }
+
+        @Nullable
+        private String share(@Nullable String value) {
+            final CellValueDictionary dictionary = HssfEventRowProducer.this.dictionary;
+
+            return (dictionary == null || value == null) ? value : dictionary.share(value);
+        }
+
+        @Nonnull
+        private String getSharedString(int index) {
+            final SSTRecord sst = this.sst;
+
+            if (sst == null) {
+                throw new IllegalStateException("SSTRecord not found");
+            }
+
+            return sst.getString(index).getString();
+        }
+
+        /**
+         * @see CellConverter
+         */
+        @Nonnull
+        private String getNumericString(double value, int xfIndex) {
+            final NumericFormat format = getNumericFormat(xfIndex);
+
+            if (format != null) {
+                if (format.builtinDate || (format.date && DateUtil.isValidExcelDate(value))) {
+                    final Date date = DateUtil.getJavaDate(value, date1904);
+
+                    if (date != null) {
+                        // INFO: 默认系统时区
+                        return PURE_DATETIME_FORMAT.format(date);
+                    }
+                }
+                if (format.integral) {
+                    final long longPart = (long) value;
+
+                    if ((double) longPart == value) {
+                        return Long.toString(longPart);
+                    }
+                }
+            }
+
+            return CellUtils.toExcelDoubleString(value);
+        }
+
+        @Nullable
+        private NumericFormat getNumericFormat(int xfIndex) {
+            if (xfIndex < 0 || xfIndex >= xfs.size()) {
+                return null;
+            }
+
+            final int formatIndex = xfs.get(xfIndex).getFormatIndex();
+
+            return numericFormats.computeIfAbsent(formatIndex, index -> new NumericFormat(index, getFormatString(index)));
+        }
+
+        /**
+         * 与 {@link HSSFDataFormat#getFormat(short)} 一致：workbook 中定义的格式优先，其次是内置格式
+         */
+        @Nullable
+        private String getFormatString(int formatIndex) {
+            final String custom = customFormats.get(formatIndex);
+
+            return (custom != null) ? custom : HSSFDataFormat.getBuiltinFormat((short) formatIndex);
+        }
+
+        @Nonnull
+        private String getErrorString(int errorValue) {
+            final FormulaError error = FormulaError.forInt((byte) errorValue);
+            return (null == error) ? StringUtils.EMPTY : error.getString();
+        }
+
+        private void finish() throws InterruptedException {
+            flushRowsBefore(Integer.MAX_VALUE);
+        }
+    }
+
+    /**
+     * 当前 sheet 的合并单元格，按首行排序，随着行号递增滑动
+     */
+    private static class MergedRegions {
+        @Nonnull
+        private final MergedRegion[] sorted;
+        private int next;
+        /**
+         * 涵盖当前行的合并单元格
+         */
+        @Nonnull
+        private final List<MergedRegion> active = new ArrayList<>();
+        private int activeRow = -1;
+
+        private MergedRegions(@Nonnull List<CellRangeAddress> regions) {
+            this.sorted = regions.stream()
+                    .map(MergedRegion::new)
+                    .sorted(Comparator.comparingInt((MergedRegion r) -> r.range.getFirstRow()).thenComparingInt(r -> r.range.getFirstColumn()))
+                    .toArray(MergedRegion[]::new);
+        }
+
+        @Nullable
+        private MergedRegion find(int row, int column) {
+            if (row != activeRow) {
+                activeRow = row;
+                active.removeIf(r -> r.range.getLastRow() < row);
+
+                while (next < sorted.length && sorted[next].range.getFirstRow() <= row) {
+                    final MergedRegion region = sorted[next++];
+
+                    if (region.range.getLastRow() >= row) {
+                        active.add(region);
+                    }
+                }
+            }
+
+            for (MergedRegion region : active) {
+                if (region.range.getFirstColumn() <= column && column <= region.range.getLastColumn()) {
+                    return region;
+                }
+            }
+
+            return null;
+        }
+    }
+
+    private static class MergedRegion {
+        @Nonnull
+        private final CellRangeAddress range;
+        /**
+         * 左上角的 cell 不存在时为 null，与 {@link SheetReader} 一致
+         */
+        @Nullable
+        private String anchorValue;
+
+        private MergedRegion(@Nonnull CellRangeAddress range) {
+            this.range = range;
+        }
+
+        private boolean isAnchor(int row, int column) {
+            return row == range.getFirstRow() && column == range.getFirstColumn();
+        }
+    }
+
+    /**
+     * 与 {@link CellConverter} 中的一致，这里按格式下标缓存
+     */
+    private static class NumericFormat {
+        private final boolean builtinDate;
+        private final boolean date;
+        private final boolean integral;
+
+        private NumericFormat(int formatIndex, @Nullable String formatString) {
+            this.builtinDate = CellUtils.isBuiltinDateFormat((short) formatIndex);
+            this.date = DateUtil.isADateFormat((short) formatIndex, formatString);
+            this.integral = (null != formatString && formatString.indexOf('.') < 0);
+        }
+    }
+
+    private interface ValueSupplier {
+        @Nullable
+        String get();
+    }
+
+    /**
+     * listener 不能抛受检异常，用它把中断带出 {@link HSSFEventFactory}
+     */
+    private static class AbortedException extends RuntimeException {
+        private static final long serialVersionUID = 1L;
+
+        @Nonnull
+        private final InterruptedException cause;
+
+        private AbortedException(@Nonnull InterruptedException cause) {
+            super(cause);
+            this.cause = cause;
+        }
+    }
+}
@@ -0,0 +1,213 @@
+package xyz.kuilei.tools.excel;
+
+import org.apache.commons.compress.archivers.zip.ZipArchiveEntry;
+import org.apache.commons.io.IOUtils;
+import org.apache.poi.openxml4j.util.ZipEntrySource;
+import org.apache.poi.ss.util.CellReference;
+import org.apache.poi.xssf.streaming.SXSSFSheet;
+import org.apache.poi.xssf.streaming.SXSSFWorkbook;
+import org.apache.poi.xssf.usermodel.XSSFSheet;
+import org.openxmlformats.schemas.spreadsheetml.x2006.main.CTMergeCells;
+import org.openxmlformats.schemas.spreadsheetml.x2006.main.CTWorksheet;
+
+import javax.annotation.Nonnull;
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.io.SequenceInputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.Enumeration;
+import java.util.HashMap;
+
+/**
+ * 合并单元格也流式写出的 {@link SXSSFWorkbook}
+ * <p>
+ * SXSSF 只流式写 &lt;sheetData&gt;，sheet 的其他部分来自内存中的 XSSFSheet 模板，合并单元格放在模板里，每个都是一个 xmlbeans 对象，
+ * 上百万个时内存放不下。这里模板里只放一个占位的 &lt;mergeCell&gt;，写文件时把它替换为按 int 数组生成的合并单元格。
+ *
+ * @author JiaKun Xu, 2026-10-19 19:52:40
+ */
+class MergeStreamingWorkbook extends SXSSFWorkbook {
+    /**
+     * 占位的合并单元格，excel 的最后两行最后一列，实际不会用到
+     */
+    private static final String PLACEHOLDER_REF = "XFD1048575:XFD1048576";
+
+    /**
+     * sheet 的 zip entry 名 -> 合并单元格
+     */
+    @Nonnull
+    private final HashMap<String, MergedRegions> mergedRegions = new HashMap<>();
+
+    MergeStreamingWorkbook(int windowSize) {
+        super(windowSize);
+    }
+
+    /**
+     * @param regions 每 4 个一组：firstRow, lastRow, firstCol, lastCol，之后不能再修改
+     */
+    void setMergedRegions(@Nonnull SXSSFSheet sheet, @Nonnull int[] regions, int count) {
+        final XSSFSheet template = getXSSFWorkbook().getSheet(sheet.getSheetName());
+        final CTWorksheet worksheet = template.getCTWorksheet();
+        final CTMergeCells ctMergeCells = worksheet.isSetMergeCells() ? worksheet.getMergeCells() : worksheet.addNewMergeCells();
+
+        ctMergeCells.addNewMergeCell().setRef(PLACEHOLDER_REF);
+        ctMergeCells.setCount(count);
+
+        mergedRegions.put(template.getPackagePart().getPartName().getName().substring(1), new MergedRegions(regions, count));
+    }
+
+    @Override
+    protected void injectData(ZipEntrySource zipEntrySource, OutputStream out) throws IOException {
+        super.injectData(new MergeInjectingSource(zipEntrySource), out);
+    }
+
+    private static class MergedRegions {
+        @Nonnull
+        private final int[] regions;
+        private final int count;
+
+        private MergedRegions(@Nonnull int[] regions, int count) {
+            this.regions = regions;
+            this.count = count;
+        }
+    }
+
+    /**
+     * 把 sheet 模板中占位的 &lt;mergeCell&gt; 替换为实际的合并单元格，其他 entry 原样返回
+     */
+    private class MergeInjectingSource implements ZipEntrySource {
+        @Nonnull
+        private final ZipEntrySource source;
+
+        private MergeInjectingSource(@Nonnull ZipEntrySource source) {
+            this.source = source;
+        }
+
+        @Override
+        public Enumeration<? extends ZipArchiveEntry> getEntries() {
+            return source.getEntries();
+        }
+
+        @Override
+        public ZipArchiveEntry getEntry(String path) {
+            return source.getEntry(path);
+        }
+
+        @Override
+        public InputStream getInputStream(ZipArchiveEntry entry) throws IOException {
+            final MergedRegions regions = mergedRegions.get(entry.getName());
+
+            if (regions == null) {
+                return source.getInputStream(entry);
+            }
+
+            // 模板里没有行，很小
+            final String template;
+
+            try (InputStream in = source.getInputStream(entry)) {
+                template = IOUtils.toString(in, StandardCharsets.UTF_8);
+            }
+
+            final int ref = template.indexOf(PLACEHOLDER_REF);
+
+            if (ref < 0) {
+                throw new IOException("Merged region placeholder not found in " + entry.getName());
+            }
+
+            final int start = template.lastIndexOf('<', ref);
+            final int end = template.indexOf("/>", ref) + 2;
+
+            return new SequenceInputStream(
+                    new SequenceInputStream(
+                            new ByteArrayInputStream(template.substring(0, start).getBytes(StandardCharsets.UTF_8)),
+                            new MergeCellInputStream(template.substring(start, ref), template.substring(ref + PLACEHOLDER_REF.length(), end), regions)
+                    ),
+                    new ByteArrayInputStream(template.substring(end).getBytes(StandardCharsets.UTF_8))
+            );
+        }
+
+        @Override
+        public void close() throws IOException {
+            source.close();
+        }
+
+        @Override
+        public boolean isClosed() {
+            return source.isClosed();
+        }
+    }
+
+    /**
+     * 逐个生成 &lt;mergeCell ref="A1:B2"/&gt;，内存中只有一个
+     */
+    private static class MergeCellInputStream extends InputStream {
+        @Nonnull
+        private final String prefix;
+        @Nonnull
+        private final String suffix;
+        @Nonnull
+        private final MergedRegions regions;
+        private int next;
+        @Nonnull
+        private byte[] current = new byte[0];
+        private int position;
+
+        private MergeCellInputStream(@Nonnull String prefix, @Nonnull String suffix, @Nonnull MergedRegions regions) {
+            this.prefix = prefix;
+            this.suffix = suffix;
+            this.regions = regions;
+        }
+
+        @Override
+        public int read() throws IOException {
+            if (!fill()) {
+                return -1;
+            }
+
+            return current[position++] & 0xff;
+        }
+
+        @Override
+        public int read(byte[] b, int off, int len) throws IOException {
+            if (len == 0) {
+                return 0;
+            }
+            if (!fill()) {
+                return -1;
+            }
+
+            final int n = Math.min(len, current.length - position);
+
+            System.arraycopy(current, position, b, off, n);
+            position += n;
+            return n;
+        }
+
+        private boolean fill() {
+            if (position < current.length) {
+                return true;
+            }
+            if (next == regions.count) {
+                return false;
+            }
+
+            final int[] r = regions.regions;
+            final int offset = (next++) << 2;
+            final StringBuilder sb = new StringBuilder(prefix.length() + suffix.length() + 24).append(prefix);
+
+            appendCell(sb, r[offset], r[offset + 2]).append(':');
+            appendCell(sb, r[offset + 1], r[offset + 3]).append(suffix);
+
+            current = sb.toString().getBytes(StandardCharsets.UTF_8);
+            position = 0;
+            return true;
+        }
+
+        @Nonnull
+        private static StringBuilder appendCell(@Nonnull StringBuilder sb, int row, int col) {
+            return sb.append(CellReference.convertNumToColString(col)).append(row + 1);
+        }
+    }
+}
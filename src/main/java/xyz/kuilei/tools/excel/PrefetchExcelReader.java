@@ -0,0 +1,85 @@
+package xyz.kuilei.tools.excel;
+
+import org.apache.poi.ss.usermodel.Sheet;
+
+import javax.annotation.Nonnull;
+import javax.annotation.Nullable;
+import java.io.Closeable;
+import java.io.File;
+import java.io.IOException;
+import java.util.List;
+
+/**
+ * 预读版的 {@link ExcelReader}：后台线程解析、转换行，调用者处理上一批行的同时，下一批已经在准备了。
+ * <p>
+ * 1. 最多预读 depth 个批次，每个批次最多 batchSize 行，内存有上限；
+ * 2. 后台线程的异常在 {@link #read()} 中以 {@link IllegalStateException} 抛出；
+ * 3. {@link #close()} 会停止后台线程并关闭 workbook，可以提前调用。
+ *
+ * @author JiaKun Xu, 2026-10-19 13:40:12
+ */
+public class PrefetchExcelReader implements Closeable {
+    public static final int DEFAULT_DEPTH = 4;
+    public static final int DEFAULT_BATCH_SIZE = 256;
+
+    @Nonnull
+    private final RowPipeline pipeline;
+
+    public PrefetchExcelReader(@Nonnull File file) throws IOException {
+        this(file, new ExcelReaderConfig(), DEFAULT_DEPTH, DEFAULT_BATCH_SIZE);
+    }
+
+    public PrefetchExcelReader(@Nonnull File file, @Nonnull ExcelReaderConfig config, int depth, int batchSize) throws IOException {
+        // 在调用者线程打开，打不开直接抛
+        final ExcelReader reader = new ExcelReader(file, config);
+
+        try {
+            this.pipeline = new RowPipeline("excel-prefetch", depth, batchSize, sink -> produce(reader, sink));
+        } catch (RuntimeException e) {
+            reader.close();
+            throw e;
+        }
+    }
+
+    /**
+     * @return null if EOF
+     * @throws IllegalStateException if read failed
+     */
+    @Nullable
+    public List<String> read() {
+        return pipeline.next();
+    }
+
+    /**
+     * 最近一次 {@link #read()} 返回的行所在的 sheet
+     */
+    @Nullable
+    public Sheet getCurrentSheet() {
+        return pipeline.getCurrentSheet();
+    }
+
+    @Override
+    public void close() {
+        pipeline.close();
+    }
+
+    private static void produce(@Nonnull ExcelReader reader, @Nonnull RowPipeline.Sink sink) throws InterruptedException {
+        try {
+            List<String> line;
+            Sheet currentSheet = null;
+
+            while ((line = reader.read()) != null) {
+                final Sheet sheet = reader.getCurrentSheet();
+
+                if (sheet != currentSheet) {
+                    currentSheet = sheet;
+                    sink.sheet(sheet, sheet.getSheetName());
+                }
+
+                sink.row(line);
+            }
+        } finally {
+            reader.close();
+        }
+    }
+}
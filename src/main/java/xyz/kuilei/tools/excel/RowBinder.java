@@ -0,0 +1,371 @@
+package xyz.kuilei.tools.excel;
+
+import cn.hutool.core.annotation.Alias;
+import cn.hutool.core.convert.Convert;
+import org.apache.commons.lang3.StringUtils;
+
+import javax.annotation.Nonnull;
+import javax.annotation.Nullable;
+import java.beans.BeanInfo;
+import java.beans.IntrospectionException;
+import java.beans.Introspector;
+import java.beans.PropertyDescriptor;
+import java.lang.invoke.*;
+import java.lang.reflect.Constructor;
+import java.lang.reflect.Field;
+import java.lang.reflect.Method;
+import java.lang.reflect.Modifier;
+import java.math.BigDecimal;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.function.BiConsumer;
+import java.util.function.Function;
+import java.util.function.Supplier;
+
+/**
+ * 按表头把数据行绑定到 bean，代替 hutool 的反射拷贝
+ * <p>
+ * 1. 每个 bean 类型只解析一次属性，构造器、setter 用 {@link LambdaMetafactory} 生成，之后的调用与直接调用无异；
+ * 2. 每个表头只解析一次列号；
+ * 3. 直接按列号从 {@link TrimmedLine} 取值，不经过 {@link TrimmedLine#asHeaderGetDataLine(TrimmedLine)} 复制出来的 list。
+ * <p>
+ * 属性对应的表头名为 {@link Alias#value()}，没有时为属性名。bean 需要有无参构造器与 public setter。
+ *
+ * @author JiaKun Xu, 2026-10-19 11:06:52
+ */
+public class RowBinder<T> {
+    /**
+     * bean 类型 -> 构造器、setter，生成一次就够了；ClassValue 不会强引用 bean 类型，不会钉住它的 ClassLoader
+     */
+    private static final ClassValue<BeanAccessor<?>> ACCESSORS = new ClassValue<BeanAccessor<?>>() {
+        @Override
+        protected BeanAccessor<?> computeValue(Class<?> type) {
+            return new BeanAccessor<>(type);
+        }
+    };
+
+    @Nonnull
+    private final Supplier<T> constructor;
+    @Nonnull
+    private final int[] columns;
+    @Nonnull
+    private final PropertySetter[] setters;
+
+    private RowBinder(@Nonnull BeanAccessor<T> accessor, @Nonnull HeaderIndex header) {
+        final List<Integer> columns = new ArrayList<>();
+        final List<PropertySetter> setters = new ArrayList<>();
+
+        for (Map.Entry<String, PropertySetter> entry : accessor.setters.entrySet()) {
+            final int column = header.indexOf(entry.getKey());
+
+            if (column >= 0) {
+                columns.add(column);
+                setters.add(entry.getValue());
+            }
+        }
+
+        this.constructor = accessor.constructor;
+        this.columns = columns.stream().mapToInt(Integer::intValue).toArray();
+        this.setters = setters.toArray(new PropertySetter[0]);
+    }
+
+    /**
+     * 表头变了就重新构建一个，bean 类型的解析结果是共享的
+     */
+    @Nonnull
+    @SuppressWarnings("unchecked")
+    public static <T> RowBinder<T> of(@Nonnull Class<T> type, @Nonnull HeaderIndex header) {
+        final BeanAccessor<T> accessor = (BeanAccessor<T>) ACCESSORS.get(type);
+
+        return new RowBinder<>(accessor, header);
+    }
+
+    /**
+     * 表头中能匹配上的属性个数
+     */
+    public int size() {
+        return columns.length;
+    }
+
+    @Nonnull
+    public T bind(@Nonnull TrimmedLine row) {
+        final T bean = constructor.get();
+        final int[] columns = this.columns;
+        final PropertySetter[] setters = this.setters;
+
+        for (int i = 0; i < columns.length; ++i) {
+            setters[i].set(bean, row.get(columns[i]));
+        }
+
+        return bean;
+    }
+
+    /**
+     * 直接绑定 {@link SheetReader#read()} 读到的行，超出范围的列为 ""
+     */
+    @Nonnull
+    public T bind(@Nonnull List<String> row) {
+        final T bean = constructor.get();
+        final int[] columns = this.columns;
+        final PropertySetter[] setters = this.setters;
+        final int size = row.size();
+
+        for (int i = 0; i < columns.length; ++i) {
+            final int column = columns[i];
+
+            setters[i].set(bean, (column < size) ? row.get(column) : StringUtils.EMPTY);
+        }
+
+        return bean;
+    }
+
+    /**
+     * 一个 bean 类型的构造器与 setter
+     */
+    private static class BeanAccessor<T> {
+        @Nonnull
+        private final Supplier<T> constructor;
+        /**
+         * 表头名 -> setter
+         */
+        @Nonnull
+        private final LinkedHashMap<String, PropertySetter> setters = new LinkedHashMap<>();
+
+        private BeanAccessor(@Nonnull Class<T> type) {
+            final BeanInfo beanInfo;
+
+            try {
+                beanInfo = Introspector.getBeanInfo(type, Object.class);
+            } catch (IntrospectionException e) {
+                throw new IllegalArgumentException("Can not introspect " + type.getName(), e);
+            }
+
+            this.constructor = Accessors.constructor(type);
+
+            for (PropertyDescriptor pd : beanInfo.getPropertyDescriptors()) {
+                final Method writeMethod = pd.getWriteMethod();
+
+                if (writeMethod == null || !Modifier.isPublic(writeMethod.getModifiers())) {
+                    continue;
+                }
+
+                final Class<?> propertyType = writeMethod.getParameterTypes()[0];
+
+                this.setters.putIfAbsent(
+                        headerName(type, pd.getName(), writeMethod),
+                        new PropertySetter(Accessors.setter(type, writeMethod), Converters.of(propertyType), propertyType.isPrimitive())
+                );
+            }
+        }
+
+        @Nonnull
+        private static String headerName(@Nonnull Class<?> type, @Nonnull String propertyName, @Nonnull Method writeMethod) {
+            Alias alias = writeMethod.getAnnotation(Alias.class);
+
+            for (Class<?> c = type; alias == null && c != null && c != Object.class; c = c.getSuperclass()) {
+                try {
+                    final Field field = c.getDeclaredField(propertyName);
+                    alias = field.getAnnotation(Alias.class);
+                    break;
+                } catch (NoSuchFieldException e) {
+                    // 父类里找
+                }
+            }
+
+            return (alias == null) ? propertyName : alias.value();
+        }
+    }
+
+    /**
+     * 一个属性的 setter 与类型转换
+     */
+    private static class PropertySetter {
+        @Nonnull
+        private final BiConsumer<Object, Object> setter;
+        @Nonnull
+        private final Function<String, Object> converter;
+        private final boolean primitive;
+
+        private PropertySetter(@Nonnull BiConsumer<Object, Object> setter, @Nonnull Function<String, Object> converter, boolean primitive) {
+            this.setter = setter;
+            this.converter = converter;
+            this.primitive = primitive;
+        }
+
+        private void set(@Nonnull Object bean, @Nullable String value) {
+            final Object converted = converter.apply(value);
+
+            // 基本类型没法设置 null，保持默认值
+            if (converted != null || !primitive) {
+                setter.accept(bean, converted);
+            }
+        }
+    }
+
+    /**
+     * 用 {@link LambdaMetafactory} 生成构造器与 setter，生成不了时（例如 bean 不在本类的 class loader 中）退化为 {@link MethodHandle}
+     */
+    private static class Accessors {
+        private static final MethodHandles.Lookup LOOKUP = MethodHandles.lookup();
+
+        @Nonnull
+        @SuppressWarnings("unchecked")
+        private static <T> Supplier<T> constructor(@Nonnull Class<T> type) {
+            final MethodHandle handle;
+
+            try {
+                final Constructor<T> constructor = type.getDeclaredConstructor();
+                constructor.setAccessible(true);
+                handle = LOOKUP.unreflectConstructor(constructor);
+            } catch (NoSuchMethodException | IllegalAccessException e) {
+                throw new IllegalArgumentException("No no-arg constructor in " + type.getName(), e);
+            }
+
+            if (visible(type)) {
+                try {
+                    final CallSite site = LambdaMetafactory.metafactory(
+                            LOOKUP,
+                            "get",
+                            MethodType.methodType(Supplier.class),
+                            MethodType.methodType(Object.class),
+                            handle,
+                            MethodType.methodType(type)
+                    );
+
+                    return (Supplier<T>) site.getTarget().invoke();
+                } catch (Throwable e) {
+                    // 退化为 method handle
+                }
+            }
+
+            return () -> {
+                try {
+                    return (T) handle.invoke();
+                } catch (Throwable e) {
+                    throw new IllegalStateException(e);
+                }
+            };
+        }
+
+        @Nonnull
+        @SuppressWarnings("unchecked")
+        private static BiConsumer<Object, Object> setter(@Nonnull Class<?> type, @Nonnull Method method) {
+            final MethodHandle handle;
+
+            try {
+                method.setAccessible(true);
+                handle = LOOKUP.unreflect(method);
+            } catch (IllegalAccessException e) {
+                throw new IllegalArgumentException("Can not access " + method, e);
+            }
+
+            final Class<?> parameterType = handle.type().parameterType(1);
+
+            if (visible(type) && visible(parameterType)) {
+                try {
+                    final CallSite site = LambdaMetafactory.metafactory(
+                            LOOKUP,
+                            "accept",
+                            MethodType.methodType(BiConsumer.class),
+                            MethodType.methodType(void.class, Object.class, Object.class),
+                            handle,
+                            MethodType.methodType(void.class, type, MethodType.methodType(parameterType).wrap().returnType())
+                    );
+
+                    return (BiConsumer<Object, Object>) site.getTarget().invoke();
+                } catch (Throwable e) {
+                    // 退化为 method handle
+                }
+            }
+
+            final MethodHandle generic = handle.asType(MethodType.methodType(void.class, Object.class, Object.class));
+
+            return (bean, value) -> {
+                try {
+                    generic.invokeExact(bean, value);
+                } catch (Throwable e) {
+                    throw new IllegalStateException(e);
+                }
+            };
+        }
+
+        /**
+         * 生成的 lambda 由本类的 class loader 解析，public 且能被本类的 class loader 找到的类型才能用
+         */
+        private static boolean visible(@Nonnull Class<?> type) {
+            if (type.isPrimitive()) {
+                return true;
+            }
+            if (!Modifier.isPublic(type.getModifiers())) {
+                return false;
+            }
+
+            try {
+                return Class.forName(type.getName(), false, RowBinder.class.getClassLoader()) == type;
+            } catch (ClassNotFoundException e) {
+                return false;
+            }
+        }
+    }
+
+    /**
+     * String -> 属性类型。常见类型直接 parse，parse 不了再交给 hutool 的 {@link Convert}
+     * <p>
+     * 非 String 类型，空白一律转为 null
+     */
+    private static class Converters {
+        @Nonnull
+        private static Function<String, Object> of(@Nonnull Class<?> type) {
+            if (type == String.class || type == Object.class || type == CharSequence.class) {
+                return value -> value;
+            }
+            if (type == int.class || type == Integer.class) {
+                return value -> parse(value, Integer.class, Integer::valueOf);
+            }
+            if (type == long.class || type == Long.class) {
+                return value -> parse(value, Long.class, Long::valueOf);
+            }
+            if (type == double.class || type == Double.class) {
+                return value -> parse(value, Double.class, Double::valueOf);
+            }
+            if (type == BigDecimal.class) {
+                return value -> parse(value, BigDecimal.class, BigDecimal::new);
+            }
+            if (type == boolean.class || type == Boolean.class) {
+                return value -> parse(value, Boolean.class, Converters::parseBoolean);
+            }
+
+            return value -> StringUtils.isBlank(value) ? null : Convert.convert(type, value);
+        }
+
+        @Nullable
+        private static <V> V parse(@Nullable String value, @Nonnull Class<V> type, @Nonnull Function<String, V> parser) {
+            if (StringUtils.isBlank(value)) {
+                return null;
+            }
+
+            final String trimmed = value.trim();
+
+            try {
+                return parser.apply(trimmed);
+            } catch (NumberFormatException e) {
+                // 例如整数类型遇到 "3.0"
+                return Convert.convert(type, trimmed);
+            }
+        }
+
+        @Nonnull
+        private static Boolean parseBoolean(@Nonnull String value) {
+            if ("true".equalsIgnoreCase(value)) {
+                return Boolean.TRUE;
+            }
+            if ("false".equalsIgnoreCase(value)) {
+                return Boolean.FALSE;
+            }
+
+            throw new NumberFormatException(value);
+        }
+    }
+}
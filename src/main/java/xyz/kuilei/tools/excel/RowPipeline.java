@@ -0,0 +1,242 @@
+package xyz.kuilei.tools.excel;
+
+import org.apache.poi.ss.usermodel.Sheet;
+
+import javax.annotation.Nonnull;
+import javax.annotation.Nullable;
+import java.io.Closeable;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * 后台线程生产行，调用者线程消费行，中间是一个有界的批次队列。
+ * <p>
+ * 1. 同一个批次只属于一个 sheet，切换 sheet 时提前交出当前批次；
+ * 2. 生产者的异常原样带给消费者，消费者在 {@link #next()} 中收到 {@link IllegalStateException}；
+ * 3. {@link #close()} 会中断生产者并等待它退出，生产者自己负责关闭它打开的资源。
+ * <p>
+ * NOTE: 消费侧非线程安全
+ *
+ * @author JiaKun Xu, 2026-10-19 13:02:44
+ */
+final class RowPipeline implements Closeable {
+    private static final AtomicInteger THREAD_ID = new AtomicInteger();
+
+    /**
+     * 没有更多行
+     */
+    private static final Batch EOF = new Batch(null, null, Collections.emptyList(), null);
+
+    @Nonnull
+    private final ArrayBlockingQueue<Batch> queue;
+    private final int batchSize;
+    @Nonnull
+    private final Thread thread;
+    private volatile boolean closed;
+
+    // --------------------------------
+    // consumer side
+    // --------------------------------
+    @Nullable
+    private Batch current;
+    private int currentIndex;
+    private boolean eof;
+
+    RowPipeline(@Nonnull String name, int depth, int batchSize, @Nonnull Producer producer) {
+        if (depth <= 0) {
+            throw new IllegalArgumentException("depth <= 0");
+        }
+        if (batchSize <= 0) {
+            throw new IllegalArgumentException("batchSize <= 0");
+        }
+
+        this.queue = new ArrayBlockingQueue<>(depth);
+        this.batchSize = batchSize;
+        this.thread = new Thread(() -> run(producer), name + "-" + THREAD_ID.incrementAndGet());
+        this.thread.setDaemon(true);
+        this.thread.start();
+    }
+
+    /**
+     * @return null if EOF
+     * @throws IllegalStateException if producer failed
+     */
+    @Nullable
+    List<String> next() {
+        while (true) {
+            final Batch batch = current;
+
+            if (batch != null && currentIndex < batch.rows.size()) {
+                return batch.rows.get(currentIndex++);
+            }
+            if (eof) {
+                return null;
+            }
+
+            final Batch next;
+
+            try {
+                next = queue.take();
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                throw new IllegalStateException(e);
+            }
+
+            if (next.error != null) {
+                eof = true;
+                current = null;
+                close();
+                throw new IllegalStateException(next.error);
+            }
+            if (next == EOF) {
+                eof = true;
+                current = null;
+                return null;
+            }
+
+            current = next;
+            currentIndex = 0;
+        }
+    }
+
+    /**
+     * 最近一次 {@link #next()} 返回的行所在的 sheet，非 usermodel 的生产者为 null
+     */
+    @Nullable
+    Sheet getCurrentSheet() {
+        final Batch batch = current;
+        return (batch == null) ? null : batch.sheet;
+    }
+
+    @Nullable
+    String getCurrentSheetName() {
+        final Batch batch = current;
+        return (batch == null) ? null : batch.sheetName;
+    }
+
+    @Override
+    public void close() {
+        if (closed) {
+            return;
+        }
+
+        closed = true;
+        eof = true;
+        current = null;
+        thread.interrupt();
+        queue.clear();  // 让阻塞在 put 上的生产者醒来
+
+        if (Thread.currentThread() != thread) {
+            try {
+                thread.join();
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+        }
+    }
+
+    private void run(@Nonnull Producer producer) {
+        final Sink sink = new Sink();
+        Batch last;
+
+        try {
+            producer.produce(sink);
+            sink.flush();
+            last = EOF;
+        } catch (InterruptedException e) {
+            return;  // closed
+        } catch (Throwable e) {
+            last = new Batch(null, null, Collections.emptyList(), e);
+        }
+
+        try {
+            put(last);
+        } catch (InterruptedException e) {
+            // closed
+        }
+    }
+
+    private void put(@Nonnull Batch batch) throws InterruptedException {
+        if (closed) {
+            throw new InterruptedException("closed");
+        }
+
+        queue.put(batch);
+    }
+
+    /**
+     * 在后台线程中运行，把所有行交给 sink，返回即 EOF
+     */
+    interface Producer {
+        void produce(@Nonnull Sink sink) throws Exception;
+    }
+
+    /**
+     * 生产者侧，只在后台线程中使用
+     */
+    final class Sink {
+        @Nullable
+        private Sheet sheet;
+        @Nullable
+        private String sheetName;
+        @Nullable
+        private ArrayList<List<String>> rows;
+
+        /**
+         * 之后的行都属于这个 sheet
+         */
+        void sheet(@Nullable Sheet sheet, @Nonnull String sheetName) throws InterruptedException {
+            flush();
+            this.sheet = sheet;
+            this.sheetName = sheetName;
+        }
+
+        void row(@Nonnull List<String> row) throws InterruptedException {
+            ArrayList<List<String>> rows = this.rows;
+
+            if (rows == null) {
+                rows = this.rows = new ArrayList<>(batchSize);
+            }
+
+            rows.add(row);
+
+            if (rows.size() >= batchSize) {
+                flush();
+            }
+        }
+
+        boolean isClosed() {
+            return closed;
+        }
+
+        private void flush() throws InterruptedException {
+            final ArrayList<List<String>> rows = this.rows;
+
+            if (rows != null && rows.size() != 0) {
+                this.rows = null;
+                put(new Batch(sheet, sheetName, rows, null));
+            }
+        }
+    }
+
+    private static class Batch {
+        @Nullable
+        private final Sheet sheet;
+        @Nullable
+        private final String sheetName;
+        @Nonnull
+        private final List<List<String>> rows;
+        @Nullable
+        private final Throwable error;
+
+        private Batch(@Nullable Sheet sheet, @Nullable String sheetName, @Nonnull List<List<String>> rows, @Nullable Throwable error) {
+            this.sheet = sheet;
+            this.sheetName = sheetName;
+            this.rows = rows;
+            this.error = error;
+        }
+    }
+}
@@ -0,0 +1,78 @@
+package xyz.kuilei.tools.excel;
+
+import org.apache.poi.poifs.filesystem.FileMagic;
+
+import javax.annotation.Nonnull;
+import javax.annotation.Nullable;
+import java.io.Closeable;
+import java.io.File;
+import java.io.IOException;
+import java.util.List;
+
+/**
+ * 按行读取数据的来源，excel 与分隔符文本共用一套处理逻辑（表头、{@link TrimmedLine}、{@link RowBinder}）
+ * <p>
+ * 行从第 0 列开始，空行跳过，与 {@link ExcelReader#read()} 一致。
+ *
+ * @author JiaKun Xu, 2026-10-19 20:31:17
+ * @see #open(File)
+ */
+public interface RowSource extends Closeable {
+    /**
+     * @return null if EOF
+     * @throws IllegalStateException if read failed
+     */
+    @Nullable
+    List<String> read();
+
+    /**
+     * 等价于 TrimmedLine.fromLine(read())，空白行直接跳过
+     *
+     * @return null if EOF
+     */
+    @Nullable
+    default TrimmedLine readTrimmed() {
+        List<String> line;
+
+        while ((line = read()) != null) {
+            final TrimmedLine trimmed = TrimmedLine.fromLine(line);
+
+            if (trimmed != null) {
+                return trimmed;
+            }
+        }
+
+        return null;
+    }
+
+    /**
+     * 最近一次读到的行所在的 sheet，文本为 null
+     */
+    @Nullable
+    String getCurrentSheetName();
+
+    /**
+     * 按文件内容选择：xls、xlsx 用 {@link ExcelReader}，其他的当作逗号分隔的文本，用 {@link DelimitedRowSource}
+     */
+    @Nonnull
+    static RowSource open(@Nonnull File file) throws IOException {
+        return open(file, new ExcelReaderConfig(), DelimitedRowSource.DEFAULT_FIELD_SEPARATOR, null);
+    }
+
+    /**
+     * @param config         excel 的配置
+     * @param fieldSeparator 文本的字段分隔符
+     * @param encoding       文本的编码，null 为默认字符集
+     */
+    @Nonnull
+    static RowSource open(@Nonnull File file, @Nonnull ExcelReaderConfig config,
+                          @Nonnull String fieldSeparator, @Nullable String encoding) throws IOException {
+        final FileMagic magic = FileMagic.valueOf(file);
+
+        if (magic == FileMagic.OLE2 || magic == FileMagic.OOXML) {
+            return new ExcelReader(file, config);
+        }
+
+        return new DelimitedRowSource(file, fieldSeparator, DelimitedRowSource.DEFAULT_LINE_SEPARATOR, encoding);
+    }
+}
@@ -0,0 +1,32 @@
+package xyz.kuilei.tools.excel;
+
+import javax.annotation.Nonnull;
+import javax.annotation.Nullable;
+
+/**
+ * 推送式读取行，见 {@link SheetReader#accept(RowVisitor)}
+ *
+ * @author JiaKun Xu, 2026-10-19 15:32:10
+ */
+@FunctionalInterface
+public interface RowVisitor {
+    /**
+     * cells 只在本次调用中有效，下一行会覆盖它，需要保留的值请自行拷贝
+     *
+     * @param rowIndex  行号，从 0 开始
+     * @param cellCount cells 的有效下标为 [0, cellCount)
+     * @return false 则停止遍历
+     */
+    boolean visit(int rowIndex, int cellCount, @Nonnull Cells cells);
+
+    /**
+     * 按下标获取一行中的 cell 值
+     */
+    interface Cells {
+        /**
+         * @throws IndexOutOfBoundsException if index out of [0, cellCount)
+         */
+        @Nullable
+        String get(int index);
+    }
+}
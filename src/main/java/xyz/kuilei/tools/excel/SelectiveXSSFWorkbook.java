@@ -0,0 +1,75 @@
+package xyz.kuilei.tools.excel;
+
+import org.apache.poi.openxml4j.exceptions.InvalidFormatException;
+import org.apache.poi.openxml4j.opc.OPCPackage;
+import org.apache.poi.openxml4j.opc.PackageAccess;
+import org.apache.poi.xssf.usermodel.XSSFSheet;
+import org.apache.poi.xssf.usermodel.XSSFWorkbook;
+import org.openxmlformats.schemas.spreadsheetml.x2006.main.CTSheet;
+
+import javax.annotation.Nonnull;
+import java.io.File;
+import java.io.IOException;
+import java.util.Map;
+
+/**
+ * 只解析选中 sheet 的 {@link XSSFWorkbook}，未选中的 sheet xml 不会被解压、解析，也不会出现在 workbook 中
+ * <p>
+ * NOTE: {@link #parseSheet(Map, CTSheet)} 在父类构造器中被调用，此时子类的字段还没有初始化，选择器只能通过 {@link ThreadLocal} 传进去
+ *
+ * @author JiaKun Xu, 2026-10-19 16:12:48
+ */
+class SelectiveXSSFWorkbook extends XSSFWorkbook {
+    private static final ThreadLocal<Selection> SELECTION = new ThreadLocal<>();
+
+    private SelectiveXSSFWorkbook(@Nonnull OPCPackage pkg) throws IOException {
+        super(pkg);
+    }
+
+    /**
+     * 只读打开，与 {@link org.apache.poi.ss.usermodel.WorkbookFactory#create(File, String, boolean)} 一致
+     */
+    @Nonnull
+    static SelectiveXSSFWorkbook open(@Nonnull File file, @Nonnull SheetSelector selector) throws IOException {
+        final OPCPackage pkg;
+
+        try {
+            pkg = OPCPackage.open(file, PackageAccess.READ);
+        } catch (InvalidFormatException e) {
+            throw new IOException(e);
+        }
+
+        SELECTION.set(new Selection(selector));
+
+        try {
+            return new SelectiveXSSFWorkbook(pkg);
+        } catch (IOException | RuntimeException e) {
+            pkg.revert();
+            throw e;
+        } finally {
+            SELECTION.remove();
+        }
+    }
+
+    @Override
+    public void parseSheet(Map<String, XSSFSheet> shIdMap, CTSheet ctSheet) {
+        final Selection selection = SELECTION.get();
+
+        if (selection == null || selection.selector.select(selection.index++, ctSheet.getName())) {
+            super.parseSheet(shIdMap, ctSheet);
+        }
+    }
+
+    private static class Selection {
+        @Nonnull
+        private final SheetSelector selector;
+        /**
+         * 下一个 sheet 的下标
+         */
+        private int index;
+
+        private Selection(@Nonnull SheetSelector selector) {
+            this.selector = selector;
+        }
+    }
+}
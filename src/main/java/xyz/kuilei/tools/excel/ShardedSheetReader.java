@@ -0,0 +1,383 @@
+package xyz.kuilei.tools.excel;
+
+import org.apache.poi.ss.usermodel.Sheet;
+import org.apache.poi.ss.util.CellRangeAddress;
+import org.apache.poi.ss.util.SheetUtil;
+
+import javax.annotation.Nonnull;
+import javax.annotation.Nullable;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.IdentityHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.Executor;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.function.Supplier;
+
+/**
+ * 把一个很大的 sheet 按行号切成分片，由多个 worker 并行转换，{@link SheetReader} 只能在一个线程里从头读到尾
+ * <p>
+ * 1. 合并单元格只解析一次，按行号分给与它相交的每个分片；跨分片的合并单元格，左上角的值在开始前转换一次，各个分片共用，
+ * 左上角不在本分片的 cell 也能得到正确的值；
+ * 2. {@link CellConverter} 非线程安全，每个 worker 一个，由 converters 创建，同时最多 parallelism 个分片在转换；
+ * 3. {@link #accept(RowVisitor)} 按行号顺序在调用者线程交给 visitor，最多 2 * parallelism 个分片转换好了等待交付，内存有上限；
+ * {@link #acceptConcurrently(RowVisitor)} 在 worker 线程中直接交给 visitor，带行号，分片之间不保证顺序。
+ * <p>
+ * 结果与 {@link SheetReader#accept(RowVisitor)} 相同，没有 cell 的行跳过。读取期间 sheet 不能被修改；
+ * accept 返回时（包括提前结束与失败）所有分片都已经结束，之后不再读取 sheet，可以修改或关闭。
+ * xlsx 的 cell 读取在 xmlbeans 的锁上是串行的，并行的收益主要来自转换与合并单元格的查找。
+ * <p>
+ * NOTE: 非线程安全，同一时间只能有一次 accept
+ *
+ * @author JiaKun Xu, 2026-10-20 05:08:41
+ */
+public class ShardedSheetReader {
+    public static final int DEFAULT_SHARD_ROWS = 4096;
+
+    @Nonnull
+    private final Sheet sheet;
+    @Nonnull
+    private final Executor executor;
+    private final int parallelism;
+    private final int shardRows;
+    private final int firstRow;
+    private final int lastRow;
+    private final int shardCount;
+
+    /**
+     * 分片 -> 与它相交的合并单元格
+     */
+    @Nonnull
+    private final List<List<CellRangeAddress>> shardRegions;
+
+    /**
+     * 跨分片的合并单元格 -> 左上角转换后的值，构造之后只读
+     */
+    @Nonnull
+    private final Map<CellRangeAddress, String> anchors = new IdentityHashMap<>();
+
+    @Nonnull
+    private final Supplier<CellConverter> converters;
+    /**
+     * 空闲的 converter，最多创建 parallelism 个
+     */
+    @Nonnull
+    private final ArrayBlockingQueue<CellConverter> idleConverters;
+    private final AtomicInteger createdConverters = new AtomicInteger();
+
+    /**
+     * @see SheetReader#setColumns(int...)
+     */
+    @Nullable
+    private int[] columns;
+
+    public ShardedSheetReader(@Nonnull Sheet sheet, @Nonnull Executor executor, int parallelism) {
+        this(sheet, executor, parallelism, DEFAULT_SHARD_ROWS, CellConverter::new);
+    }
+
+    /**
+     * @param shardRows  每个分片的行数（按行号计）
+     * @param converters 每个 worker 一个；共用字典、指标时由调用者保证线程安全
+     */
+    public ShardedSheetReader(@Nonnull Sheet sheet, @Nonnull Executor executor, int parallelism, int shardRows,
+                              @Nonnull Supplier<CellConverter> converters) {
+        if (parallelism < 1) {
+            throw new IllegalArgumentException("parallelism < 1");
+        }
+        if (shardRows < 1) {
+            throw new IllegalArgumentException("shardRows < 1");
+        }
+
+        this.sheet = sheet;
+        this.executor = executor;
+        this.parallelism = parallelism;
+        this.shardRows = shardRows;
+        this.firstRow = sheet.getFirstRowNum();
+        this.lastRow = sheet.getLastRowNum();
+        this.shardCount = (sheet.getPhysicalNumberOfRows() == 0)
+                ? 0 : (int) (((long) lastRow - firstRow + shardRows) / shardRows);
+        this.converters = converters;
+        this.idleConverters = new ArrayBlockingQueue<>(parallelism);
+        this.shardRegions = new ArrayList<>(shardCount);
+
+        for (int i = 0; i < shardCount; ++i) {
+            shardRegions.add(new ArrayList<>());
+        }
+
+        final CellConverter converter = acquireConverter();
+
+        try {
+            splitMergedRegions(converter);
+        } finally {
+            idleConverters.add(converter);
+        }
+    }
+
+    /**
+     * 每个分片都只读取这些列
+     *
+     * @see SheetReader#setColumns(int...)
+     */
+    public void setColumns(@Nullable int... columns) {
+        this.columns = (columns == null) ? null : columns.clone();
+    }
+
+    /**
+     * 按行号顺序在调用者线程中交给 visitor
+     *
+     * @return 交给 visitor 的行数
+     * @throws IllegalStateException 转换失败，worker 中的 RuntimeException 原样抛出
+     */
+    public int accept(@Nonnull RowVisitor visitor) {
+        final AtomicBoolean stopped = new AtomicBoolean();
+        final ArrayDeque<CompletableFuture<Shard>> inFlight = new ArrayDeque<>();
+        final int window = parallelism << 1;
+        final ArrayCells cells = new ArrayCells();
+        int next = 0;
+        int visited = 0;
+
+        try {
+            while (true) {
+                while (next < shardCount && inFlight.size() < window) {
+                    final int index = next++;
+                    inFlight.add(CompletableFuture.supplyAsync(() -> convert(index, stopped), executor));
+                }
+
+                final CompletableFuture<Shard> head = inFlight.poll();
+
+                if (head == null) {
+                    return visited;
+                }
+
+                final Shard shard = join(head);
+
+                for (int i = 0; i < shard.size; ++i) {
+                    cells.values = shard.values.get(i);
+                    ++visited;
+
+                    if (!visitor.visit(shard.rowIndexes[i], cells.values.length, cells)) {
+                        return visited;
+                    }
+                }
+            }
+        } finally {
+            // 提前结束或失败时，还没开始的分片直接跳过，正在转换的分片在下一行停下，等它们都结束再返回
+            stopped.set(true);
+            awaitQuietly(inFlight);
+        }
+    }
+
+    /**
+     * 在 worker 线程中直接交给 visitor，不物化行：分片内按行号顺序，分片之间并发、不保证顺序
+     * <p>
+     * visitor 必须是线程安全的，cells 只在本次调用中有效。任何一次返回 false，或者任何一个分片失败（包括 visitor 抛出异常），
+     * 所有分片尽快停下，等它们都结束后返回，失败时抛出第一个异常。
+     *
+     * @return 交给 visitor 的行数
+     * @throws IllegalStateException 转换失败，worker 中的 RuntimeException 原样抛出
+     */
+    public int acceptConcurrently(@Nonnull RowVisitor visitor) {
+        final AtomicBoolean stopped = new AtomicBoolean();
+        final AtomicInteger visited = new AtomicInteger();
+        final AtomicReference<Throwable> failure = new AtomicReference<>();
+        final List<CompletableFuture<?>> futures = new ArrayList<>(shardCount);
+
+        try {
+            for (int i = 0; i < shardCount; ++i) {
+                final int index = i;
+
+                futures.add(CompletableFuture.runAsync(() -> read(index, stopped, (rowIndex, cellCount, cells) -> {
+                    visited.incrementAndGet();
+
+                    if (!visitor.visit(rowIndex, cellCount, cells)) {
+                        stopped.set(true);
+                        return false;
+                    }
+
+                    return !stopped.get();
+                }), executor).whenComplete((v, e) -> {
+                    if (e != null) {
+                        failure.compareAndSet(null, e);
+                        stopped.set(true);
+                    }
+                }));
+            }
+        } catch (RuntimeException | Error e) {
+            // 提交失败，已经开始的分片停下
+            stopped.set(true);
+            throw e;
+        } finally {
+            awaitQuietly(futures);
+        }
+
+        final Throwable e = failure.get();
+
+        if (e != null) {
+            throw rethrow((e instanceof CompletionException && e.getCause() != null) ? e.getCause() : e);
+        }
+
+        return visited.get();
+    }
+
+    /**
+     * 合并单元格按行号分给相交的分片，跨分片的先转换左上角
+     */
+    private void splitMergedRegions(@Nonnull CellConverter converter) {
+        if (shardCount == 0) {
+            return;
+        }
+
+        for (CellRangeAddress cra : sheet.getMergedRegions()) {
+            if (cra.getLastRow() < firstRow || cra.getFirstRow() > lastRow) {
+                continue;
+            }
+
+            final int from = (Math.max(cra.getFirstRow(), firstRow) - firstRow) / shardRows;
+            final int to = (Math.min(cra.getLastRow(), lastRow) - firstRow) / shardRows;
+
+            for (int i = from; i <= to; ++i) {
+                shardRegions.get(i).add(cra);
+            }
+
+            if (from != to) {
+                anchors.put(cra, converter.getCellString(SheetUtil.getCell(sheet, cra.getFirstRow(), cra.getFirstColumn())));
+            }
+        }
+    }
+
+    /**
+     * 把一个分片的行转换、拷贝出来，交给调用者线程
+     */
+    @Nonnull
+    private Shard convert(int index, @Nonnull AtomicBoolean stopped) {
+        final Shard shard = new Shard();
+
+        read(index, stopped, (rowIndex, cellCount, cells) -> {
+            final String[] values = new String[cellCount];
+
+            for (int i = 0; i < cellCount; ++i) {
+                values[i] = cells.get(i);
+            }
+
+            shard.add(rowIndex, values);
+            return !stopped.get();
+        });
+
+        return shard;
+    }
+
+    private void read(int index, @Nonnull AtomicBoolean stopped, @Nonnull RowVisitor visitor) {
+        if (stopped.get()) {
+            return;
+        }
+
+        final int from = firstRow + index * shardRows;
+        final int to = (int) Math.min((long) from + shardRows - 1, lastRow);
+        final CellConverter converter = acquireConverter();
+
+        try {
+            final SheetReader reader = new SheetReader(sheet, from, to, shardRegions.get(index), anchors, converter);
+
+            reader.setColumns(columns);
+            reader.accept(visitor);
+        } finally {
+            idleConverters.add(converter);
+        }
+    }
+
+    @Nonnull
+    private CellConverter acquireConverter() {
+        final CellConverter idle = idleConverters.poll();
+
+        if (idle != null) {
+            return idle;
+        }
+        if (createdConverters.getAndIncrement() < parallelism) {
+            return converters.get();
+        }
+
+        try {
+            return idleConverters.take();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IllegalStateException("Interrupted while waiting for a converter", e);
+        }
+    }
+
+    /**
+     * 等这些分片结束，忽略结果与异常；CompletableFuture#cancel 不会停下、也不会等待已经开始的任务
+     */
+    private static void awaitQuietly(@Nonnull Collection<? extends CompletableFuture<?>> futures) {
+        if (futures.isEmpty()) {
+            return;
+        }
+
+        CompletableFuture.allOf(futures.toArray(new CompletableFuture<?>[0])).handle((v, e) -> null).join();
+    }
+
+    private static <T> T join(@Nonnull CompletableFuture<T> future) {
+        try {
+            return future.join();
+        } catch (CompletionException e) {
+            throw rethrow(e.getCause());
+        }
+    }
+
+    /**
+     * RuntimeException 与 Error 原样抛出，其他的包装成 IllegalStateException
+     */
+    @Nonnull
+    private static RuntimeException rethrow(@Nonnull Throwable cause) {
+        if (cause instanceof RuntimeException) {
+            throw (RuntimeException) cause;
+        }
+        if (cause instanceof Error) {
+            throw (Error) cause;
+        }
+
+        throw new IllegalStateException(cause);
+    }
+
+    /**
+     * 转换好的一个分片
+     */
+    private static class Shard {
+        @Nonnull
+        private int[] rowIndexes = new int[64];
+        @Nonnull
+        private final List<String[]> values = new ArrayList<>();
+        private int size;
+
+        private void add(int rowIndex, @Nonnull String[] values) {
+            if (size == rowIndexes.length) {
+                rowIndexes = Arrays.copyOf(rowIndexes, size << 1);
+            }
+
+            rowIndexes[size++] = rowIndex;
+            this.values.add(values);
+        }
+    }
+
+    private static class ArrayCells implements RowVisitor.Cells {
+        @Nonnull
+        private String[] values = new String[0];
+
+        @Nullable
+        @Override
+        public String get(int index) {
+            if (index < 0 || index >= values.length) {
+                throw new IndexOutOfBoundsException("Index: " + index + ", Size: " + values.length);
+            }
+
+            return values[index];
+        }
+    }
+}
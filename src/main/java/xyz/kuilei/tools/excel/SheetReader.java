@@ -1,10 +1,12 @@
 package xyz.kuilei.tools.excel;
 
+import org.apache.commons.lang3.StringUtils;
 import org.apache.poi.ss.usermodel.Cell;
 import org.apache.poi.ss.usermodel.Row;
 import org.apache.poi.ss.usermodel.Sheet;
 import org.apache.poi.ss.util.CellRangeAddress;
 import org.apache.poi.ss.util.SheetUtil;
+import xyz.kuilei.tools.metrics.ReadMetrics;
 
 import javax.annotation.Nonnull;
 import javax.annotation.Nullable;
@@ -27,9 +29,65 @@ public class SheetReader {
     @Nonnull
     private final TreeMap<MergedRegionKey, MergedRegionVal> mergedRegionMap;
 
+    @Nonnull
+    private final CellConverter converter;
+
+    /**
+     * 来自 converter，null: 不统计
+     */
+    @Nullable
+    private final ReadMetrics metrics;
+    private final boolean cellTimingEnabled;
+
+    /**
+     * 列投影，按顺序只读取这些列，负数表示该列不存在，结果为 null
+     * <p>
+     * null: 读取所有列
+     */
+    @Nullable
+    private int[] columns;
+
+    /**
+     * {@link #readTrimmed(Row)} 中两个非空白之间的空白，复用
+     */
+    @Nonnull
+    private final ArrayList<String> pendingBlanks = new ArrayList<>();
+
     public SheetReader(@Nonnull Sheet sheet) {
+        this(sheet, new CellConverter());
+    }
+
+    public SheetReader(@Nonnull Sheet sheet, @Nonnull CellConverter converter) {
         this.rowIterator = sheet.rowIterator();
         this.mergedRegionMap = this.initMergedRegionMap(sheet);
+        this.converter = converter;
+        this.metrics = converter.getMetrics();
+        this.cellTimingEnabled = (this.metrics != null && this.metrics.isCellTimingEnabled());
+    }
+
+    /**
+     * 分片读取时用，见 {@link ShardedSheetReader}：只读 [firstRow, lastRow] 的行，合并单元格只有与这些行相交的 regions
+     *
+     * @param anchors 跨分片的合并单元格 -> 已经转换好的左上角的值，各个分片共用，不再各自转换
+     */
+    SheetReader(@Nonnull Sheet sheet, int firstRow, int lastRow, @Nonnull List<CellRangeAddress> regions,
+                @Nonnull Map<CellRangeAddress, String> anchors, @Nonnull CellConverter converter) {
+        this.rowIterator = new RowRangeIterator(sheet, firstRow, lastRow);
+        this.mergedRegionMap = new TreeMap<>();
+        this.converter = converter;
+        this.metrics = converter.getMetrics();
+        this.cellTimingEnabled = (this.metrics != null && this.metrics.isCellTimingEnabled());
+
+        for (CellRangeAddress cra : regions) {
+            final MergedRegionVal val = new MergedRegionVal(cra, sheet);
+
+            if (anchors.containsKey(cra)) {
+                val.firstCellString = anchors.get(cra);
+                val.firstCellConverted = true;
+            }
+
+            this.mergedRegionMap.put(new MergedRegionKey(cra), val);
+        }
     }
 
     @Nonnull
@@ -43,6 +101,16 @@ public class SheetReader {
         return map;
     }
 
+    /**
+     * 设置列投影，之后读取的行只包含这些列，投影外的 cell 不会被转换
+     *
+     * @param columns null 表示读取所有列
+     * @see TrimmedLine#indexesOf(String...)
+     */
+    public void setColumns(@Nullable int... columns) {
+        this.columns = (columns == null) ? null : columns.clone();
+    }
+
     /**
      * @return null if no more lines
      */
@@ -51,35 +119,243 @@ public class SheetReader {
         Iterator<Row> it = this.rowIterator;
 
         if (it.hasNext()) {
-            Row row = it.next();
-            int size = row.getLastCellNum();  // WARN: 如果没有 cell，那么会返回 -1
+            Row row = this.nextRow(it);
+            int size = this.rowSize(row);  // WARN: 如果没有 cell，那么会返回 -1
 
             if (size <= 0) {
                 return Collections.emptyList();
             }
 
             ArrayList<String> ret = new ArrayList<>(size);
+            this.fill(row, size, ret);
 
-            for (int i = 0; i < size; i++) {
-                ret.add(this.obtainMergedCellString(row.getCell(i)));
+            return ret;
+        }
+
+        return null;
+    }
+
+    /**
+     * 与 {@link #read()} 一致，但是把结果放进 reuse，不再为每行新建 list
+     *
+     * @param reuse 会先被清空
+     * @return reuse, or null if no more lines
+     */
+    @Nullable
+    public List<String> read(@Nonnull List<String> reuse) {
+        Iterator<Row> it = this.rowIterator;
+
+        if (it.hasNext()) {
+            Row row = this.nextRow(it);
+            int size = this.rowSize(row);
+
+            reuse.clear();
+
+            if (size > 0) {
+                this.fill(row, size, reuse);
             }
 
-            return ret;
+            return reuse;
         }
 
         return null;
     }
 
+    /**
+     * 等价于 TrimmedLine.fromLine(read())，空白行直接跳过。
+     * <p>
+     * 只遍历实际存在的 cell，边读边记录首尾非空白的位置，
+     * 不会像 {@link #read()} 那样补全到 getLastCellNum()，也不用再扫一遍去 trim。
+     * 有些表格的空白 cell 带了格式，一直延伸到 XFD 列，这时候差别很大。
+     *
+     * @return null if no more lines
+     */
     @Nullable
-    private Cell obtainMergedCell(@Nullable Cell cell) {
-        if (cell == null) {
-            return null;
+    public TrimmedLine readTrimmed() {
+        final Iterator<Row> it = this.rowIterator;
+
+        while (it.hasNext()) {
+            final Row row = this.nextRow(it);
+
+            if (row.getLastCellNum() <= 0) {
+                continue;
+            }
+
+            final TrimmedLine line = (this.columns == null)
+                    ? this.readTrimmed(row)
+                    : TrimmedLine.fromLine(this.readProjected(row));
+
+            if (line != null) {
+                return line;
+            }
+        }
+
+        return null;
+    }
+
+    @Nullable
+    private TrimmedLine readTrimmed(@Nonnull Row row) {
+        final ArrayList<String> pending = this.pendingBlanks;
+        ArrayList<String> line = null;
+        int from = -1;
+
+        try {
+            for (Cell cell : row) {
+                final String value = this.obtainMergedCellString(cell);
+                final boolean blank = StringUtils.isBlank(value);
+
+                // 第一个非空白之前的都不要
+                if (blank && line == null) {
+                    continue;
+                }
+
+                final int column = cell.getColumnIndex();
+
+                if (line == null) {
+                    line = new ArrayList<>();
+                    from = column;
+
+                    while (line.size() < column) {
+                        line.add(null);
+                    }
+                    line.add(value);
+                    continue;
+                }
+
+                // 空白先记下来，等到下一个非空白才放进 line，尾部的空白不会放进去
+                final int size = line.size() + pending.size();
+
+                for (int i = size; i < column; ++i) {
+                    pending.add(null);
+                }
+                pending.add(value);
+
+                if (!blank) {
+                    line.addAll(pending);
+                    pending.clear();
+                }
+            }
+        } finally {
+            pending.clear();
+        }
+
+        return (line == null) ? null : TrimmedLine.of(line, from, line.size());
+    }
+
+    @Nonnull
+    private List<String> readProjected(@Nonnull Row row) {
+        final int size = this.rowSize(row);
+        final ArrayList<String> ret = new ArrayList<>(size);
+
+        this.fill(row, size, ret);
+        return ret;
+    }
+
+    /**
+     * 推送式遍历剩余的行，没有 cell 的行直接跳过，不会交给 visitor。
+     * <p>
+     * 每行的值放在同一个复用的缓冲里，整个遍历过程不会为行分配容器。
+     *
+     * @return 交给 visitor 的行数
+     */
+    public int accept(@Nonnull RowVisitor visitor) {
+        final Iterator<Row> it = this.rowIterator;
+        final RowBuffer buffer = new RowBuffer();
+        int visited = 0;
+
+        while (it.hasNext()) {
+            final Row row = this.nextRow(it);
+            final int size = this.rowSize(row);
+
+            if (size <= 0) {
+                continue;
+            }
+
+            buffer.fill(row, size);
+            ++visited;
+
+            if (!visitor.visit(row.getRowNum(), size, buffer)) {
+                break;
+            }
+        }
+
+        return visited;
+    }
+
+    @Nonnull
+    private Row nextRow(@Nonnull Iterator<Row> it) {
+        final Row row = it.next();
+
+        if (this.metrics != null) {
+            this.metrics.rowsRead(1);
         }
 
+        return row;
+    }
+
+    /**
+     * @return 这一行要读的 cell 个数，没有 cell 时 <= 0
+     */
+    private int rowSize(@Nonnull Row row) {
+        int size = row.getLastCellNum();  // WARN: 如果没有 cell，那么会返回 -1
+
+        if (size <= 0) {
+            return size;
+        }
+
+        final int[] columns = this.columns;
+        return (columns == null) ? size : columns.length;
+    }
+
+    /**
+     * 不投影时只遍历实际存在的 cell，不存在的为 null
+     */
+    private void fill(@Nonnull Row row, int size, @Nonnull List<String> out) {
+        if (this.columns != null) {
+            for (int i = 0; i < size; i++) {
+                out.add(this.cellString(row, i));
+            }
+            return;
+        }
+
+        for (Cell cell : row) {
+            final int column = cell.getColumnIndex();
+
+            while (out.size() < column) {
+                out.add(null);
+            }
+
+            out.add(this.obtainMergedCellString(cell));
+        }
+        while (out.size() < size) {
+            out.add(null);
+        }
+    }
+
+    /**
+     * @param i 投影时是投影中的下标
+     */
+    @Nullable
+    private String cellString(@Nonnull Row row, int i) {
+        final int[] columns = this.columns;
+
+        if (columns == null) {
+            return this.obtainMergedCellString(row.getCell(i));
+        }
+
+        final int column = columns[i];
+        return this.obtainMergedCellString((column < 0) ? null : row.getCell(column));
+    }
+
+    /**
+     * @return null if cell is not in any merged region
+     */
+    @Nullable
+    private MergedRegionVal obtainMergedRegion(@Nonnull Cell cell) {
         TreeMap<MergedRegionKey, MergedRegionVal> cellRangeMap = this.mergedRegionMap;
 
         if (cellRangeMap.isEmpty()) {
-            return cell;
+            return null;
         }
 
         /*
@@ -104,9 +380,15 @@ public class SheetReader {
         while (it.hasNext()) {
             MergedRegionVal val = it.next();
 
+            // NOTE: 已经整个读过去的 merged region 直接移除，不依赖访问次数，投影跳过的 cell、不存在的 cell 都不会让它残留
+            if (val.passed(cell)) {
+                it.remove();
+                continue;
+            }
+
             // NOTE: 如果当前 cell 在当前 merged region 的最左上角的 cell 前面，那么它必不可能在其他 merged region 里面
             if (val.notInAnyRegion(cell)) {
-                return cell;
+                return null;
             }
 
             if (val.inRegion(cell)) {
@@ -115,16 +397,131 @@ public class SheetReader {
                     it.remove();
                 }
 
-                return val.firstCell;
+                return val;
             }
         }
 
-        return cell;
+        return null;
+    }
+
+    @Nullable
+    private MergedRegionVal obtainMergedRegionMeasured(@Nonnull Cell cell) {
+        final ReadMetrics metrics = this.metrics;
+        final int openRegions = this.mergedRegionMap.size();
+        final MergedRegionVal val;
+
+        if (this.cellTimingEnabled) {
+            final long start = System.nanoTime();
+
+            val = this.obtainMergedRegion(cell);
+            metrics.stageTime(ReadMetrics.Stage.MERGED_REGION_LOOKUP, System.nanoTime() - start);
+        } else {
+            val = this.obtainMergedRegion(cell);
+        }
+
+        metrics.mergedRegionLookup(val != null, openRegions);
+        return val;
     }
 
+    /**
+     * 合并单元格只转换左上角的 cell 一次，涵盖的其他 cell 直接复用
+     */
     @Nullable
     private String obtainMergedCellString(@Nullable Cell cell) {
-        return CellUtils.getCellString(this.obtainMergedCell(cell));
+        if (cell == null) {
+            return null;
+        }
+
+        MergedRegionVal val = (this.metrics == null) ? this.obtainMergedRegion(cell) : this.obtainMergedRegionMeasured(cell);
+
+        if (val == null) {
+            return this.converter.getCellString(cell);
+        }
+        if (!val.firstCellConverted) {
+            val.firstCellString = this.converter.getCellString(val.firstCell);
+            val.firstCellConverted = true;
+        }
+
+        return val.firstCellString;
+    }
+
+    /**
+     * {@link #accept(RowVisitor)} 中复用的行缓冲
+     */
+    private class RowBuffer implements RowVisitor.Cells {
+        @Nonnull
+        private String[] values = new String[16];
+        private int size;
+
+        private void fill(@Nonnull Row row, int size) {
+            String[] values = this.values;
+
+            if (size > values.length) {
+                values = this.values = new String[Math.max(size, values.length << 1)];
+            }
+
+            if (SheetReader.this.columns != null) {
+                for (int i = 0; i < size; i++) {
+                    values[i] = SheetReader.this.cellString(row, i);
+                }
+            } else {
+                Arrays.fill(values, 0, size, null);
+
+                for (Cell cell : row) {
+                    values[cell.getColumnIndex()] = SheetReader.this.obtainMergedCellString(cell);
+                }
+            }
+
+            this.size = size;
+        }
+
+        @Nullable
+        @Override
+        public String get(int index) {
+            if (index < 0 || index >= size) {
+                throw new IndexOutOfBoundsException("Index: " + index + ", Size: " + size);
+            }
+
+            return values[index];
+        }
+    }
+
+    /**
+     * 按行号遍历 [firstRow, lastRow] 中存在的行
+     */
+    private static class RowRangeIterator implements Iterator<Row> {
+        @Nonnull
+        private final Sheet sheet;
+        private final int lastRow;
+        private int rowNum;
+        @Nullable
+        private Row next;
+
+        private RowRangeIterator(@Nonnull Sheet sheet, int firstRow, int lastRow) {
+            this.sheet = sheet;
+            this.lastRow = lastRow;
+            this.rowNum = firstRow;
+        }
+
+        @Override
+        public boolean hasNext() {
+            while (this.next == null && this.rowNum <= this.lastRow) {
+                this.next = this.sheet.getRow(this.rowNum++);
+            }
+
+            return this.next != null;
+        }
+
+        @Override
+        public Row next() {
+            if (!this.hasNext()) {
+                throw new NoSuchElementException();
+            }
+
+            final Row row = this.next;
+            this.next = null;
+            return row;
+        }
     }
 
     /**
@@ -197,6 +594,13 @@ public class SheetReader {
          */
         private int visits;
 
+        /**
+         * 最左上角的 cell 转换后的值，第一次用到时才转换
+         */
+        @Nullable
+        private String firstCellString;
+        private boolean firstCellConverted;
+
         private MergedRegionVal(@Nonnull CellRangeAddress cra, @Nonnull Sheet sheet) {
             this.mergedRegion = cra;
             this.firstCell = SheetUtil.getCell(sheet, cra.getFirstRow(), cra.getFirstColumn());
@@ -206,6 +610,10 @@ public class SheetReader {
             return this.mergedRegion.isInRange(cell);
         }
 
+        private boolean passed(@Nonnull Cell cell) {
+            return cell.getRowIndex() > this.mergedRegion.getLastRow();
+        }
+
         private boolean notInAnyRegion(@Nonnull Cell cell) {
             int rowIndex = cell.getRowIndex();
             int columnIndex = cell.getColumnIndex();
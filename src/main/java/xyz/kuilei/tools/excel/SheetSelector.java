@@ -0,0 +1,38 @@
+package xyz.kuilei.tools.excel;
+
+import javax.annotation.Nonnull;
+import java.util.Arrays;
+import java.util.HashSet;
+import java.util.Set;
+
+/**
+ * 选择要读取的 sheet，见 {@link ExcelReaderConfig#setSheetSelector(SheetSelector)}
+ * <p>
+ * 未选中的 sheet：.xlsx 不会解压、解析对应的 sheet xml；.xls 事件模型下不转换其中的单元格。
+ *
+ * @author JiaKun Xu, 2026-10-19 16:05:37
+ */
+@FunctionalInterface
+public interface SheetSelector {
+    /**
+     * @param index sheet 在 workbook 中的下标，从 0 开始
+     * @param name  sheet 的名字
+     * @return true 则读取这个 sheet
+     */
+    boolean select(int index, @Nonnull String name);
+
+    @Nonnull
+    static SheetSelector names(@Nonnull String... names) {
+        final Set<String> set = new HashSet<>(Arrays.asList(names));
+
+        return (index, name) -> set.contains(name);
+    }
+
+    @Nonnull
+    static SheetSelector indexes(@Nonnull int... indexes) {
+        final int[] sorted = indexes.clone();
+        Arrays.sort(sorted);
+
+        return (index, name) -> Arrays.binarySearch(sorted, index) >= 0;
+    }
+}
@@ -1,6 +1,7 @@
 package xyz.kuilei.tools.excel;
 
 import cn.hutool.core.lang.Assert;
+import lombok.Getter;
 import org.apache.commons.collections4.CollectionUtils;
 import org.apache.commons.collections4.ListUtils;
 import org.apache.commons.lang3.StringUtils;
@@ -9,6 +10,7 @@ import javax.annotation.Nonnull;
 import javax.annotation.Nullable;
 import java.util.ArrayList;
 import java.util.List;
+import java.util.RandomAccess;
 
 /**
  * 用来处理表头匹配问题，因为有些表头不是从第 1 列开始，这让我想到了 trim
@@ -16,12 +18,17 @@ import java.util.List;
  * @author JiaKun Xu, 2023-09-12 15:25:01
  */
 public class TrimmedLine {
+    /**
+     * RandomAccess，按下标取值
+     */
     @Nonnull
-    private final ArrayList<String> line;
+    private final List<String> line;
+    @Getter
     private final int from;  // include
+    @Getter
     private final int to;    // exclude
 
-    private TrimmedLine(@Nonnull ArrayList<String> line, int from, int to) {
+    private TrimmedLine(@Nonnull List<String> line, int from, int to) {
         Assert.isTrue((line.size() != 0));
         Assert.isTrue(0 <= from && from < to && to <= line.size());
 
@@ -30,6 +37,14 @@ public class TrimmedLine {
         this.to = to;
     }
 
+    /**
+     * 调用者已经确定了首尾非空白的位置，见 {@link SheetReader#readTrimmed()}
+     */
+    @Nonnull
+    static TrimmedLine of(@Nonnull List<String> line, int from, int to) {
+        return new TrimmedLine(line, from, to);
+    }
+
     /**
      * 构造前后去除空白的TrimmedLine数据行
      * 可能会额外去除首尾红白,后续有逻辑会根据header重新填充
@@ -42,7 +57,8 @@ public class TrimmedLine {
         if (CollectionUtils.isEmpty(line)) {
             return null;
         } else {
-            if (!(line instanceof ArrayList)) {
+            // 例如 DelimitedRowSource 的行，按需才生成字段，不用复制
+            if (!(line instanceof RandomAccess)) {
                 line = new ArrayList<>(line);
             }
 
@@ -59,11 +75,43 @@ public class TrimmedLine {
             if (from == to) {
                 return null;
             } else {
-                return new TrimmedLine((ArrayList<String>) line, from, to);
+                return new TrimmedLine(line, from, to);
             }
         }
     }
 
+    /**
+     * 按绝对列号取值，不在 [from, to) 之内的为 ""，与 {@link #asHeaderGetDataLine(TrimmedLine, boolean)} 的补全一致，但不复制整行
+     *
+     * @see HeaderIndex
+     */
+    @Nullable
+    public String get(int column) {
+        return (from <= column && column < to) ? line.get(column) : StringUtils.EMPTY;
+    }
+
+    /**
+     * 按表头名获取列号，用于 {@link SheetReader#setColumns(int...)} 的列投影。
+     * <p>
+     * 列号是绝对的，因为 {@link SheetReader#read()} 是从 0 开始读的。
+     *
+     * @return 与 headers 一一对应，找不到的为 -1
+     */
+    @Nonnull
+    public int[] indexesOf(@Nonnull String... headers) {
+        final int[] ret = new int[headers.length];
+
+        for (int i = 0; i < headers.length; ++i) {
+            ret[i] = this.line.subList(from, to).indexOf(headers[i]);
+
+            if (ret[i] >= 0) {
+                ret[i] += from;
+            }
+        }
+
+        return ret;
+    }
+
     public boolean equalsLine(@Nullable List<String> line) {
         return ListUtils.isEqualList(this.line.subList(from, to), line);
     }
@@ -103,10 +151,10 @@ public class TrimmedLine {
     public List<String> asHeaderGetDataLine(@Nonnull TrimmedLine data, boolean force) {
         final int headerFrom = this.from;
         final int headerTo = this.to;
-//        final ArrayList<String> headerLine = this.line;
+//        final List<String> headerLine = this.line;
         final int dataFrom = data.from;
         final int dataTo = data.to;
-        final ArrayList<String> dataLine = data.line;
+        final List<String> dataLine = data.line;
 
         if (headerFrom <= dataFrom && dataTo <= headerTo) {
             if ((headerFrom == dataFrom && dataTo == headerTo) && (dataFrom == 0 && dataTo == dataLine.size())) {
@@ -130,10 +178,10 @@ public class TrimmedLine {
     private static List<String> headerGetDataLine(@Nonnull TrimmedLine header, @Nonnull TrimmedLine data) {
         final int headerFrom = header.from;
         final int headerTo = header.to;
-//        final ArrayList<String> headerLine = this.line;
+//        final List<String> headerLine = this.line;
         final int dataFrom = data.from;
         final int dataTo = data.to;
-        final ArrayList<String> dataLine = data.line;
+        final List<String> dataLine = data.line;
 
         final ArrayList<String> ret = new ArrayList<>(headerTo - headerFrom);
 
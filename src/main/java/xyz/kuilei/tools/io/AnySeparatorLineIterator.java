@@ -2,13 +2,25 @@ package xyz.kuilei.tools.io;
 
 import org.apache.commons.io.Charsets;
 import org.apache.commons.io.FileUtils;
+import org.apache.commons.io.input.CountingInputStream;
+import xyz.kuilei.tools.metrics.ReadMetrics;
 
 import javax.annotation.Nonnull;
 import javax.annotation.Nullable;
 import java.io.Closeable;
 import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
 import java.io.IOException;
+import java.io.InputStream;
 import java.io.InputStreamReader;
+import java.io.OutputStreamWriter;
+import java.io.Reader;
+import java.io.Writer;
+import java.nio.charset.Charset;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayDeque;
+import java.util.Arrays;
 import java.util.Iterator;
 import java.util.LinkedList;
 import java.util.List;
@@ -21,6 +33,16 @@ import static org.apache.commons.io.IOUtils.EOF;
  * @see org.apache.commons.io.LineIterator
  */
 public class AnySeparatorLineIterator implements Iterator<String>, Closeable {
+    /**
+     * 每次至少读这么多字符，大小参照 buffered reader
+     */
+    private static final int READ_SIZE = 8192;
+    /**
+     * 行缓存中写进临时文件的行的占位，只比较引用
+     */
+    @SuppressWarnings("StringOperationCanBeSimplified")
+    private static final String SPILLED = new String(new char[0]);
+
     /**
      * 行分隔符的字节数组
      */
@@ -28,18 +50,20 @@ public class AnySeparatorLineIterator implements Iterator<String>, Closeable {
     private final char[] separatorChars;
 
     /**
-     * reader
+     * reader，开启字节过滤时为 null
      */
-    @Nonnull
+    @Nullable
     private final InputStreamReader reader;
     /**
-     * 读取时的字节缓存，大小参照 buffered reader
+     * 开启字节过滤时代替 reader，在字节中切分、过滤，只解码保留的行
      */
-    private char[] charBuffer = new char[8192];
+    @Nullable
+    private final ByteLineReader filteredReader;
     /**
-     * 行构造器
+     * 行缓冲，reader 直接读进来，[0, length) 是还没切分的字符。一行比缓冲长时扩容
      */
-    private StringBuilder lineBuilder = new StringBuilder();
+    private char[] buffer = new char[READ_SIZE << 1];
+    private int length = 0;
     /**
      * 行缓存
      */
@@ -51,23 +75,146 @@ public class AnySeparatorLineIterator implements Iterator<String>, Closeable {
      */
     private boolean readerEOF = false;
     /**
-     * 行构造器中下一行的起始位置
+     * 行缓冲中下一次的查找位置
+     */
+    private int nextFindFrom = 0;
+
+    /**
+     * null: 不统计
      */
-    private int nextLineFrom = 0;
+    @Nullable
+    private final ReadMetrics metrics;
     /**
-     * 行构造器中下一次的查找位置
+     * 统计时才包一层，用来取读取的字节数
      */
-    private int nextFindFrom = 0;
+    @Nullable
+    private final CountingInputStream countingInput;
+
+    /**
+     * 不限制时为 Integer.MAX_VALUE
+     */
+    private final int maxLineLength;
+    @Nonnull
+    private final LineLengthLimit.Policy policy;
+    @Nullable
+    private final LineLengthLimit.SpillHandler spillHandler;
+    @Nullable
+    private final File spillDirectory;
+    /**
+     * buffer[0] 在整个文件中的字符偏移
+     */
+    private long consumed = 0;
+    /**
+     * 已经切出的行数
+     */
+    private long lineCount = 0;
+    /**
+     * 正在读的行已经超长，行缓冲中只保留可能是分隔符开头的最后几个字符
+     */
+    private boolean overflowing = false;
+    /**
+     * {@link LineLengthLimit.Policy#TRUNCATE}: 超长行的前 maxLineLength 个字符
+     */
+    @Nullable
+    private String truncatedLine;
+    /**
+     * {@link LineLengthLimit.Policy#SPILL}: 正在写的临时文件
+     */
+    @Nullable
+    private Spill spill;
+    /**
+     * 已经写完、还没交给 spillHandler 的临时文件，与行缓存中的 {@link #SPILLED} 一一对应
+     */
+    @Nonnull
+    private final ArrayDeque<Spill> spilledLines = new ArrayDeque<>();
 
     public AnySeparatorLineIterator(@Nonnull final String separator,
                                     @Nonnull final File file,
                                     @Nullable final String encoding) throws IOException {
+        this(separator, file, encoding, null);
+    }
+
+    /**
+     * @param metrics 统计字节数、行数，以及解码、查找分隔符的耗时，null 为不统计
+     */
+    public AnySeparatorLineIterator(@Nonnull final String separator,
+                                    @Nonnull final File file,
+                                    @Nullable final String encoding,
+                                    @Nullable final ReadMetrics metrics) throws IOException {
+        this(separator, file, encoding, metrics, null);
+    }
+
+    /**
+     * @param limit 一行的最大长度与超长时的处理方式，null 为不限制
+     */
+    public AnySeparatorLineIterator(@Nonnull final String separator,
+                                    @Nonnull final File file,
+                                    @Nullable final String encoding,
+                                    @Nullable final ReadMetrics metrics,
+                                    @Nullable final LineLengthLimit limit) throws IOException {
+        this(separator, file, encoding, metrics, limit, null);
+    }
+
+    /**
+     * @param filter 在解码之前按行的原始字节过滤，丢弃的行不解码；只支持 UTF-8 与单字节的字符集，
+     *               limit 的 maxLength 按字节计。null 为不过滤
+     * @throws IllegalArgumentException filter 不为 null，字符集不是 UTF-8 也不是单字节的
+     */
+    public AnySeparatorLineIterator(@Nonnull final String separator,
+                                    @Nonnull final File file,
+                                    @Nullable final String encoding,
+                                    @Nullable final ReadMetrics metrics,
+                                    @Nullable final LineLengthLimit limit,
+                                    @Nullable final ByteLineFilter filter) throws IOException {
         if (separator.isEmpty()) {
             throw new IllegalArgumentException("separator is empty");
         }
 
-        reader = new InputStreamReader(FileUtils.openInputStream(file), Charsets.toCharset(encoding));
+        if (limit == null) {
+            maxLineLength = Integer.MAX_VALUE;
+            policy = LineLengthLimit.Policy.FAIL;
+            spillHandler = null;
+            spillDirectory = null;
+        } else {
+            if (limit.getMaxLength() <= 0) {
+                throw new IllegalArgumentException("maxLength <= 0");
+            }
+            if (limit.getPolicy() == LineLengthLimit.Policy.SPILL && limit.getSpillHandler() == null) {
+                throw new IllegalArgumentException("spillHandler is required by SPILL");
+            }
+
+            maxLineLength = limit.getMaxLength();
+            policy = limit.getPolicy();
+            spillHandler = limit.getSpillHandler();
+            spillDirectory = limit.getSpillDirectory();
+        }
+
+        final Charset charset = Charsets.toCharset(encoding);
+
+        if (filter != null) {
+            ByteLineReader.checkCharset(charset);
+        }
+
+        InputStream in = FileUtils.openInputStream(file);
+
+        if (filter != null) {
+            // 字节数由 filteredReader 统计
+            countingInput = null;
+            reader = null;
+            filteredReader = new ByteLineReader(in, charset, separator, filter, metrics, limit);
+        } else {
+            if (metrics != null) {
+                in = countingInput = new CountingInputStream(in);
+            } else {
+                countingInput = null;
+            }
+
+            reader = new InputStreamReader(in, charset);
+            filteredReader = null;
+        }
+
         separatorChars = separator.toCharArray();
+        this.metrics = metrics;
     }
 
     public AnySeparatorLineIterator(@Nonnull final String separator,
@@ -76,54 +223,171 @@ public class AnySeparatorLineIterator implements Iterator<String>, Closeable {
     }
 
     /**
-     * @throws IllegalStateException if read failed
+     * @throws IllegalStateException if read failed, or a line is too long with {@link LineLengthLimit.Policy#FAIL}
      */
     @Override
     public boolean hasNext() {
         final List<String> cachedLines = this.cachedLines;
 
-        if (cachedLines.size() != 0) {
+        if (cachedLines.size() != 0 && cachedLines.get(0) != SPILLED) {
             return true;
         }
-//        if (lineBuilder.length() != 0) {
-//            if (readerEOF) {
-//                return findTheLastLine();
-//            }
-//        }
-        if (readerEOF) {
-            return false;
+        if (filteredReader != null) {
+            return hasNextFiltered();
+        }
+        if (metrics != null) {
+            return hasNextMeasured();
         }
 
-        final InputStreamReader reader = this.reader;
-        final char[] charBuffer = this.charBuffer;
-        final StringBuilder lineBuilder = this.lineBuilder;
+        try {
+            while (true) {
+                if (ready()) {
+                    return true;
+                }
+                if (readerEOF) {
+                    return false;
+                }
+
+                final int n = readChunk();
+
+                if (n < 0) {
+                    readerEOF = true;
+                    findTheLastLine();
+                } else if (n == 0) {
+                    // do nothing
+                } else {
+                    splitChunk();
+                }
+            }
+        } catch (IOException e1) {
+            throw closeOnFailure(e1);
+        }
+    }
+
+    /**
+     * 与 {@link #hasNext()} 的循环一致，按块统计
+     */
+    private boolean hasNextMeasured() {
+        final ReadMetrics metrics = this.metrics;
+        final List<String> cachedLines = this.cachedLines;
 
         try {
             while (true) {
-                final int n = reader.read(charBuffer);
+                if (ready()) {
+                    return true;
+                }
+                if (readerEOF) {
+                    return false;
+                }
+
+                long start = System.nanoTime();
+                final int n = readChunk();
+                long end = System.nanoTime();
+
+                metrics.stageTime(ReadMetrics.Stage.DECODE, end - start);
+                metrics.bytesRead(countingInput.resetByteCount());
 
                 if (n < 0) {
                     readerEOF = true;
-                    return findTheLastLine();
+                    findTheLastLine();
                 } else if (n == 0) {
                     // do nothing
                 } else {
-                    lineBuilder.append(charBuffer, 0, n);
-                    if (findLines()) {
-                        return true;
-                    }
+                    start = end;
+                    splitChunk();
+                    end = System.nanoTime();
+
+                    metrics.stageTime(ReadMetrics.Stage.SEPARATOR_SEARCH, end - start);
+                }
+
+                if (cachedLines.size() != 0) {
+                    metrics.linesRead(cachedLines.size());
                 }
             }
         } catch (IOException e1) {
-            try {
-                close();
-            } catch (IOException e2) {
-                e1.addSuppressed(e2);
+            throw closeOnFailure(e1);
+        }
+    }
+
+    private boolean hasNextFiltered() {
+        if (readerEOF) {
+            return false;
+        }
+
+        try {
+            final String line = filteredReader.readLine();
+
+            if (line != null) {
+                cachedLines.add(line);
+                return true;
             }
-            throw new IllegalStateException(e1);
+
+            readerEOF = true;
+            return false;
+        } catch (IOException e1) {
+            throw closeOnFailure(e1);
         }
     }
 
+    /**
+     * 行缓存开头的超长行依次交给 spillHandler
+     *
+     * @return 行缓存中有可以返回的行
+     */
+    private boolean ready() throws IOException {
+        final List<String> cachedLines = this.cachedLines;
+
+        while (cachedLines.size() != 0) {
+            if (cachedLines.get(0) != SPILLED) {
+                return true;
+            }
+
+            cachedLines.remove(0);
+
+            final Spill spill = spilledLines.poll();
+
+            try (Reader reader = new InputStreamReader(new FileInputStream(spill.file), StandardCharsets.UTF_8)) {
+                spillHandler.handle(reader, spill.offset, spill.length);
+            } finally {
+                FileUtils.deleteQuietly(spill.file);
+            }
+        }
+
+        return false;
+    }
+
+    @Nonnull
+    private IllegalStateException closeOnFailure(@Nonnull IOException e1) {
+        try {
+            close();
+        } catch (IOException e2) {
+            e1.addSuppressed(e2);
+        }
+        return new IllegalStateException(e1);
+    }
+
+    /**
+     * 直接读进行缓冲的末尾，剩余空间不足 {@link #READ_SIZE} 时扩容
+     *
+     * @return 读到的字符数，EOF 时为 -1
+     */
+    private int readChunk() throws IOException {
+        char[] buffer = this.buffer;
+        final int length = this.length;
+
+        if (buffer.length - length < READ_SIZE) {
+            buffer = this.buffer = Arrays.copyOf(buffer, Math.max(buffer.length << 1, length + READ_SIZE));
+        }
+
+        final int n = reader.read(buffer, length, buffer.length - length);
+
+        if (n > 0) {
+            this.length = length + n;
+        }
+
+        return n;
+    }
+
     @Override
     public String next() {
         if (hasNext()) {
@@ -143,90 +407,256 @@ public class AnySeparatorLineIterator implements Iterator<String>, Closeable {
         readerEOF = true;
 
         cachedLines.clear();
-        lineBuilder = null;
-        charBuffer = null;
-        reader.close();
+        buffer = null;
+        length = 0;
+        truncatedLine = null;
+
+        final Spill spill = this.spill;
+
+        if (spill != null) {
+            this.spill = null;
+
+            try {
+                spill.writer.close();
+            } catch (IOException ignored) {
+                // 临时文件马上删除
+            }
+
+            FileUtils.deleteQuietly(spill.file);
+        }
+        for (Spill spilled : spilledLines) {
+            FileUtils.deleteQuietly(spilled.file);
+        }
+
+        spilledLines.clear();
+
+        if (filteredReader != null) {
+            filteredReader.close();
+        } else {
+            reader.close();
+        }
+    }
+
+    /**
+     * 切分刚读进来的块，正在读的行超过 maxLineLength 时按 policy 处理
+     */
+    private void splitChunk() throws IOException {
+        if (overflowing && !continueOverflow()) {
+            return;
+        }
+
+        findLines();
+
+        // 末尾可能是分隔符的前半部分，超出这部分才确定超长
+        if (length - separatorChars.length + 1 > maxLineLength) {
+            beginOverflow();
+        }
     }
 
-    private boolean findLines() {
+    private void findLines() throws IOException {
         final char[] separatorChars = this.separatorChars;
         final int separatorLength = separatorChars.length;
-        final StringBuilder builder = this.lineBuilder;
-        final int builderLength = builder.length();
-        final List<String> cachedLines = this.cachedLines;
+        final char[] buffer = this.buffer;
+        final int length = this.length;
 
-        int lineFrom = nextLineFrom;
+        int lineFrom = 0;
         int findFrom = nextFindFrom;
-        int findTo = builderLength - findFrom;
-        int start;
+        int separatorFrom;
 
-        while ((start = indexOf(builder, findFrom, findTo, separatorChars)) != EOF) {
-            final int separatorFrom = findFrom + start;
-
-            cachedLines.add(builder.substring(lineFrom, separatorFrom));
+        while ((separatorFrom = CharSearch.indexOf(buffer, findFrom, length, separatorChars)) != EOF) {
+            addLine(lineFrom, separatorFrom - lineFrom);
 
             lineFrom = separatorFrom + separatorLength;
             findFrom = lineFrom;
-            findTo = builderLength - findFrom;
         }
 
-        if (lineFrom != nextLineFrom) { // found
-            nextLineFrom = 0;
+        if (lineFrom != 0) { // found
             nextFindFrom = 0;
-            builder.delete(0, lineFrom); // compact
-            return true;
+            discard(lineFrom); // compact
         } else { // not found
-            // NO change next line from
-            nextFindFrom = (builderLength > separatorLength) ? (builderLength - separatorLength + 1) : 0;
+            // 分隔符可能跨块，下次从可能的起始位置开始找
+            nextFindFrom = (length > separatorLength) ? (length - separatorLength + 1) : 0;
             // NO compact
-            return false;
         }
     }
 
-    private boolean findTheLastLine() {
-        if (lineBuilder.length() != 0) {
-            cachedLines.add(lineBuilder.toString());
-            return true;
+    private void findTheLastLine() throws IOException {
+        if (overflowing) {
+            if (spill != null) {
+                writeSpill(0, length);
+            }
+
+            discard(length);
+            endOverflow();
+        } else if (length != 0) {
+            addLine(0, length);
+            discard(length);
+        }
+    }
+
+    private void addLine(final int from, final int lineLength) throws IOException {
+        if (lineLength <= maxLineLength) {
+            cachedLines.add(new String(buffer, from, lineLength));
         } else {
+            // 整行都在行缓冲中，只是比 maxLineLength 长
+            switch (policy) {
+                case FAIL:
+                    throw lineTooLong(consumed + from);
+                case TRUNCATE:
+                    cachedLines.add(new String(buffer, from, maxLineLength));
+                    break;
+                default:
+                    startSpill(consumed + from);
+                    writeSpill(from, lineLength);
+                    finishSpill();
+                    break;
+            }
+        }
+
+        ++lineCount;
+    }
+
+    /**
+     * 正在读的行 [0, length) 中没有分隔符，去掉末尾可能是分隔符的部分后仍然超长
+     */
+    private void beginOverflow() throws IOException {
+        switch (policy) {
+            case FAIL:
+                throw lineTooLong(consumed);
+            case TRUNCATE:
+                truncatedLine = new String(buffer, 0, maxLineLength);
+                break;
+            default:
+                startSpill(consumed);
+                break;
+        }
+
+        overflowing = true;
+        dropPending();
+    }
+
+    /**
+     * @return 超长行已经结束，行缓冲中剩下的是之后的行
+     */
+    private boolean continueOverflow() throws IOException {
+        final int separatorFrom = CharSearch.indexOf(buffer, 0, length, separatorChars);
+
+        if (separatorFrom == EOF) {
+            dropPending();
             return false;
         }
+        if (spill != null) {
+            writeSpill(0, separatorFrom);
+        }
+
+        discard(separatorFrom + separatorChars.length);
+        endOverflow();
+        return true;
+    }
+
+    private void endOverflow() throws IOException {
+        if (spill != null) {
+            finishSpill();
+        } else {
+            cachedLines.add(truncatedLine);
+            truncatedLine = null;
+        }
+
+        overflowing = false;
+        ++lineCount;
+    }
+
+    /**
+     * 超长行中没有分隔符的部分丢弃（SPILL 时先写进临时文件），只保留可能是分隔符开头的最后 separatorLength - 1 个字符
+     */
+    private void dropPending() throws IOException {
+        final int dropped = length - Math.min(length, separatorChars.length - 1);
+
+        if (spill != null) {
+            writeSpill(0, dropped);
+        }
+
+        discard(dropped);
+        nextFindFrom = 0;
     }
 
     /**
-     * @see String#indexOf(char[], int, int, char[], int, int, int)
+     * 丢弃行缓冲开头的 n 个字符
      */
-    private static int indexOf(@Nonnull final CharSequence source, final int sourceOffset, final int sourceCount,
-                               @Nonnull final char[] target) {
-        int targetCount = target.length;
+    private void discard(final int n) {
+        System.arraycopy(buffer, n, buffer, 0, length - n);
+        length -= n;
+        consumed += n;
+    }
+
+    private void startSpill(final long offset) throws IOException {
+        final File file = File.createTempFile("line-", ".spill", spillDirectory);
 
-        if (0 >= sourceCount) {
-            return (targetCount == 0 ? sourceCount : -1);
+        try {
+            spill = new Spill(file, offset, new OutputStreamWriter(new FileOutputStream(file), StandardCharsets.UTF_8));
+        } catch (IOException e) {
+            FileUtils.deleteQuietly(file);
+            throw e;
         }
-        if (targetCount == 0) {
-            return 0;
+    }
+
+    private void writeSpill(final int from, final int n) throws IOException {
+        final Spill spill = this.spill;
+
+        spill.writer.write(buffer, from, n);
+        spill.length += n;
+    }
+
+    private void finishSpill() throws IOException {
+        final Spill spill = this.spill;
+
+        this.spill = null;
+
+        try {
+            spill.writer.close();
+        } catch (IOException e) {
+            FileUtils.deleteQuietly(spill.file);
+            throw e;
         }
 
-        char first = target[0];
-        int max = sourceOffset + (sourceCount - targetCount);
+        spilledLines.add(spill);
+        cachedLines.add(SPILLED);
+    }
 
-        for (int i = sourceOffset; i <= max; i++) {
-            /* Look for first character. */
-            if (source.charAt(i) != first) {
-                while (++i <= max && source.charAt(i) != first) ;
-            }
+    @Nonnull
+    private IllegalStateException lineTooLong(final long offset) {
+        final IllegalStateException e = new IllegalStateException("Line " + (lineCount + 1) + " at char offset " + offset
+                + " is longer than " + maxLineLength + " chars");
 
-            /* Found first character, now look at the rest of v2 */
-            if (i <= max) {
-                int j = i + 1;
-                int end = j + targetCount - 1;
-                for (int k = 1; j < end && source.charAt(j) == target[k]; j++, k++) ;
+        try {
+            close();
+        } catch (IOException e2) {
+            e.addSuppressed(e2);
+        }
+        return e;
+    }
 
-                if (j == end) {
-                    /* Found whole string. */
-                    return i - sourceOffset;
-                }
-            }
+    /**
+     * 写进临时文件的超长行
+     */
+    private static final class Spill {
+        @Nonnull
+        final File file;
+        /**
+         * 行首的字符偏移
+         */
+        final long offset;
+        @Nonnull
+        final Writer writer;
+        /**
+         * 已经写入的字符数
+         */
+        long length;
+
+        Spill(@Nonnull File file, long offset, @Nonnull Writer writer) {
+            this.file = file;
+            this.offset = offset;
+            this.writer = writer;
         }
-        return -1;
     }
 }
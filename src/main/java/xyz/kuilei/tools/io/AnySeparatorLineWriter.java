@@ -0,0 +1,485 @@
+package xyz.kuilei.tools.io;
+
+import org.apache.commons.io.Charsets;
+
+import javax.annotation.Nonnull;
+import javax.annotation.Nullable;
+import java.io.Closeable;
+import java.io.File;
+import java.io.Flushable;
+import java.io.IOException;
+import java.io.InterruptedIOException;
+import java.nio.ByteBuffer;
+import java.nio.CharBuffer;
+import java.nio.channels.Channels;
+import java.nio.channels.FileChannel;
+import java.nio.charset.CharacterCodingException;
+import java.nio.charset.Charset;
+import java.nio.charset.CharsetEncoder;
+import java.nio.charset.CoderResult;
+import java.nio.charset.CodingErrorAction;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.StandardOpenOption;
+import java.util.Arrays;
+import java.util.Iterator;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.zip.GZIPOutputStream;
+
+/**
+ * {@link AnySeparatorLineIterator} 的反方向：每行之后写一个任意的分隔符
+ * <p>
+ * 1. 行的字符分批拷进 char[] 再编码，编码结果直接进可复用的 byte[]，编码器走数组的快速路径，UTF-8 不经过编码器直接写字节；
+ * 2. 分隔符只编码一次，每行之后拷贝字节；
+ * 3. 字节缓冲分成 {@link #BUFFER_COUNT} 块，都写满了才用一次 gathering write 写进 FileChannel；
+ * 4. gzip 时压缩在后台线程进行，调用者编码下一块的同时压缩上一块，块在两个线程之间循环使用，内存有上限。
+ * <p>
+ * 行中不能含有分隔符，否则读回来时会被切开。
+ * <p>
+ * NOTE: 非线程安全
+ *
+ * @author JiaKun Xu, 2026-10-20 03:02:51
+ */
+public class AnySeparatorLineWriter implements Closeable, Flushable {
+    public static final int DEFAULT_BUFFER_SIZE = 1 << 20;
+    /**
+     * 字节缓冲的块数
+     */
+    static final int BUFFER_COUNT = 4;
+
+    private static final AtomicInteger THREAD_ID = new AtomicInteger();
+
+    @Nonnull
+    private final CharsetEncoder encoder;
+    /**
+     * UTF-8 不经过 encoder，直接写进字节块
+     */
+    private final boolean utf8;
+    @Nonnull
+    private final byte[] separator;
+    /**
+     * BOM 等开头的字节，第一行之前写出，没有行时文件为空
+     */
+    @Nullable
+    private byte[] head;
+    /**
+     * 待编码的字符
+     */
+    @Nonnull
+    private final CharBuffer chars = CharBuffer.allocate(8192);
+    /**
+     * 正在写的字节块
+     */
+    @Nonnull
+    private ByteBuffer bytes;
+    @Nonnull
+    private final Sink sink;
+    private boolean closed;
+
+    public AnySeparatorLineWriter(@Nonnull String separator, @Nonnull File file, @Nullable String encoding) throws IOException {
+        this(separator, file, encoding, DEFAULT_BUFFER_SIZE, false);
+    }
+
+    /**
+     * @param bufferSize 字节缓冲的总大小，分成 {@link #BUFFER_COUNT} 块
+     * @param gzip       是否在后台线程 gzip 压缩
+     */
+    public AnySeparatorLineWriter(@Nonnull String separator, @Nonnull File file, @Nullable String encoding,
+                                  int bufferSize, boolean gzip) throws IOException {
+        if (separator.isEmpty()) {
+            throw new IllegalArgumentException("separator is empty");
+        }
+        if (bufferSize / BUFFER_COUNT < 1024) {
+            throw new IllegalArgumentException("bufferSize < " + (BUFFER_COUNT * 1024));
+        }
+
+        final Charset charset = Charsets.toCharset(encoding);
+
+        this.encoder = newEncoder(charset);
+        this.utf8 = StandardCharsets.UTF_8.equals(charset);
+        this.separator = encodeSeparator(charset, separator);
+
+        final ByteBuffer[] buffers = new ByteBuffer[BUFFER_COUNT];
+
+        for (int i = 0; i < BUFFER_COUNT; ++i) {
+            buffers[i] = ByteBuffer.allocate(bufferSize / BUFFER_COUNT);
+        }
+
+        final FileChannel channel = FileChannel.open(file.toPath(),
+                StandardOpenOption.CREATE, StandardOpenOption.WRITE, StandardOpenOption.TRUNCATE_EXISTING);
+
+        try {
+            this.sink = gzip ? new GzipSink(channel, buffers) : new ChannelSink(channel, buffers);
+        } catch (IOException | RuntimeException e) {
+            channel.close();
+            throw e;
+        }
+
+        this.bytes = buffers[0];
+        this.head = encodeHead(separator);
+    }
+
+    public void writeLine(@Nonnull String line) throws IOException {
+        ensureOpen();
+
+        if (head != null) {
+            put(head);
+            head = null;
+        }
+        if (utf8) {
+            encodeUtf8(line);
+            put(separator);
+            return;
+        }
+
+        final CharBuffer chars = this.chars;
+        final char[] array = chars.array();
+        final int length = line.length();
+        int off = 0;
+
+        do {
+            final int position = chars.position();
+            final int n = Math.min(length - off, chars.remaining());
+
+            line.getChars(off, off + n, array, position);
+            chars.position(position + n);
+            off += n;
+            encode();
+        } while (off < length);
+
+        if (chars.position() != 0) {
+            // 行尾是落单的高代理，与 CodingErrorAction.REPLACE 一样替换掉，不能留到下一行
+            chars.clear();
+            put(encoder.replacement());
+        }
+
+        put(separator);
+    }
+
+    public void writeLines(@Nonnull Iterator<String> lines) throws IOException {
+        while (lines.hasNext()) {
+            writeLine(lines.next());
+        }
+    }
+
+    /**
+     * 已经写的行全部交给 channel（gzip 时等后台线程压缩完），不强制刷盘
+     */
+    @Override
+    public void flush() throws IOException {
+        ensureOpen();
+        bytes = sink.swap(bytes, true);
+    }
+
+    @Override
+    public void close() throws IOException {
+        if (closed) {
+            return;
+        }
+
+        closed = true;
+
+        try {
+            chars.flip();
+
+            while (encoder.encode(chars, bytes, true) == CoderResult.OVERFLOW) {
+                bytes = sink.swap(bytes, false);
+            }
+            while (encoder.flush(bytes) == CoderResult.OVERFLOW) {
+                bytes = sink.swap(bytes, false);
+            }
+
+            sink.swap(bytes, true);
+        } finally {
+            sink.close();
+        }
+    }
+
+    /**
+     * 把 {@link #chars} 中的字符编码进 {@link #bytes}，块满了就交出去，不完整的代理对留到下一次
+     */
+    private void encode() throws IOException {
+        final CharBuffer chars = this.chars;
+        chars.flip();
+
+        while (encoder.encode(chars, bytes, false) == CoderResult.OVERFLOW) {
+            bytes = sink.swap(bytes, false);
+        }
+
+        chars.compact();
+    }
+
+    /**
+     * 与 JDK 的 UTF-8 encoder 结果相同，落单的代理替换成 '?'；一块最多 3 倍字节，不够就换下一块
+     */
+    private void encodeUtf8(@Nonnull String line) throws IOException {
+        final char[] array = chars.array();
+        final int length = line.length();
+        int off = 0;
+
+        while (off < length) {
+            int n = Math.min(Math.min(length - off, array.length), bytes.capacity() / 3);
+
+            // 代理对不能被拆开
+            if (n > 1 && off + n < length && Character.isHighSurrogate(line.charAt(off + n - 1))) {
+                --n;
+            }
+            if (bytes.remaining() < n * 3) {
+                bytes = sink.swap(bytes, false);
+            }
+
+            line.getChars(off, off + n, array, 0);
+            off += n;
+
+            final byte[] dst = bytes.array();
+            int p = bytes.arrayOffset() + bytes.position();
+
+            for (int i = 0; i < n; ++i) {
+                final char c = array[i];
+
+                if (c < 0x80) {
+                    dst[p++] = (byte) c;
+                } else if (c < 0x800) {
+                    dst[p++] = (byte) (0xc0 | (c >> 6));
+                    dst[p++] = (byte) (0x80 | (c & 0x3f));
+                } else if (Character.isSurrogate(c)) {
+                    final char low;
+
+                    if (Character.isHighSurrogate(c) && i + 1 < n && Character.isLowSurrogate(low = array[i + 1])) {
+                        final int cp = Character.toCodePoint(c, low);
+                        dst[p++] = (byte) (0xf0 | (cp >> 18));
+                        dst[p++] = (byte) (0x80 | ((cp >> 12) & 0x3f));
+                        dst[p++] = (byte) (0x80 | ((cp >> 6) & 0x3f));
+                        dst[p++] = (byte) (0x80 | (cp & 0x3f));
+                        ++i;
+                    } else {
+                        dst[p++] = '?';
+                    }
+                } else {
+                    dst[p++] = (byte) (0xe0 | (c >> 12));
+                    dst[p++] = (byte) (0x80 | ((c >> 6) & 0x3f));
+                    dst[p++] = (byte) (0x80 | (c & 0x3f));
+                }
+            }
+
+            bytes.position(p - bytes.arrayOffset());
+        }
+    }
+
+    private void put(@Nonnull byte[] src) throws IOException {
+        if (bytes.remaining() < src.length) {
+            bytes = sink.swap(bytes, false);
+        }
+
+        bytes.put(src);
+    }
+
+    /**
+     * 让编码器先输出 BOM 等开头的字节，之后编码的行不再带它，否则第一行为空时分隔符会写在 BOM 之前
+     */
+    @Nullable
+    private byte[] encodeHead(@Nonnull String separator) {
+        final ByteBuffer head = ByteBuffer.allocate((int) Math.ceil(encoder.maxBytesPerChar() * separator.length()) + 16);
+
+        encoder.encode(CharBuffer.wrap(separator), head, false);
+
+        final int length = head.position() - this.separator.length;
+        return (length > 0) ? Arrays.copyOf(head.array(), length) : null;
+    }
+
+    private void ensureOpen() throws IOException {
+        if (closed) {
+            throw new IOException("Stream closed");
+        }
+    }
+
+    @Nonnull
+    private static CharsetEncoder newEncoder(@Nonnull Charset charset) {
+        return charset.newEncoder()
+                .onMalformedInput(CodingErrorAction.REPLACE)
+                .onUnmappableCharacter(CodingErrorAction.REPLACE);
+    }
+
+    /**
+     * 编码 separator + separator，取后一半：有的字符集（UTF-16）在开头写 BOM，分隔符的字节不能带上它
+     */
+    @Nonnull
+    private static byte[] encodeSeparator(@Nonnull Charset charset, @Nonnull String separator) throws CharacterCodingException {
+        final ByteBuffer once = newEncoder(charset).encode(CharBuffer.wrap(separator));
+        final ByteBuffer twice = newEncoder(charset).encode(CharBuffer.wrap(separator + separator));
+        return Arrays.copyOfRange(twice.array(), twice.arrayOffset() + once.limit(), twice.arrayOffset() + twice.limit());
+    }
+
+    /**
+     * 字节块的去处
+     */
+    private interface Sink extends Closeable {
+        /**
+         * @param filled 写满的块，flush 时可以不满
+         * @param flush  是否把之前交出的块全部写出
+         * @return 下一个空的块
+         */
+        @Nonnull
+        ByteBuffer swap(@Nonnull ByteBuffer filled, boolean flush) throws IOException;
+    }
+
+    /**
+     * 块按顺序写满，全部写满时一次 gathering write
+     */
+    private static final class ChannelSink implements Sink {
+        @Nonnull
+        private final FileChannel channel;
+        @Nonnull
+        private final ByteBuffer[] buffers;
+        /**
+         * 正在写的块
+         */
+        private int index = 0;
+
+        ChannelSink(@Nonnull FileChannel channel, @Nonnull ByteBuffer[] buffers) {
+            this.channel = channel;
+            this.buffers = buffers;
+        }
+
+        @Nonnull
+        @Override
+        public ByteBuffer swap(@Nonnull ByteBuffer filled, boolean flush) throws IOException {
+            final ByteBuffer[] buffers = this.buffers;
+
+            if (!flush && index + 1 < buffers.length) {
+                return buffers[++index];
+            }
+
+            final int count = index + 1;
+            long remaining = 0;
+
+            for (int i = 0; i < count; ++i) {
+                remaining += buffers[i].flip().remaining();
+            }
+            while (remaining > 0) {
+                remaining -= channel.write(buffers, 0, count);
+            }
+            for (int i = 0; i < count; ++i) {
+                buffers[i].clear();
+            }
+
+            index = 0;
+            return buffers[0];
+        }
+
+        @Override
+        public void close() throws IOException {
+            channel.close();
+        }
+    }
+
+    /**
+     * 写满的块交给后台线程压缩，压缩完放回 free。free 为空时调用者等待，最多 {@link #BUFFER_COUNT} 块在途
+     */
+    private static final class GzipSink implements Sink {
+        @Nonnull
+        private final FileChannel channel;
+        @Nonnull
+        private final ExecutorService executor;
+        @Nonnull
+        private final GZIPOutputStream gzip;
+        @Nonnull
+        private final ArrayBlockingQueue<ByteBuffer> free = new ArrayBlockingQueue<>(BUFFER_COUNT);
+        /**
+         * 后台线程的第一个异常，调用者下一次 swap 时抛出
+         */
+        @Nullable
+        private volatile IOException failure;
+
+        GzipSink(@Nonnull FileChannel channel, @Nonnull ByteBuffer[] buffers) throws IOException {
+            this.channel = channel;
+            this.gzip = new GZIPOutputStream(Channels.newOutputStream(channel), 1 << 16, true);
+
+            // buffers[0] 是调用者的第一块
+            for (int i = 1; i < buffers.length; ++i) {
+                free.add(buffers[i]);
+            }
+
+            this.executor = Executors.newSingleThreadExecutor(r -> {
+                final Thread thread = new Thread(r, "line-writer-gzip-" + THREAD_ID.incrementAndGet());
+                thread.setDaemon(true);
+                return thread;
+            });
+        }
+
+        @Nonnull
+        @Override
+        public ByteBuffer swap(@Nonnull ByteBuffer filled, boolean flush) throws IOException {
+            checkFailure();
+            filled.flip();
+
+            executor.execute(() -> {
+                try {
+                    if (failure == null) {
+                        gzip.write(filled.array(), filled.arrayOffset(), filled.limit());
+                    }
+                } catch (IOException e) {
+                    failure = e;
+                } finally {
+                    filled.clear();
+                    free.add(filled);
+                }
+            });
+
+            if (flush) {
+                await(() -> {
+                    gzip.flush();
+                    return null;
+                });
+            }
+
+            try {
+                return free.take();
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                throw new InterruptedIOException();
+            }
+        }
+
+        @Override
+        public void close() throws IOException {
+            try {
+                // 写 gzip 的尾部，关闭 channel
+                await(() -> {
+                    gzip.close();
+                    return null;
+                });
+            } finally {
+                executor.shutdownNow();
+                // gzip 写尾部失败时不会关闭 channel
+                channel.close();
+            }
+        }
+
+        private void await(@Nonnull Callable<Void> task) throws IOException {
+            try {
+                executor.submit(task).get();
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                throw new InterruptedIOException();
+            } catch (ExecutionException e) {
+                final Throwable cause = e.getCause();
+                throw (cause instanceof IOException) ? (IOException) cause : new IOException(cause);
+            }
+
+            checkFailure();
+        }
+
+        private void checkFailure() throws IOException {
+            final IOException failure = this.failure;
+
+            if (failure != null) {
+                throw new IOException("gzip failed", failure);
+            }
+        }
+    }
+}
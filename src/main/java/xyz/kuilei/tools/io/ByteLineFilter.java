@@ -0,0 +1,60 @@
+package xyz.kuilei.tools.io;
+
+import javax.annotation.Nonnull;
+import java.nio.charset.Charset;
+
+/**
+ * 在解码之前按行的原始字节过滤，丢弃的行不会被解码、分配 String，也不会交给 {@link LineReplacer}
+ * <p>
+ * 只支持 UTF-8 与单字节的字符集：这些字符集中分隔符与字面量的字节不会出现在其他字符的编码中间，按字节匹配与按字符匹配的结果相同。
+ *
+ * @author JiaKun Xu, 2026-10-20 02:03:18
+ * @see AnySeparatorLineIterator#AnySeparatorLineIterator(String, java.io.File, String, xyz.kuilei.tools.metrics.ReadMetrics, LineLengthLimit, ByteLineFilter)
+ * @see ReplacedLineReader#ReplacedLineReader(LineReplacer, java.io.File, String, xyz.kuilei.tools.metrics.ReadMetrics, ByteLineFilter)
+ */
+@FunctionalInterface
+public interface ByteLineFilter {
+    /**
+     * @param bytes 行缓冲，只能读 [from, to)，不能保留引用
+     * @param from  行首，包含
+     * @param to    行尾，不包含，不含分隔符
+     * @return 是否保留这一行
+     */
+    boolean accept(@Nonnull byte[] bytes, int from, int to);
+
+    /**
+     * 行中包含 literal
+     */
+    @Nonnull
+    static ByteLineFilter contains(@Nonnull String literal, @Nonnull Charset charset) {
+        final byte[] target = literal.getBytes(charset);
+
+        if (target.length == 0) {
+            return (bytes, from, to) -> true;
+        }
+
+        return (bytes, from, to) -> ByteLineReader.indexOf(bytes, from, to, target) != -1;
+    }
+
+    /**
+     * 行以 prefix 开头
+     */
+    @Nonnull
+    static ByteLineFilter startsWith(@Nonnull String prefix, @Nonnull Charset charset) {
+        final byte[] target = prefix.getBytes(charset);
+
+        return (bytes, from, to) -> {
+            if (to - from < target.length) {
+                return false;
+            }
+
+            for (int i = 0; i < target.length; ++i) {
+                if (bytes[from + i] != target[i]) {
+                    return false;
+                }
+            }
+
+            return true;
+        };
+    }
+}
@@ -0,0 +1,578 @@
+package xyz.kuilei.tools.io;
+
+import org.apache.commons.io.FileUtils;
+import xyz.kuilei.tools.metrics.ReadMetrics;
+
+import javax.annotation.Nonnull;
+import javax.annotation.Nullable;
+import java.io.Closeable;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.io.OutputStream;
+import java.io.Reader;
+import java.nio.charset.Charset;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayDeque;
+import java.util.Arrays;
+import java.util.LinkedList;
+import java.util.List;
+
+import static org.apache.commons.io.IOUtils.EOF;
+
+/**
+ * 按字节切分行，先用 {@link ByteLineFilter} 过滤，只解码保留的行
+ * <p>
+ * 开启过滤时 {@link AnySeparatorLineIterator} 与 {@link ReplacedLineReader} 用它代替 InputStreamReader：
+ * 1. 分隔符按字符集编码为字节，在字节中查找；separator 为 null 时与 BufferedReader#readLine 相同，\n、\r、\r\n 都是行尾；
+ * 2. 行长度上限按字节计，TRUNCATE 截断在字符边界上，SPILL 的行不经过过滤，原始字节写进临时文件。
+ * <p>
+ * NOTE: 非线程安全
+ *
+ * @author JiaKun Xu, 2026-10-20 02:11:46
+ */
+final class ByteLineReader implements Closeable {
+    /**
+     * 每次至少读这么多字节
+     */
+    private static final int READ_SIZE = 8192;
+    /**
+     * 行缓存中写进临时文件的行的占位，只比较引用
+     */
+    @SuppressWarnings("StringOperationCanBeSimplified")
+    private static final String SPILLED = new String(new char[0]);
+
+    @Nonnull
+    private final InputStream in;
+    @Nonnull
+    private final Charset charset;
+    private final boolean utf8;
+    /**
+     * null: \n、\r、\r\n
+     */
+    @Nullable
+    private final byte[] separator;
+    private final int separatorLength;
+    @Nonnull
+    private final ByteLineFilter filter;
+    @Nullable
+    private final ReadMetrics metrics;
+
+    private final int maxLineLength;
+    @Nonnull
+    private final LineLengthLimit.Policy policy;
+    @Nullable
+    private final LineLengthLimit.SpillHandler spillHandler;
+    @Nullable
+    private final File spillDirectory;
+
+    private byte[] buffer = new byte[READ_SIZE << 1];
+    private int length = 0;
+    private int nextFindFrom = 0;
+    /**
+     * 上一行以块末尾的 \r 结束，下一个字节是 \n 时跳过
+     */
+    private boolean skipLF = false;
+    private boolean eof = false;
+
+    /**
+     * buffer[0] 在整个文件中的字节偏移
+     */
+    private long consumed = 0;
+    /**
+     * 已经切出的行数，包括丢弃的
+     */
+    private long lineCount = 0;
+    /**
+     * 本块保留、丢弃的行数，统计用
+     */
+    private long accepted = 0;
+    private long rejected = 0;
+
+    @Nonnull
+    private final List<String> lines = new LinkedList<>();
+
+    private boolean overflowing = false;
+    /**
+     * TRUNCATE: 超长行截断后的结果，被过滤掉时为 null
+     */
+    @Nullable
+    private String truncatedLine;
+    @Nullable
+    private Spill spill;
+    @Nonnull
+    private final ArrayDeque<Spill> spilledLines = new ArrayDeque<>();
+
+    /**
+     * @param separator null: \n、\r、\r\n
+     * @param limit     null 为不限制
+     * @throws IllegalArgumentException 字符集不是 UTF-8 也不是单字节的
+     */
+    ByteLineReader(@Nonnull InputStream in, @Nonnull Charset charset, @Nullable String separator,
+                   @Nonnull ByteLineFilter filter, @Nullable ReadMetrics metrics, @Nullable LineLengthLimit limit) {
+        checkCharset(charset);
+
+        this.in = in;
+        this.charset = charset;
+        this.utf8 = charset.equals(StandardCharsets.UTF_8);
+        this.separator = (separator == null) ? null : separator.getBytes(charset);
+        this.separatorLength = (separator == null) ? 1 : this.separator.length;
+        this.filter = filter;
+        this.metrics = metrics;
+
+        if (limit == null) {
+            maxLineLength = Integer.MAX_VALUE;
+            policy = LineLengthLimit.Policy.FAIL;
+            spillHandler = null;
+            spillDirectory = null;
+        } else {
+            maxLineLength = limit.getMaxLength();
+            policy = limit.getPolicy();
+            spillHandler = limit.getSpillHandler();
+            spillDirectory = limit.getSpillDirectory();
+        }
+    }
+
+    static void checkCharset(@Nonnull Charset charset) {
+        if (!charset.equals(StandardCharsets.UTF_8) && charset.newEncoder().maxBytesPerChar() != 1) {
+            throw new IllegalArgumentException("ByteLineFilter requires UTF-8 or a single-byte charset, got " + charset);
+        }
+    }
+
+    /**
+     * @return 下一个保留的行，null if EOF
+     * @throws IllegalStateException a line is too long with {@link LineLengthLimit.Policy#FAIL}
+     */
+    @Nullable
+    String readLine() throws IOException {
+        final List<String> lines = this.lines;
+        final ReadMetrics metrics = this.metrics;
+
+        while (true) {
+            if (ready()) {
+                return lines.remove(0);
+            }
+            if (eof) {
+                return null;
+            }
+
+            final int n = readChunk();
+            final long start = (metrics == null) ? 0 : System.nanoTime();
+
+            if (n < 0) {
+                eof = true;
+                findTheLastLine();
+            } else if (n == 0) {
+                continue;
+            } else {
+                splitChunk();
+            }
+
+            if (metrics != null) {
+                metrics.stageTime(ReadMetrics.Stage.SEPARATOR_SEARCH, System.nanoTime() - start);
+                metrics.bytesRead(Math.max(n, 0));
+                metrics.linesRead(accepted);
+                metrics.linesFiltered(rejected);
+                accepted = 0;
+                rejected = 0;
+            }
+        }
+    }
+
+    @Override
+    public void close() throws IOException {
+        eof = true;
+
+        lines.clear();
+        buffer = null;
+        length = 0;
+        truncatedLine = null;
+
+        final Spill spill = this.spill;
+
+        if (spill != null) {
+            this.spill = null;
+
+            try {
+                spill.out.close();
+            } catch (IOException ignored) {
+                // 临时文件马上删除
+            }
+
+            FileUtils.deleteQuietly(spill.file);
+        }
+        for (Spill spilled : spilledLines) {
+            FileUtils.deleteQuietly(spilled.file);
+        }
+
+        spilledLines.clear();
+        in.close();
+    }
+
+    /**
+     * @see String#indexOf(char[], int, int, char[], int, int, int)
+     */
+    static int indexOf(@Nonnull final byte[] source, final int from, final int to, @Nonnull final byte[] target) {
+        final int targetCount = target.length;
+        final byte first = target[0];
+        final int max = to - targetCount;
+
+        for (int i = from; i <= max; i++) {
+            /* Look for first byte. */
+            if (source[i] != first) {
+                while (++i <= max && source[i] != first) ;
+            }
+
+            /* Found first byte, now look at the rest of v2 */
+            if (i <= max) {
+                int j = i + 1;
+                int end = j + targetCount - 1;
+                for (int k = 1; j < end && source[j] == target[k]; j++, k++) ;
+
+                if (j == end) {
+                    /* Found whole array. */
+                    return i;
+                }
+            }
+        }
+        return -1;
+    }
+
+    /**
+     * 行缓存开头的超长行依次交给 spillHandler
+     */
+    private boolean ready() throws IOException {
+        final List<String> lines = this.lines;
+
+        while (lines.size() != 0) {
+            if (lines.get(0) != SPILLED) {
+                return true;
+            }
+
+            lines.remove(0);
+
+            final Spill spill = spilledLines.poll();
+
+            try (Reader reader = new InputStreamReader(new FileInputStream(spill.file), charset)) {
+                spillHandler.handle(reader, spill.offset, spill.length);
+            } finally {
+                FileUtils.deleteQuietly(spill.file);
+            }
+        }
+
+        return false;
+    }
+
+    private int readChunk() throws IOException {
+        byte[] buffer = this.buffer;
+        final int length = this.length;
+
+        if (buffer.length - length < READ_SIZE) {
+            buffer = this.buffer = Arrays.copyOf(buffer, Math.max(buffer.length << 1, length + READ_SIZE));
+        }
+
+        final int n = in.read(buffer, length, buffer.length - length);
+
+        if (n > 0) {
+            this.length = length + n;
+        }
+
+        return n;
+    }
+
+    private void splitChunk() throws IOException {
+        if (skipLF) {
+            skipLF = false;
+
+            if (buffer[0] == '\n') {
+                discard(1);
+            }
+        }
+        if (overflowing && !continueOverflow()) {
+            return;
+        }
+
+        findLines();
+
+        // 末尾可能是分隔符的前半部分，超出这部分才确定超长
+        if (length - separatorLength + 1 > maxLineLength) {
+            beginOverflow();
+        }
+    }
+
+    /**
+     * @return 分隔符的起始位置，EOF if not found
+     */
+    private int findSeparator(final int from) {
+        final byte[] separator = this.separator;
+
+        if (separator != null) {
+            return indexOf(buffer, from, length, separator);
+        }
+
+        final byte[] buffer = this.buffer;
+
+        for (int i = from, n = length; i < n; ++i) {
+            final byte b = buffer[i];
+
+            if (b == '\n' || b == '\r') {
+                return i;
+            }
+        }
+
+        return EOF;
+    }
+
+    /**
+     * @return 分隔符之后的位置
+     */
+    private int skipSeparator(final int separatorFrom) {
+        if (separator == null && buffer[separatorFrom] == '\r') {
+            if (separatorFrom + 1 == length) {
+                skipLF = true;
+            } else if (buffer[separatorFrom + 1] == '\n') {
+                return separatorFrom + 2;
+            }
+        }
+
+        return separatorFrom + separatorLength;
+    }
+
+    private void findLines() throws IOException {
+        final int length = this.length;
+
+        int lineFrom = 0;
+        int findFrom = nextFindFrom;
+        int separatorFrom;
+
+        while ((separatorFrom = findSeparator(findFrom)) != EOF) {
+            addLine(lineFrom, separatorFrom - lineFrom);
+
+            lineFrom = skipSeparator(separatorFrom);
+            findFrom = lineFrom;
+        }
+
+        if (lineFrom != 0) { // found
+            nextFindFrom = 0;
+            discard(lineFrom);
+        } else { // not found
+            // 分隔符可能跨块，下次从可能的起始位置开始找
+            nextFindFrom = (length > separatorLength) ? (length - separatorLength + 1) : 0;
+        }
+    }
+
+    private void findTheLastLine() throws IOException {
+        if (overflowing) {
+            if (spill != null) {
+                writeSpill(0, length);
+            }
+
+            discard(length);
+            endOverflow();
+        } else if (length != 0) {
+            addLine(0, length);
+            discard(length);
+        }
+    }
+
+    private void addLine(final int from, final int lineLength) throws IOException {
+        ++lineCount;
+
+        if (lineLength <= maxLineLength) {
+            if (filter.accept(buffer, from, from + lineLength)) {
+                lines.add(new String(buffer, from, lineLength, charset));
+                ++accepted;
+            } else {
+                ++rejected;
+            }
+            return;
+        }
+
+        switch (policy) {
+            case FAIL:
+                throw lineTooLong(consumed + from);
+            case TRUNCATE:
+                final String truncated = truncate(from);
+
+                if (truncated != null) {
+                    lines.add(truncated);
+                }
+                break;
+            default:
+                startSpill(consumed + from);
+                writeSpill(from, lineLength);
+                finishSpill();
+                break;
+        }
+    }
+
+    /**
+     * 截断到 maxLineLength 个字节以内的字符边界，再过滤
+     *
+     * @return null if rejected
+     */
+    @Nullable
+    private String truncate(final int from) {
+        int cut = maxLineLength;
+
+        if (utf8) {
+            // 10xxxxxx 是多字节字符的后续字节
+            while (cut > 0 && (buffer[from + cut] & 0xC0) == 0x80) {
+                --cut;
+            }
+        }
+
+        if (filter.accept(buffer, from, from + cut)) {
+            ++accepted;
+            return new String(buffer, from, cut, charset);
+        }
+
+        ++rejected;
+        return null;
+    }
+
+    /**
+     * 正在读的行 [0, length) 中没有分隔符，去掉末尾可能是分隔符的部分后仍然超长
+     */
+    private void beginOverflow() throws IOException {
+        ++lineCount;
+
+        switch (policy) {
+            case FAIL:
+                throw lineTooLong(consumed);
+            case TRUNCATE:
+                truncatedLine = truncate(0);
+                break;
+            default:
+                startSpill(consumed);
+                break;
+        }
+
+        overflowing = true;
+        dropPending();
+    }
+
+    /**
+     * @return 超长行已经结束，行缓冲中剩下的是之后的行
+     */
+    private boolean continueOverflow() throws IOException {
+        final int separatorFrom = findSeparator(0);
+
+        if (separatorFrom == EOF) {
+            dropPending();
+            return false;
+        }
+        if (spill != null) {
+            writeSpill(0, separatorFrom);
+        }
+
+        discard(skipSeparator(separatorFrom));
+        endOverflow();
+        return true;
+    }
+
+    private void endOverflow() throws IOException {
+        if (spill != null) {
+            finishSpill();
+        } else if (truncatedLine != null) {
+            lines.add(truncatedLine);
+            truncatedLine = null;
+        }
+
+        overflowing = false;
+    }
+
+    /**
+     * 超长行中没有分隔符的部分丢弃（SPILL 时先写进临时文件），只保留可能是分隔符开头的最后 separatorLength - 1 个字节
+     */
+    private void dropPending() throws IOException {
+        final int dropped = length - Math.min(length, separatorLength - 1);
+
+        if (spill != null) {
+            writeSpill(0, dropped);
+        }
+
+        discard(dropped);
+        nextFindFrom = 0;
+    }
+
+    private void discard(final int n) {
+        System.arraycopy(buffer, n, buffer, 0, length - n);
+        length -= n;
+        consumed += n;
+    }
+
+    private void startSpill(final long offset) throws IOException {
+        final File file = File.createTempFile("line-", ".spill", spillDirectory);
+
+        try {
+            spill = new Spill(file, offset, new FileOutputStream(file));
+        } catch (IOException e) {
+            FileUtils.deleteQuietly(file);
+            throw e;
+        }
+    }
+
+    private void writeSpill(final int from, final int n) throws IOException {
+        final Spill spill = this.spill;
+
+        spill.out.write(buffer, from, n);
+        spill.length += n;
+    }
+
+    private void finishSpill() throws IOException {
+        final Spill spill = this.spill;
+
+        this.spill = null;
+
+        try {
+            spill.out.close();
+        } catch (IOException e) {
+            FileUtils.deleteQuietly(spill.file);
+            throw e;
+        }
+
+        spilledLines.add(spill);
+        lines.add(SPILLED);
+    }
+
+    @Nonnull
+    private IllegalStateException lineTooLong(final long offset) {
+        final IllegalStateException e = new IllegalStateException("Line " + lineCount + " at byte offset " + offset
+                + " is longer than " + maxLineLength + " bytes");
+
+        try {
+            close();
+        } catch (IOException e2) {
+            e.addSuppressed(e2);
+        }
+        return e;
+    }
+
+    /**
+     * 写进临时文件的超长行，原始字节
+     */
+    private static final class Spill {
+        @Nonnull
+        final File file;
+        /**
+         * 行首的字节偏移
+         */
+        final long offset;
+        @Nonnull
+        final OutputStream out;
+        /**
+         * 已经写入的字节数
+         */
+        long length;
+
+        Spill(@Nonnull File file, long offset, @Nonnull OutputStream out) {
+            this.file = file;
+            this.offset = offset;
+            this.out = out;
+        }
+    }
+}
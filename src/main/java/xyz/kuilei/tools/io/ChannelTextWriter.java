@@ -0,0 +1,191 @@
+package xyz.kuilei.tools.io;
+
+import org.apache.commons.io.Charsets;
+
+import javax.annotation.Nonnull;
+import javax.annotation.Nullable;
+import java.io.File;
+import java.io.IOException;
+import java.io.Writer;
+import java.nio.ByteBuffer;
+import java.nio.CharBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.CharsetEncoder;
+import java.nio.charset.CoderResult;
+import java.nio.charset.CodingErrorAction;
+import java.nio.file.StandardOpenOption;
+
+/**
+ * 直接把字符编码进一块大的 direct buffer，满了整块写进 FileChannel。
+ * <p>
+ * 与 BufferedWriter + OutputStreamWriter 相比：没有中间的 byte[] 拷贝，每次系统调用写的数据多得多，内存只有这两块 buffer。
+ * <p>
+ * NOTE: 非线程安全
+ *
+ * @author JiaKun Xu, 2026-10-19 18:20:44
+ */
+public class ChannelTextWriter extends Writer {
+    public static final int DEFAULT_BUFFER_SIZE = 1 << 20;
+
+    @Nonnull
+    private final FileChannel channel;
+    @Nonnull
+    private final CharsetEncoder encoder;
+    /**
+     * 待编码的字符，满了才编码，整批编码比逐个字符串编码快
+     */
+    @Nonnull
+    private final CharBuffer chars;
+    /**
+     * 编码结果，满了才写
+     */
+    @Nonnull
+    private final ByteBuffer bytes;
+    private boolean closed;
+
+    /**
+     * @param bufferSize 字节缓冲的大小
+     */
+    public ChannelTextWriter(@Nonnull File file, @Nullable String encoding, int bufferSize) throws IOException {
+        if (bufferSize < 1024) {
+            throw new IllegalArgumentException("bufferSize < 1024");
+        }
+
+        this.encoder = Charsets.toCharset(encoding).newEncoder()
+                .onMalformedInput(CodingErrorAction.REPLACE)
+                .onUnmappableCharacter(CodingErrorAction.REPLACE);
+        this.chars = CharBuffer.allocate(8192);
+        this.bytes = ByteBuffer.allocateDirect(bufferSize);
+        this.channel = FileChannel.open(file.toPath(), StandardOpenOption.CREATE, StandardOpenOption.WRITE, StandardOpenOption.TRUNCATE_EXISTING);
+    }
+
+    public ChannelTextWriter(@Nonnull File file, @Nullable String encoding) throws IOException {
+        this(file, encoding, DEFAULT_BUFFER_SIZE);
+    }
+
+    @Override
+    public void write(int c) throws IOException {
+        final CharBuffer chars = this.chars;
+
+        if (!chars.hasRemaining()) {
+            encode(false);
+        }
+
+        chars.put((char) c);
+    }
+
+    @Override
+    public void write(@Nonnull char[] cbuf, int off, int len) throws IOException {
+        final CharBuffer chars = this.chars;
+
+        while (len > 0) {
+            if (!chars.hasRemaining()) {
+                encode(false);
+            }
+
+            final int n = Math.min(len, chars.remaining());
+
+            chars.put(cbuf, off, n);
+            off += n;
+            len -= n;
+        }
+    }
+
+    @Override
+    public void write(@Nonnull String str, int off, int len) throws IOException {
+        final CharBuffer chars = this.chars;
+        final char[] array = chars.array();
+
+        while (len > 0) {
+            if (!chars.hasRemaining()) {
+                encode(false);
+            }
+
+            final int n = Math.min(len, chars.remaining());
+            final int position = chars.position();
+
+            str.getChars(off, off + n, array, position);
+            chars.position(position + n);
+            off += n;
+            len -= n;
+        }
+    }
+
+    @Override
+    public Writer append(@Nullable CharSequence csq) throws IOException {
+        final String str = String.valueOf(csq);
+
+        write(str, 0, str.length());
+        return this;
+    }
+
+    /**
+     * 编码已有的字符并写到 channel，不强制刷盘
+     */
+    @Override
+    public void flush() throws IOException {
+        ensureOpen();
+        encode(false);
+        writeBytes();
+    }
+
+    @Override
+    public void close() throws IOException {
+        if (closed) {
+            return;
+        }
+
+        try {
+            encode(true);
+
+            while (encoder.flush(bytes) == CoderResult.OVERFLOW) {
+                writeBytes();
+            }
+
+            writeBytes();
+        } finally {
+            closed = true;
+            channel.close();
+        }
+    }
+
+    /**
+     * 把 {@link #chars} 中的字符全部编码进 {@link #bytes}，bytes 满了就写出去。
+     * 不完整的代理对留到下一次
+     */
+    private void encode(boolean endOfInput) throws IOException {
+        ensureOpen();
+
+        final CharBuffer chars = this.chars;
+        chars.flip();
+
+        while (true) {
+            final CoderResult result = encoder.encode(chars, bytes, endOfInput);
+
+            if (result.isOverflow()) {
+                writeBytes();
+            } else {
+                break;  // underflow，malformed / unmappable 已经被替换
+            }
+        }
+
+        chars.compact();
+    }
+
+    private void writeBytes() throws IOException {
+        final ByteBuffer bytes = this.bytes;
+        bytes.flip();
+
+        while (bytes.hasRemaining()) {
+            channel.write(bytes);
+        }
+
+        bytes.clear();
+    }
+
+    private void ensureOpen() throws IOException {
+        if (closed) {
+            throw new IOException("Stream closed");
+        }
+    }
+}
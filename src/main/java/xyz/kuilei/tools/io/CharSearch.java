@@ -0,0 +1,49 @@
+package xyz.kuilei.tools.io;
+
+import javax.annotation.Nonnull;
+
+/**
+ * 在 char[] 中查找子串
+ * <p>
+ * 这是 Java 8 的标量实现。multi-release jar 在 17 以上的 JVM 上用 META-INF/versions/17 中的同名类替换，
+ * 启动参数带 --add-modules jdk.incubator.vector 时按向量比较首尾字符，见 src/main/java17。
+ *
+ * @author JiaKun Xu, 2026-10-19 23:41:26
+ */
+final class CharSearch {
+    private CharSearch() {
+    }
+
+    /**
+     * @param from   包含
+     * @param to     不包含，target 必须整个在 [from, to) 中
+     * @param target not empty
+     * @return target 在 source 中的下标（不是相对 from 的），-1 if not found
+     * @see String#indexOf(char[], int, int, char[], int, int, int)
+     */
+    static int indexOf(@Nonnull final char[] source, final int from, final int to, @Nonnull final char[] target) {
+        final int targetCount = target.length;
+        final char first = target[0];
+        final int max = to - targetCount;
+
+        for (int i = from; i <= max; i++) {
+            /* Look for first character. */
+            if (source[i] != first) {
+                while (++i <= max && source[i] != first) ;
+            }
+
+            /* Found first character, now look at the rest of v2 */
+            if (i <= max) {
+                int j = i + 1;
+                int end = j + targetCount - 1;
+                for (int k = 1; j < end && source[j] == target[k]; j++, k++) ;
+
+                if (j == end) {
+                    /* Found whole string. */
+                    return i;
+                }
+            }
+        }
+        return -1;
+    }
+}
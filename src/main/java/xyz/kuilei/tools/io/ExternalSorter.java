@@ -0,0 +1,960 @@
+package xyz.kuilei.tools.io;
+
+import lombok.Getter;
+import lombok.Setter;
+import lombok.experimental.Accessors;
+import org.apache.commons.io.FileUtils;
+
+import javax.annotation.Nonnull;
+import javax.annotation.Nullable;
+import java.io.BufferedOutputStream;
+import java.io.Closeable;
+import java.io.EOFException;
+import java.io.File;
+import java.io.IOException;
+import java.io.InterruptedIOException;
+import java.io.OutputStream;
+import java.nio.ByteBuffer;
+import java.nio.channels.AsynchronousFileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * 外部排序：按键排序（可选去重）{@link AnySeparatorLineIterator} 能读的文件，内存有上限，输入可以远大于堆
+ * <p>
+ * 1. 行读进紧凑的 byte[]（每个字符 1 ~ 3 字节，与 UTF-8 一样保序），另外只有每行几个 int 与键的前 8 字节，不为每行保留 String；
+ * 2. 内存分成 parallelism + 1 块，读满一块就交给线程池排序、写成临时的有序段，读文件与排序同时进行；
+ * 3. 有序段多于 maxFanIn 时先在线程池中分组归并，最后一次 k 路归并直接写目标文件，每个段读两块、一块在用一块预读；
+ * 4. 排序是稳定的，去重时每个键保留输入中第一次出现的行。
+ * <p>
+ * 键按字符比较，与 String#compareTo 相同。输入能整个放进一块内存时不写临时文件。
+ *
+ * @author JiaKun Xu, 2026-10-20 04:17:25
+ */
+@Getter
+@Setter
+@Accessors(chain = true)
+public class ExternalSorter {
+    /**
+     * 每行在内存中除了字节之外的开销：起始位置、键长、行长、键的前缀与下标，以及排序时它们的副本
+     */
+    static final int RECORD_OVERHEAD = 4 + 4 + 4 + (8 + 4) * 2;
+
+    private static final int MIN_BLOCK_SIZE = 1 << 16;
+    private static final int MAX_BLOCK_SIZE = 1 << 23;
+    private static final AtomicInteger THREAD_ID = new AtomicInteger();
+
+    /**
+     * 输入、输出的行分隔符
+     */
+    @Nonnull
+    private String separator = "\n";
+
+    /**
+     * null: 默认字符集
+     */
+    @Nullable
+    private String encoding = null;
+
+    /**
+     * 排序键，默认整行
+     */
+    @Nonnull
+    private SortKey key = SortKey.LINE;
+
+    /**
+     * 同一个键只保留第一次出现的行
+     */
+    private boolean distinct = false;
+
+    /**
+     * 排序与归并的内存上限（字节）
+     */
+    private long maxMemory = 64L << 20;
+
+    /**
+     * 同时排序的块数
+     */
+    private int parallelism = Runtime.getRuntime().availableProcessors();
+
+    /**
+     * 一次最多归并这么多个有序段
+     */
+    private int maxFanIn = 64;
+
+    /**
+     * 有序段的目录
+     * <p>
+     * null: java.io.tmpdir
+     */
+    @Nullable
+    private File tempDirectory = null;
+
+    /**
+     * @return 写进 target 的行数
+     */
+    public long sort(@Nonnull File source, @Nonnull File target) throws IOException {
+        if (separator.isEmpty()) {
+            throw new IllegalArgumentException("separator is empty");
+        }
+        if (maxMemory < (1 << 20)) {
+            throw new IllegalArgumentException("maxMemory < 1 MB");
+        }
+        if (parallelism < 1) {
+            throw new IllegalArgumentException("parallelism < 1");
+        }
+        if (maxFanIn < 2) {
+            throw new IllegalArgumentException("maxFanIn < 2");
+        }
+
+        final Path directory = Files.createTempDirectory(
+                (tempDirectory == null) ? Paths.get(System.getProperty("java.io.tmpdir")) : tempDirectory.toPath(), "external-sort-");
+        final ExecutorService executor = Executors.newFixedThreadPool(parallelism, r -> {
+            final Thread thread = new Thread(r, "external-sort-" + THREAD_ID.incrementAndGet());
+            thread.setDaemon(true);
+            return thread;
+        });
+
+        try {
+            return new Job(directory, executor).run(source, target);
+        } finally {
+            executor.shutdownNow();
+
+            // 出错时排序线程可能还在写有序段，等它们退出再删目录，否则会留下删除之后才创建的文件
+            try {
+                executor.awaitTermination(1, TimeUnit.MINUTES);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+
+            FileUtils.deleteQuietly(directory.toFile());
+        }
+    }
+
+    /**
+     * 从行中取出排序键
+     */
+    @FunctionalInterface
+    public interface SortKey {
+        /**
+         * 整行
+         */
+        SortKey LINE = line -> line;
+
+        /**
+         * @return 键，返回 line 本身时不重复保存
+         */
+        @Nonnull
+        String of(@Nonnull String line);
+
+        /**
+         * 以 delimiter 分隔的第 index 个字段（从 0 开始），字段不够时为空串
+         */
+        @Nonnull
+        static SortKey field(@Nonnull String delimiter, int index) {
+            if (delimiter.isEmpty()) {
+                throw new IllegalArgumentException("delimiter is empty");
+            }
+            if (index < 0) {
+                throw new IllegalArgumentException("index < 0");
+            }
+
+            return line -> {
+                int from = 0;
+
+                for (int i = 0; i < index; ++i) {
+                    final int found = line.indexOf(delimiter, from);
+
+                    if (found == -1) {
+                        return "";
+                    }
+
+                    from = found + delimiter.length();
+                }
+
+                final int to = line.indexOf(delimiter, from);
+                return line.substring(from, (to == -1) ? line.length() : to);
+            };
+        }
+    }
+
+    /**
+     * 一次排序的状态
+     */
+    private final class Job {
+        @Nonnull
+        private final Path directory;
+        @Nonnull
+        private final ExecutorService executor;
+        private final AtomicInteger runId = new AtomicInteger();
+        /**
+         * 排序线程的第一个异常，读文件的线程换块时抛出
+         */
+        @Nullable
+        private volatile Throwable failure;
+
+        private Job(@Nonnull Path directory, @Nonnull ExecutorService executor) {
+            this.directory = directory;
+            this.executor = executor;
+        }
+
+        private long run(@Nonnull File source, @Nonnull File target) throws IOException {
+            final int arenas = parallelism + 1;
+            final int budget = (int) Math.min(maxMemory / arenas, Integer.MAX_VALUE - 64);
+            final ArrayBlockingQueue<Run> free = new ArrayBlockingQueue<>(arenas);
+            final List<Future<Path>> futures = new ArrayList<>();
+            final SortKey key = ExternalSorter.this.key;
+            Run run = new Run(budget);
+            int created = 1;
+
+            try (AnySeparatorLineIterator lines = new AnySeparatorLineIterator(separator, source, encoding)) {
+                while (lines.hasNext()) {
+                    final String line = lines.next();
+                    run.add(key.of(line), line);
+
+                    if (run.isFull()) {
+                        futures.add(submit(run, free));
+
+                        if (created < arenas) {
+                            run = new Run(budget);
+                            ++created;
+                        } else {
+                            run = take(free);
+                        }
+                    }
+                }
+            }
+
+            if (futures.isEmpty()) {
+                // 整个放得下，不写临时文件
+                run.sort();
+
+                try (AnySeparatorLineWriter writer = new AnySeparatorLineWriter(separator, target, encoding)) {
+                    return run.writeLines(writer, distinct);
+                }
+            }
+
+            if (run.count != 0) {
+                futures.add(submit(run, free));
+            }
+
+            final List<Path> runs = getAll(futures);
+
+            // 排序用的内存还给 GC，归并的预读块也在 maxMemory 之内
+            run = null;
+            free.clear();
+
+            return merge(runs, target);
+        }
+
+        @Nonnull
+        private Future<Path> submit(@Nonnull Run run, @Nonnull ArrayBlockingQueue<Run> free) {
+            return executor.submit(() -> {
+                try {
+                    run.sort();
+
+                    final Path path = nextRunPath();
+
+                    try (OutputStream out = new BufferedOutputStream(Files.newOutputStream(path), MIN_BLOCK_SIZE)) {
+                        run.writeRecords(out, distinct);
+                    }
+
+                    return path;
+                } catch (Throwable e) {
+                    if (failure == null) {
+                        failure = e;
+                    }
+                    throw e;
+                } finally {
+                    run.clear();
+                    free.add(run);
+                }
+            });
+        }
+
+        @Nonnull
+        private Run take(@Nonnull ArrayBlockingQueue<Run> free) throws IOException {
+            final Run run;
+
+            try {
+                run = free.take();
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                throw new InterruptedIOException();
+            }
+
+            final Throwable failure = this.failure;
+
+            if (failure != null) {
+                throw (failure instanceof IOException) ? (IOException) failure : new IOException(failure);
+            }
+
+            return run;
+        }
+
+        /**
+         * 多于 maxFanIn 个时，相邻的段分组并行归并成新的段，直到能一次归并
+         */
+        private long merge(@Nonnull List<Path> runs, @Nonnull File target) throws IOException {
+            while (runs.size() > maxFanIn) {
+                final int groups = (runs.size() + maxFanIn - 1) / maxFanIn;
+                final int groupSize = (runs.size() + groups - 1) / groups;
+                final int blockSize = blockSize(groupSize, Math.min(parallelism, groups));
+                final List<Future<Path>> merged = new ArrayList<>(groups);
+
+                for (int from = 0; from < runs.size(); from += groupSize) {
+                    final List<Path> group = runs.subList(from, Math.min(from + groupSize, runs.size()));
+
+                    merged.add(executor.submit(() -> {
+                        final Path path = nextRunPath();
+
+                        try (OutputStream out = new BufferedOutputStream(Files.newOutputStream(path), MIN_BLOCK_SIZE)) {
+                            merge(group, blockSize, reader -> reader.writeRecord(out));
+                        }
+
+                        return path;
+                    }));
+                }
+
+                runs = getAll(merged);
+            }
+
+            try (AnySeparatorLineWriter writer = new AnySeparatorLineWriter(separator, target, encoding)) {
+                final char[][] chars = {new char[256]};
+
+                return merge(runs, blockSize(runs.size(), 1), reader -> {
+                    if (chars[0].length < reader.lineLength) {
+                        chars[0] = new char[reader.lineLength];
+                    }
+
+                    writer.writeLine(decode(reader.record, reader.lineOffset, reader.lineLength, chars[0]));
+                });
+            }
+        }
+
+        /**
+         * k 路归并，键相同时先输出前面的段；读完的段被删除
+         */
+        private long merge(@Nonnull List<Path> runs, int blockSize, @Nonnull RecordSink sink) throws IOException {
+            final RunReader[] heap = new RunReader[runs.size()];
+            final List<RunReader> readers = new ArrayList<>(runs.size());
+            final boolean distinct = ExternalSorter.this.distinct;
+            byte[] last = new byte[256];
+            int lastLength = -1;
+            long count = 0;
+
+            try {
+                int size = 0;
+
+                for (int i = 0; i < runs.size(); ++i) {
+                    final RunReader reader = new RunReader(runs.get(i), blockSize, i);
+                    readers.add(reader);
+
+                    if (reader.next()) {
+                        heap[size++] = reader;
+                    }
+                }
+                for (int i = (size >>> 1) - 1; i >= 0; --i) {
+                    siftDown(heap, size, i);
+                }
+
+                while (size != 0) {
+                    final RunReader top = heap[0];
+
+                    if (!distinct || lastLength == -1
+                            || compare(top.record, top.keyOffset, top.keyLength, last, 0, lastLength) != 0) {
+                        sink.write(top);
+                        ++count;
+
+                        if (distinct) {
+                            if (last.length < top.keyLength) {
+                                last = new byte[top.keyLength];
+                            }
+
+                            System.arraycopy(top.record, top.keyOffset, last, 0, top.keyLength);
+                            lastLength = top.keyLength;
+                        }
+                    }
+
+                    if (!top.next()) {
+                        heap[0] = heap[--size];
+                        heap[size] = null;
+                    }
+
+                    siftDown(heap, size, 0);
+                }
+
+                return count;
+            } finally {
+                for (RunReader reader : readers) {
+                    reader.close();
+                }
+                for (Path run : runs) {
+                    Files.deleteIfExists(run);
+                }
+            }
+        }
+
+        /**
+         * 每个段两块，总共不超过 maxMemory
+         */
+        private int blockSize(int fanIn, int concurrent) {
+            final long size = maxMemory / (2L * fanIn * concurrent);
+            return (int) Math.max(MIN_BLOCK_SIZE, Math.min(MAX_BLOCK_SIZE, size));
+        }
+
+        @Nonnull
+        private Path nextRunPath() {
+            return directory.resolve("run-" + runId.incrementAndGet() + ".bin");
+        }
+    }
+
+    @Nonnull
+    private static <T> List<T> getAll(@Nonnull List<Future<T>> futures) throws IOException {
+        final List<T> results = new ArrayList<>(futures.size());
+
+        try {
+            for (Future<T> future : futures) {
+                results.add(future.get());
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new InterruptedIOException();
+        } catch (ExecutionException e) {
+            final Throwable cause = e.getCause();
+
+            if (cause instanceof IOException) {
+                throw (IOException) cause;
+            }
+            if (cause instanceof RuntimeException) {
+                throw (RuntimeException) cause;
+            }
+            if (cause instanceof Error) {
+                throw (Error) cause;
+            }
+
+            throw new IOException(cause);
+        }
+
+        return results;
+    }
+
+    private static void siftDown(@Nonnull RunReader[] heap, int size, int i) {
+        final RunReader reader = heap[i];
+
+        while (true) {
+            int child = (i << 1) + 1;
+
+            if (child >= size) {
+                break;
+            }
+            if (child + 1 < size && heap[child + 1].compareTo(heap[child]) < 0) {
+                ++child;
+            }
+            if (reader.compareTo(heap[child]) <= 0) {
+                break;
+            }
+
+            heap[i] = heap[child];
+            i = child;
+        }
+
+        heap[i] = reader;
+    }
+
+    /**
+     * 无符号逐字节比较，编码保序，结果与按字符比较相同
+     */
+    static int compare(@Nonnull byte[] a, int aOffset, int aLength, @Nonnull byte[] b, int bOffset, int bLength) {
+        final int n = Math.min(aLength, bLength);
+
+        for (int i = 0; i < n; ++i) {
+            final int d = (a[aOffset + i] & 0xff) - (b[bOffset + i] & 0xff);
+
+            if (d != 0) {
+                return d;
+            }
+        }
+
+        return aLength - bLength;
+    }
+
+    /**
+     * 每个字符独立编码：&lt; 0x80 1 字节，&lt; 0x800 2 字节，其余（含落单的代理）3 字节。无损，字节序与字符序相同
+     */
+    static int encodedLength(@Nonnull String s) {
+        final int length = s.length();
+        int n = length;
+
+        for (int i = 0; i < length; ++i) {
+            final char c = s.charAt(i);
+
+            if (c >= 0x80) {
+                n += (c < 0x800) ? 1 : 2;
+            }
+        }
+
+        return n;
+    }
+
+    static int encode(@Nonnull String s, @Nonnull byte[] dst, int p) {
+        for (int i = 0, length = s.length(); i < length; ++i) {
+            final char c = s.charAt(i);
+
+            if (c < 0x80) {
+                dst[p++] = (byte) c;
+            } else if (c < 0x800) {
+                dst[p++] = (byte) (0xc0 | (c >> 6));
+                dst[p++] = (byte) (0x80 | (c & 0x3f));
+            } else {
+                dst[p++] = (byte) (0xe0 | (c >> 12));
+                dst[p++] = (byte) (0x80 | ((c >> 6) & 0x3f));
+                dst[p++] = (byte) (0x80 | (c & 0x3f));
+            }
+        }
+
+        return p;
+    }
+
+    /**
+     * @param chars 至少 length 个字符
+     */
+    @Nonnull
+    static String decode(@Nonnull byte[] src, int offset, int length, @Nonnull char[] chars) {
+        final int end = offset + length;
+        int n = 0;
+
+        for (int p = offset; p < end; ) {
+            final int b = src[p++] & 0xff;
+
+            if (b < 0x80) {
+                chars[n++] = (char) b;
+            } else if (b < 0xe0) {
+                chars[n++] = (char) (((b & 0x1f) << 6) | (src[p++] & 0x3f));
+            } else {
+                chars[n++] = (char) (((b & 0x0f) << 12) | ((src[p++] & 0x3f) << 6) | (src[p++] & 0x3f));
+            }
+        }
+
+        return new String(chars, 0, n);
+    }
+
+    private static void writeVarint(@Nonnull OutputStream out, int value) throws IOException {
+        while ((value & ~0x7f) != 0) {
+            out.write((value & 0x7f) | 0x80);
+            value >>>= 7;
+        }
+
+        out.write(value);
+    }
+
+    /**
+     * 归并的输出
+     */
+    @FunctionalInterface
+    private interface RecordSink {
+        void write(@Nonnull RunReader reader) throws IOException;
+    }
+
+    /**
+     * 内存中的一块：行的字节连续存放，每行的位置、长度在 int[] 中
+     * <p>
+     * 键与行不同时先存键再存行，keyCodes 为键长 + 1；键就是行时为 0，不重复存。
+     * 段文件中每行是 varint(keyCode)、varint(行长)、键与行的字节。
+     */
+    private static final class Run {
+        private final int budget;
+
+        private byte[] data;
+        private int size = 0;
+
+        private int[] starts = new int[1024];
+        private int[] keyCodes = new int[1024];
+        private int[] lineLengths = new int[1024];
+        /**
+         * 键的前 8 字节，大端，不足补 0，与 order 一起排序，大多数比较不用访问 data
+         */
+        private long[] prefixes = new long[1024];
+        /**
+         * 排序后第 n 行的下标
+         */
+        private int[] order = new int[1024];
+        private int count = 0;
+
+        private long[] tempPrefixes = new long[0];
+        private int[] tempOrder = new int[0];
+
+        private Run(int budget) {
+            this.budget = budget;
+            this.data = new byte[Math.min(budget, 1 << 16)];
+        }
+
+        private void add(@Nonnull String key, @Nonnull String line) {
+            final boolean same = key == line;
+            final int keyLength = same ? 0 : encodedLength(key);
+            final int lineLength = encodedLength(line);
+            final long needed = (long) size + keyLength + lineLength;
+
+            if (needed > Integer.MAX_VALUE - 8) {
+                throw new IllegalStateException("Line is too long to sort: " + lineLength + " bytes");
+            }
+            if (needed > data.length) {
+                final long grown = Math.min(Math.max((long) data.length << 1, needed), Math.max(budget, needed));
+                data = Arrays.copyOf(data, (int) grown);
+            }
+            if (count == starts.length) {
+                final int grown = count + (count >> 1);
+                starts = Arrays.copyOf(starts, grown);
+                keyCodes = Arrays.copyOf(keyCodes, grown);
+                lineLengths = Arrays.copyOf(lineLengths, grown);
+                prefixes = Arrays.copyOf(prefixes, grown);
+                order = Arrays.copyOf(order, grown);
+            }
+
+            final int start = size;
+
+            if (!same) {
+                size = encode(key, data, size);
+            }
+            size = encode(line, data, size);
+
+            starts[count] = start;
+            keyCodes[count] = same ? 0 : keyLength + 1;
+            lineLengths[count] = lineLength;
+            prefixes[count] = prefix(data, start, same ? lineLength : keyLength);
+            order[count] = count;
+            ++count;
+        }
+
+        private boolean isFull() {
+            return size + (long) count * RECORD_OVERHEAD >= budget;
+        }
+
+        private void clear() {
+            size = 0;
+            count = 0;
+        }
+
+        /**
+         * 稳定的归并排序，排 (前缀, 下标)
+         */
+        private void sort() {
+            if (tempOrder.length < count) {
+                tempPrefixes = new long[count];
+                tempOrder = new int[count];
+            }
+
+            sort(0, count);
+        }
+
+        private void sort(int from, int to) {
+            final long[] prefixes = this.prefixes;
+            final int[] order = this.order;
+
+            if (to - from <= 16) {
+                for (int i = from + 1; i < to; ++i) {
+                    final long p = prefixes[i];
+                    final int x = order[i];
+                    int j = i - 1;
+
+                    while (j >= from && compare(prefixes[j], order[j], p, x) > 0) {
+                        prefixes[j + 1] = prefixes[j];
+                        order[j + 1] = order[j];
+                        --j;
+                    }
+
+                    prefixes[j + 1] = p;
+                    order[j + 1] = x;
+                }
+
+                return;
+            }
+
+            final int mid = (from + to) >>> 1;
+
+            sort(from, mid);
+            sort(mid, to);
+
+            if (compare(prefixes[mid - 1], order[mid - 1], prefixes[mid], order[mid]) <= 0) {
+                return;
+            }
+
+            final long[] tempPrefixes = this.tempPrefixes;
+            final int[] tempOrder = this.tempOrder;
+
+            System.arraycopy(prefixes, from, tempPrefixes, from, to - from);
+            System.arraycopy(order, from, tempOrder, from, to - from);
+
+            int i = from;
+            int j = mid;
+            int k = from;
+
+            while (i < mid && j < to) {
+                if (compare(tempPrefixes[j], tempOrder[j], tempPrefixes[i], tempOrder[i]) < 0) {
+                    prefixes[k] = tempPrefixes[j];
+                    order[k++] = tempOrder[j++];
+                } else {
+                    prefixes[k] = tempPrefixes[i];
+                    order[k++] = tempOrder[i++];
+                }
+            }
+
+            System.arraycopy(tempPrefixes, i, prefixes, k, mid - i);
+            System.arraycopy(tempOrder, i, order, k, mid - i);
+        }
+
+        private int compare(long xPrefix, int x, long yPrefix, int y) {
+            final int c = Long.compareUnsigned(xPrefix, yPrefix);
+            return (c != 0) ? c : compareKeys(x, y);
+        }
+
+        private int compareKeys(int x, int y) {
+            return ExternalSorter.compare(data, starts[x], keyLength(x), data, starts[y], keyLength(y));
+        }
+
+        private int keyLength(int i) {
+            final int code = keyCodes[i];
+            return (code == 0) ? lineLengths[i] : code - 1;
+        }
+
+        /**
+         * 按顺序写成段文件，distinct 时跳过与前一行键相同的行
+         */
+        private void writeRecords(@Nonnull OutputStream out, boolean distinct) throws IOException {
+            int previous = -1;
+
+            for (int n = 0; n < count; ++n) {
+                final int i = order[n];
+
+                if (distinct && previous != -1 && compareKeys(previous, i) == 0) {
+                    continue;
+                }
+
+                final int code = keyCodes[i];
+
+                writeVarint(out, code);
+                writeVarint(out, lineLengths[i]);
+                out.write(data, starts[i], ((code == 0) ? 0 : code - 1) + lineLengths[i]);
+                previous = i;
+            }
+        }
+
+        private long writeLines(@Nonnull AnySeparatorLineWriter writer, boolean distinct) throws IOException {
+            char[] chars = new char[256];
+            int previous = -1;
+            long lines = 0;
+
+            for (int n = 0; n < count; ++n) {
+                final int i = order[n];
+
+                if (distinct && previous != -1 && compareKeys(previous, i) == 0) {
+                    continue;
+                }
+
+                final int code = keyCodes[i];
+                final int lineLength = lineLengths[i];
+
+                if (chars.length < lineLength) {
+                    chars = new char[lineLength];
+                }
+
+                writer.writeLine(decode(data, starts[i] + ((code == 0) ? 0 : code - 1), lineLength, chars));
+                previous = i;
+                ++lines;
+            }
+
+            return lines;
+        }
+
+        private static long prefix(@Nonnull byte[] data, int from, int length) {
+            long prefix = 0;
+
+            for (int i = 0; i < 8; ++i) {
+                prefix = (prefix << 8) | ((i < length) ? (data[from + i] & 0xff) : 0);
+            }
+
+            return prefix;
+        }
+    }
+
+    /**
+     * 顺序读一个段文件：两块轮流使用，处理一块的同时异步读下一块
+     */
+    private static final class RunReader implements Closeable, Comparable<RunReader> {
+        /**
+         * 段的顺序，键相同时小的先输出，保证稳定
+         */
+        private final int index;
+        @Nonnull
+        private final AsynchronousFileChannel channel;
+        private long position = 0;
+        @Nonnull
+        private ByteBuffer current;
+        @Nonnull
+        private ByteBuffer ahead;
+        /**
+         * 对 ahead 的预读，null: 读完了
+         */
+        @Nullable
+        private Future<Integer> pending;
+
+        /**
+         * 当前行：键与行的字节
+         */
+        @Nonnull
+        private byte[] record = new byte[256];
+        private int keyCode;
+        /**
+         * 键的前 8 字节，同 {@link Run#prefixes}
+         */
+        private long prefix;
+        private int keyOffset;
+        private int keyLength;
+        private int lineOffset;
+        private int lineLength;
+
+        private RunReader(@Nonnull Path path, int blockSize, int index) throws IOException {
+            this.index = index;
+            this.channel = AsynchronousFileChannel.open(path, StandardOpenOption.READ);
+            this.current = ByteBuffer.allocate(blockSize);
+            this.current.flip();
+            this.ahead = ByteBuffer.allocate(blockSize);
+            this.pending = channel.read(ahead, 0);
+        }
+
+        /**
+         * @return 是否读到了下一行
+         */
+        private boolean next() throws IOException {
+            if (!fill()) {
+                return false;
+            }
+
+            final int code = readVarint();
+            final int length = readVarint();
+            final int keyBytes = (code == 0) ? 0 : code - 1;
+
+            if (record.length < keyBytes + length) {
+                record = new byte[Math.max(keyBytes + length, record.length << 1)];
+            }
+
+            readFully(record, keyBytes + length);
+
+            keyCode = code;
+            keyOffset = 0;
+            keyLength = (code == 0) ? length : keyBytes;
+            prefix = Run.prefix(record, 0, keyLength);
+            lineOffset = keyBytes;
+            lineLength = length;
+            return true;
+        }
+
+        private void writeRecord(@Nonnull OutputStream out) throws IOException {
+            writeVarint(out, keyCode);
+            writeVarint(out, lineLength);
+            out.write(record, 0, lineOffset + lineLength);
+        }
+
+        @Override
+        public int compareTo(@Nonnull RunReader other) {
+            int c = Long.compareUnsigned(prefix, other.prefix);
+
+            if (c == 0) {
+                c = compare(record, keyOffset, keyLength, other.record, other.keyOffset, other.keyLength);
+            }
+
+            return (c != 0) ? c : Integer.compare(index, other.index);
+        }
+
+        /**
+         * @return current 中是否还有字节
+         */
+        private boolean fill() throws IOException {
+            while (!current.hasRemaining()) {
+                final Future<Integer> pending = this.pending;
+
+                if (pending == null) {
+                    return false;
+                }
+
+                final int n = await(pending);
+
+                if (n < 0) {
+                    this.pending = null;
+                    return false;
+                }
+
+                position += n;
+
+                final ByteBuffer filled = ahead;
+                ahead = current;
+                current = filled;
+                current.flip();
+                ahead.clear();
+                this.pending = channel.read(ahead, position);
+            }
+
+            return true;
+        }
+
+        private int readVarint() throws IOException {
+            int value = 0;
+
+            for (int shift = 0; ; shift += 7) {
+                if (!fill()) {
+                    throw new EOFException("Truncated run file");
+                }
+
+                final int b = current.get();
+                value |= (b & 0x7f) << shift;
+
+                if ((b & 0x80) == 0) {
+                    return value;
+                }
+            }
+        }
+
+        private void readFully(@Nonnull byte[] dst, int length) throws IOException {
+            int off = 0;
+
+            while (off < length) {
+                if (!fill()) {
+                    throw new EOFException("Truncated run file");
+                }
+
+                final int n = Math.min(length - off, current.remaining());
+                current.get(dst, off, n);
+                off += n;
+            }
+        }
+
+        @Override
+        public void close() throws IOException {
+            channel.close();
+        }
+
+        private static int await(@Nonnull Future<Integer> future) throws IOException {
+            try {
+                return future.get();
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                throw new InterruptedIOException();
+            } catch (ExecutionException e) {
+                final Throwable cause = e.getCause();
+                throw (cause instanceof IOException) ? (IOException) cause : new IOException(cause);
+            }
+        }
+    }
+}
@@ -0,0 +1,73 @@
+package xyz.kuilei.tools.io;
+
+import lombok.Getter;
+import lombok.Setter;
+import lombok.experimental.Accessors;
+
+import javax.annotation.Nonnull;
+import java.io.File;
+import java.io.IOException;
+import java.io.Reader;
+
+/**
+ * {@link AnySeparatorLineIterator} 中一行的最大长度（字符数）与超长时的处理方式
+ * <p>
+ * 分隔符传错或者文件损坏时，分隔符可能一直不出现，不限制的话行缓冲会一直增长到 OOM。
+ * 有了上限，无论输入是什么，行缓冲都不超过 maxLength 加上一次读取的大小。
+ *
+ * @author JiaKun Xu, 2026-10-20 01:12:37
+ */
+@Getter
+@Setter
+@Accessors(chain = true)
+public class LineLengthLimit {
+    /**
+     * 一行最多这么多字符，不含分隔符。开启 {@link ByteLineFilter} 时按字节计
+     */
+    private int maxLength = 1 << 20;
+
+    @Nonnull
+    private Policy policy = Policy.FAIL;
+
+    /**
+     * {@link Policy#SPILL} 时必须设置
+     */
+    private SpillHandler spillHandler = null;
+
+    /**
+     * {@link Policy#SPILL} 的临时文件目录
+     * <p>
+     * null: java.io.tmpdir
+     */
+    private File spillDirectory = null;
+
+    public enum Policy {
+        /**
+         * 关闭迭代器，hasNext() 抛 IllegalStateException，message 中带行号与字符偏移
+         */
+        FAIL,
+        /**
+         * 只保留前 maxLength 个字符，其余的丢弃到下一个分隔符
+         */
+        TRUNCATE,
+        /**
+         * 整行写进临时文件，按原来的顺序交给 {@link SpillHandler}，next() 不返回这一行
+         */
+        SPILL
+    }
+
+    /**
+     * 处理写进临时文件的超长行
+     */
+    @FunctionalInterface
+    public interface SpillHandler {
+        /**
+         * 在 hasNext() 中按行的顺序调用，返回后 reader 被关闭、临时文件被删除
+         *
+         * @param line   超长的行，不含分隔符
+         * @param offset 行首在整个文件中的字符偏移，开启 {@link ByteLineFilter} 时为字节偏移
+         * @param length 行的字符数，开启 {@link ByteLineFilter} 时为字节数
+         */
+        void handle(@Nonnull Reader line, long offset, long length) throws IOException;
+    }
+}
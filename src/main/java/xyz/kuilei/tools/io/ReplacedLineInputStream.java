@@ -1,6 +1,7 @@
 package xyz.kuilei.tools.io;
 
 import org.apache.commons.io.IOUtils;
+import xyz.kuilei.tools.metrics.ReadMetrics;
 
 import javax.annotation.Nonnull;
 import javax.annotation.Nullable;
@@ -37,6 +38,14 @@ public class ReplacedLineInputStream extends InputStream {
         this(new ReplacedLineReader(replacer, file, encoding));
     }
 
+    /**
+     * @see ReplacedLineReader#ReplacedLineReader(LineReplacer, File, String, ReadMetrics)
+     */
+    public ReplacedLineInputStream(@Nonnull final LineReplacer replacer, @Nonnull final File file, @Nullable final String encoding,
+                                   @Nullable final ReadMetrics metrics) throws IOException {
+        this(new ReplacedLineReader(replacer, file, encoding, metrics));
+    }
+
     public ReplacedLineInputStream(@Nonnull final LineReplacer replacer, @Nonnull final File file) throws IOException {
         this(replacer, file, null);
     }
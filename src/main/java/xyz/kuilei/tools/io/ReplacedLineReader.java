@@ -3,6 +3,8 @@ package xyz.kuilei.tools.io;
 import lombok.Getter;
 import org.apache.commons.io.Charsets;
 import org.apache.commons.io.FileUtils;
+import org.apache.commons.io.input.CountingInputStream;
+import xyz.kuilei.tools.metrics.ReadMetrics;
 
 import javax.annotation.Nonnull;
 import javax.annotation.Nullable;
@@ -13,20 +15,75 @@ import java.nio.charset.Charset;
  * @author JiaKun Xu, 2024-03-18 14:47:47
  */
 public class ReplacedLineReader implements Closeable {
-    @Nonnull
+    /**
+     * 开启字节过滤时为 null
+     */
+    @Nullable
     private final BufferedReader reader;
+    /**
+     * 开启字节过滤时代替 reader，丢弃的行不解码，也不调用 replacer
+     */
+    @Nullable
+    private final ByteLineReader filteredReader;
     @Nonnull
     private final LineReplacer replacer;
     @Getter
     @Nonnull
     private final Charset charset;
 
+    /**
+     * null: 不统计
+     */
+    @Nullable
+    private final ReadMetrics metrics;
+    @Nullable
+    private final CountingInputStream countingInput;
+
     public ReplacedLineReader(@Nonnull final LineReplacer replacer, @Nonnull final File file, @Nullable final String encoding) throws IOException {
+        this(replacer, file, encoding, null);
+    }
+
+    /**
+     * @param metrics 统计字节数、行数、替换次数与改变的行数，以及替换的耗时，null 为不统计
+     */
+    public ReplacedLineReader(@Nonnull final LineReplacer replacer, @Nonnull final File file, @Nullable final String encoding,
+                              @Nullable final ReadMetrics metrics) throws IOException {
+        this(replacer, file, encoding, metrics, null);
+    }
+
+    /**
+     * @param filter 在解码之前按行的原始字节过滤，丢弃的行不解码，也不调用 replacer；只支持 UTF-8 与单字节的字符集。null 为不过滤
+     * @throws IllegalArgumentException filter 不为 null，字符集不是 UTF-8 也不是单字节的
+     */
+    public ReplacedLineReader(@Nonnull final LineReplacer replacer, @Nonnull final File file, @Nullable final String encoding,
+                              @Nullable final ReadMetrics metrics, @Nullable final ByteLineFilter filter) throws IOException {
         Charset charset = Charsets.toCharset(encoding);
 
-        this.reader = new BufferedReader(new InputStreamReader(FileUtils.openInputStream(file), charset));
+        if (filter != null) {
+            ByteLineReader.checkCharset(charset);
+        }
+
+        InputStream in = FileUtils.openInputStream(file);
+
+        if (filter != null) {
+            // 字节数、行数由 filteredReader 统计，行尾与 BufferedReader#readLine 相同
+            countingInput = null;
+            this.reader = null;
+            this.filteredReader = new ByteLineReader(in, charset, null, filter, metrics, null);
+        } else {
+            if (metrics != null) {
+                in = countingInput = new CountingInputStream(in);
+            } else {
+                countingInput = null;
+            }
+
+            this.reader = new BufferedReader(new InputStreamReader(in, charset));
+            this.filteredReader = null;
+        }
+
         this.replacer = replacer;
         this.charset = charset;
+        this.metrics = metrics;
     }
 
     public ReplacedLineReader(@Nonnull final LineReplacer replacer, @Nonnull final File file) throws IOException {
@@ -35,16 +92,38 @@ public class ReplacedLineReader implements Closeable {
 
     @Override
     public void close() throws IOException {
-        reader.close();
+        if (filteredReader != null) {
+            filteredReader.close();
+        } else {
+            reader.close();
+        }
     }
 
     @Nullable
     public String readLine() throws IOException {
-        String line = reader.readLine();
+        final ByteLineReader filteredReader = this.filteredReader;
+        String line = (filteredReader != null) ? filteredReader.readLine() : reader.readLine();
 
         if (line == null) {
             return null;
         }
-        return replacer.replace(line);
+
+        final ReadMetrics metrics = this.metrics;
+
+        if (metrics == null) {
+            return replacer.replace(line);
+        }
+
+        final long start = System.nanoTime();
+        final String replaced = replacer.replace(line);
+
+        metrics.stageTime(ReadMetrics.Stage.REPLACE, System.nanoTime() - start);
+        metrics.lineReplaced(replaced != line && !replaced.equals(line));
+
+        if (filteredReader == null) {
+            metrics.linesRead(1);
+            metrics.bytesRead(countingInput.resetByteCount());
+        }
+        return replaced;
     }
 }
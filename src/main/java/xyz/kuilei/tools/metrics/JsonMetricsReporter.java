@@ -0,0 +1,118 @@
+package xyz.kuilei.tools.metrics;
+
+import cn.hutool.json.JSONObject;
+import cn.hutool.json.JSONUtil;
+
+import javax.annotation.Nonnull;
+import javax.annotation.Nullable;
+import java.io.Closeable;
+import java.io.File;
+import java.io.IOException;
+import java.io.OutputStreamWriter;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.StandardOpenOption;
+import java.util.Map;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * 把 {@link LongAdderReadMetrics} 的快照写成 JSON，每个快照一行（JSON Lines），追加到文件末尾
+ * <p>
+ * 可以只在需要时调用 {@link #report()}，也可以 {@link #start(long, TimeUnit)} 定时写，{@link #close()} 时再写最后一次。
+ *
+ * @author JiaKun Xu, 2026-10-19 22:27:08
+ */
+public class JsonMetricsReporter implements Closeable {
+    @Nonnull
+    private final LongAdderReadMetrics metrics;
+    @Nonnull
+    private final File target;
+
+    @Nullable
+    private ScheduledExecutorService scheduler;
+
+    public JsonMetricsReporter(@Nonnull LongAdderReadMetrics metrics, @Nonnull File target) {
+        this.metrics = metrics;
+        this.target = target;
+    }
+
+    /**
+     * 当前快照的 JSON，带上时间戳
+     */
+    @Nonnull
+    public static String toJson(@Nonnull LongAdderReadMetrics metrics) {
+        // 有序，字段顺序与 snapshot() 一致
+        final JSONObject json = new JSONObject(16, true);
+
+        json.set("timestamp", System.currentTimeMillis());
+
+        for (Map.Entry<String, Object> entry : metrics.snapshot().entrySet()) {
+            json.set(entry.getKey(), entry.getValue());
+        }
+
+        return JSONUtil.toJsonStr(json);
+    }
+
+    /**
+     * 追加一行快照
+     */
+    public synchronized void report() throws IOException {
+        try (Writer writer = new OutputStreamWriter(Files.newOutputStream(target.toPath(),
+                StandardOpenOption.CREATE, StandardOpenOption.APPEND), StandardCharsets.UTF_8)) {
+            writer.write(toJson(metrics));
+            writer.write('\n');
+        }
+    }
+
+    /**
+     * 在后台守护线程中定时 {@link #report()}，写失败时跳过这一次
+     */
+    @Nonnull
+    public synchronized JsonMetricsReporter start(long period, @Nonnull TimeUnit unit) {
+        if (scheduler != null) {
+            throw new IllegalStateException("JsonMetricsReporter already started");
+        }
+
+        scheduler = Executors.newSingleThreadScheduledExecutor(r -> {
+            final Thread thread = new Thread(r, "json-metrics-reporter");
+            thread.setDaemon(true);
+            return thread;
+        });
+        scheduler.scheduleAtFixedRate(() -> {
+            try {
+                report();
+            } catch (IOException ignored) {
+                // 下一次再试
+            }
+        }, period, period, unit);
+        return this;
+    }
+
+    /**
+     * 停止定时，再写最后一次
+     */
+    @Override
+    public void close() throws IOException {
+        final ScheduledExecutorService scheduler;
+
+        synchronized (this) {
+            scheduler = this.scheduler;
+            this.scheduler = null;
+        }
+
+        if (scheduler != null) {
+            scheduler.shutdown();
+
+            try {
+                scheduler.awaitTermination(1, TimeUnit.MINUTES);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+        }
+
+        report();
+    }
+}
@@ -0,0 +1,202 @@
+package xyz.kuilei.tools.metrics;
+
+import org.apache.poi.ss.usermodel.CellType;
+
+import javax.annotation.Nonnull;
+import java.util.LinkedHashMap;
+import java.util.concurrent.atomic.LongAccumulator;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * 基于 {@link LongAdder} 的 {@link ReadMetrics}：计数按线程分散到不同的 cell，多个 reader 并发回调也不会争用同一个变量
+ * <p>
+ * {@link #snapshot()} 不是原子的，各个计数之间可能相差正在进行的几次回调。
+ *
+ * @author JiaKun Xu, 2026-10-19 22:14:52
+ */
+public class LongAdderReadMetrics implements ReadMetrics {
+    private static final CellType[] CELL_TYPES = CellType.values();
+    private static final Stage[] STAGES = Stage.values();
+
+    private final boolean cellTimingEnabled;
+
+    private final LongAdder bytes = new LongAdder();
+    private final LongAdder lines = new LongAdder();
+    private final LongAdder filteredLines = new LongAdder();
+    private final LongAdder rows = new LongAdder();
+    private final LongAdder[] cells = newAdders(CELL_TYPES.length);
+
+    private final LongAdder mergedRegionLookups = new LongAdder();
+    private final LongAdder mergedRegionHits = new LongAdder();
+    private final LongAdder openRegionDepthSum = new LongAdder();
+    private final LongAccumulator openRegionDepthMax = new LongAccumulator(Math::max, 0);
+
+    private final LongAdder replacerInvocations = new LongAdder();
+    private final LongAdder changedLines = new LongAdder();
+
+    private final LongAdder[] stageNanos = newAdders(STAGES.length);
+    private final LongAdder[] stageCalls = newAdders(STAGES.length);
+
+    public LongAdderReadMetrics() {
+        this(false);
+    }
+
+    /**
+     * @param cellTimingEnabled 是否对每个 cell 计时
+     */
+    public LongAdderReadMetrics(boolean cellTimingEnabled) {
+        this.cellTimingEnabled = cellTimingEnabled;
+    }
+
+    @Override
+    public void bytesRead(long bytes) {
+        this.bytes.add(bytes);
+    }
+
+    @Override
+    public void linesRead(long lines) {
+        this.lines.add(lines);
+    }
+
+    @Override
+    public void linesFiltered(long lines) {
+        this.filteredLines.add(lines);
+    }
+
+    @Override
+    public void rowsRead(long rows) {
+        this.rows.add(rows);
+    }
+
+    @Override
+    public void cellConverted(@Nonnull CellType type) {
+        cells[type.ordinal()].increment();
+    }
+
+    @Override
+    public void mergedRegionLookup(boolean hit, int openRegions) {
+        mergedRegionLookups.increment();
+
+        if (hit) {
+            mergedRegionHits.increment();
+        }
+
+        openRegionDepthSum.add(openRegions);
+        openRegionDepthMax.accumulate(openRegions);
+    }
+
+    @Override
+    public void lineReplaced(boolean changed) {
+        replacerInvocations.increment();
+
+        if (changed) {
+            changedLines.increment();
+        }
+    }
+
+    @Override
+    public void stageTime(@Nonnull Stage stage, long nanos) {
+        stageNanos[stage.ordinal()].add(nanos);
+        stageCalls[stage.ordinal()].increment();
+    }
+
+    @Override
+    public boolean isCellTimingEnabled() {
+        return cellTimingEnabled;
+    }
+
+    /**
+     * 当前的值，有序，可以直接转 JSON
+     *
+     * @see JsonMetricsReporter
+     */
+    @Nonnull
+    public LinkedHashMap<String, Object> snapshot() {
+        final LinkedHashMap<String, Object> snapshot = new LinkedHashMap<>();
+
+        snapshot.put("bytes", bytes.sum());
+        snapshot.put("lines", lines.sum());
+        snapshot.put("filteredLines", filteredLines.sum());
+        snapshot.put("rows", rows.sum());
+
+        final LinkedHashMap<String, Long> cellCounts = new LinkedHashMap<>();
+
+        for (CellType type : CELL_TYPES) {
+            final long count = cells[type.ordinal()].sum();
+
+            if (count != 0) {
+                cellCounts.put(type.name(), count);
+            }
+        }
+
+        snapshot.put("cells", cellCounts);
+
+        final LinkedHashMap<String, Object> merged = new LinkedHashMap<>();
+        final long lookups = mergedRegionLookups.sum();
+
+        merged.put("lookups", lookups);
+        merged.put("hits", mergedRegionHits.sum());
+        merged.put("openRegionDepthAvg", (lookups == 0) ? 0.0 : (double) openRegionDepthSum.sum() / lookups);
+        merged.put("openRegionDepthMax", openRegionDepthMax.get());
+        snapshot.put("mergedRegions", merged);
+
+        final LinkedHashMap<String, Long> replacer = new LinkedHashMap<>();
+
+        replacer.put("invocations", replacerInvocations.sum());
+        replacer.put("changedLines", changedLines.sum());
+        snapshot.put("replacer", replacer);
+
+        final LinkedHashMap<String, Object> stages = new LinkedHashMap<>();
+
+        for (Stage stage : STAGES) {
+            final long calls = stageCalls[stage.ordinal()].sum();
+
+            if (calls != 0) {
+                final LinkedHashMap<String, Long> timing = new LinkedHashMap<>();
+
+                timing.put("calls", calls);
+                timing.put("nanos", stageNanos[stage.ordinal()].sum());
+                stages.put(stage.name(), timing);
+            }
+        }
+
+        snapshot.put("stages", stages);
+        return snapshot;
+    }
+
+    /**
+     * 清零，与正在进行的回调并发时，那几次可能一半计入清零前
+     */
+    public void reset() {
+        bytes.reset();
+        lines.reset();
+        filteredLines.reset();
+        rows.reset();
+        resetAll(cells);
+        mergedRegionLookups.reset();
+        mergedRegionHits.reset();
+        openRegionDepthSum.reset();
+        openRegionDepthMax.reset();
+        replacerInvocations.reset();
+        changedLines.reset();
+        resetAll(stageNanos);
+        resetAll(stageCalls);
+    }
+
+    @Nonnull
+    private static LongAdder[] newAdders(int n) {
+        final LongAdder[] adders = new LongAdder[n];
+
+        for (int i = 0; i < n; ++i) {
+            adders[i] = new LongAdder();
+        }
+
+        return adders;
+    }
+
+    private static void resetAll(@Nonnull LongAdder[] adders) {
+        for (LongAdder adder : adders) {
+            adder.reset();
+        }
+    }
+}
@@ -0,0 +1,102 @@
+package xyz.kuilei.tools.metrics;
+
+import org.apache.poi.ss.usermodel.CellType;
+
+import javax.annotation.Nonnull;
+
+/**
+ * 读取过程的指标监听器，io 与 excel 的 reader 在各个阶段回调
+ * <p>
+ * 1. reader 持有 null 时不回调，也不计时，只多一次判空；
+ * 2. 回调可能来自多个线程（多个 reader 共用一个），实现要线程安全，见 {@link LongAdderReadMetrics}；
+ * 3. 默认都是空实现，只关心部分指标时只覆盖对应的方法。
+ * <p>
+ * 每个 cell 计时的代价与转换本身相当，默认不开，见 {@link #isCellTimingEnabled()}。
+ *
+ * @author JiaKun Xu, 2026-10-19 22:05:37
+ */
+public interface ReadMetrics {
+    /**
+     * @param bytes 从文件读取的字节数
+     */
+    default void bytesRead(long bytes) {
+    }
+
+    /**
+     * @param lines 文本 reader 切分出的行数
+     */
+    default void linesRead(long lines) {
+    }
+
+    /**
+     * @param lines 被 {@link xyz.kuilei.tools.io.ByteLineFilter} 丢弃、没有解码的行数，不计入 {@link #linesRead(long)}
+     */
+    default void linesFiltered(long lines) {
+    }
+
+    /**
+     * @param rows sheet 中遍历到的行数，包括没有 cell 的行
+     */
+    default void rowsRead(long rows) {
+    }
+
+    /**
+     * @param type cell 自身的类型，公式为 {@link CellType#FORMULA}
+     */
+    default void cellConverted(@Nonnull CellType type) {
+    }
+
+    /**
+     * 每个 cell 查找所在的合并单元格
+     *
+     * @param hit         是否在合并单元格中
+     * @param openRegions 查找前还没读完的合并单元格个数
+     */
+    default void mergedRegionLookup(boolean hit, int openRegions) {
+    }
+
+    /**
+     * 每次调用 LineReplacer
+     *
+     * @param changed 替换后的行与原来的不同
+     */
+    default void lineReplaced(boolean changed) {
+    }
+
+    default void stageTime(@Nonnull Stage stage, long nanos) {
+    }
+
+    /**
+     * 是否对每个 cell 计时（{@link Stage#CELL_CONVERSION}、{@link Stage#MERGED_REGION_LOOKUP}），reader 创建时读一次
+     */
+    default boolean isCellTimingEnabled() {
+        return false;
+    }
+
+    enum Stage {
+        /**
+         * 读文件并解码为字符，按块计时
+         */
+        DECODE,
+        /**
+         * 在字符中查找行分隔符，按块计时
+         */
+        SEPARATOR_SEARCH,
+        /**
+         * LineReplacer，按行计时
+         */
+        REPLACE,
+        /**
+         * POI 打开并解析 workbook
+         */
+        WORKBOOK_OPEN,
+        /**
+         * 查找 cell 所在的合并单元格，按 cell 计时
+         */
+        MERGED_REGION_LOOKUP,
+        /**
+         * cell 转字符串，按 cell 计时
+         */
+        CELL_CONVERSION
+    }
+}
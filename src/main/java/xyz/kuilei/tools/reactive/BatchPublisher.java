@@ -0,0 +1,371 @@
+package xyz.kuilei.tools.reactive;
+
+import org.reactivestreams.Publisher;
+import org.reactivestreams.Subscriber;
+import org.reactivestreams.Subscription;
+import xyz.kuilei.tools.excel.RowSource;
+import xyz.kuilei.tools.io.AnySeparatorLineIterator;
+import xyz.kuilei.tools.io.ReplacedLineReader;
+
+import javax.annotation.Nonnull;
+import javax.annotation.Nullable;
+import java.io.Closeable;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.Executor;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * 把按行拉取的来源（{@link AnySeparatorLineIterator}、{@link ReplacedLineReader}、{@link RowSource}）包装成 Reactive Streams 的 {@link Publisher}，
+ * 按下游的 request(n) 读取，不需要中间的无界队列。
+ * <p>
+ * 1. 元素是批次：request(n) 的 n 个单位是 n 个批次，每个批次最多 batchSize 行，只有读到末尾时才会不满；
+ * 2. 每个订阅者各自打开一次来源，打开、读取都在 executor 中进行（阻塞 IO，不要用 ForkJoinPool.commonPool()）；
+ * 3. 订阅后立即在 executor 中打开来源，打不开时直接 onError；读完、出错、cancel 时都会在 executor 中关闭来源，读完不需要额外的 request 就会 onComplete；
+ * 4. Java 9 以上需要 java.util.concurrent.Flow.Publisher 时用 org.reactivestreams.FlowAdapters#toFlowPublisher 转换。
+ * <pre>
+ * Publisher&lt;List&lt;String&gt;&gt; lines = BatchPublisher.lines(() -&gt; new AnySeparatorLineIterator("\n", file, "UTF-8"), executor, 512);
+ * </pre>
+ *
+ * @param <T> 行的类型
+ * @author JiaKun Xu, 2026-10-20 00:31:05
+ */
+public class BatchPublisher<T> implements Publisher<List<T>> {
+    @Nonnull
+    private final Opener<? extends Source<T>> opener;
+    @Nonnull
+    private final Executor executor;
+    private final int batchSize;
+
+    public BatchPublisher(@Nonnull Opener<? extends Source<T>> opener, @Nonnull Executor executor, int batchSize) {
+        if (batchSize <= 0) {
+            throw new IllegalArgumentException("batchSize <= 0");
+        }
+
+        this.opener = opener;
+        this.executor = executor;
+        this.batchSize = batchSize;
+    }
+
+    @Nonnull
+    public static BatchPublisher<String> lines(@Nonnull Opener<? extends AnySeparatorLineIterator> opener,
+                                               @Nonnull Executor executor, int batchSize) {
+        return new BatchPublisher<>(() -> {
+            final AnySeparatorLineIterator it = opener.open();
+
+            return new Source<String>() {
+                @Nullable
+                @Override
+                public String read() {
+                    return it.hasNext() ? it.next() : null;
+                }
+
+                @Override
+                public void close() throws IOException {
+                    it.close();
+                }
+            };
+        }, executor, batchSize);
+    }
+
+    @Nonnull
+    public static BatchPublisher<String> replacedLines(@Nonnull Opener<? extends ReplacedLineReader> opener,
+                                                       @Nonnull Executor executor, int batchSize) {
+        return new BatchPublisher<>(() -> {
+            final ReplacedLineReader reader = opener.open();
+
+            return new Source<String>() {
+                @Nullable
+                @Override
+                public String read() throws IOException {
+                    return reader.readLine();
+                }
+
+                @Override
+                public void close() throws IOException {
+                    reader.close();
+                }
+            };
+        }, executor, batchSize);
+    }
+
+    /**
+     * 空行跳过，与 {@link RowSource#read()} 一致
+     */
+    @Nonnull
+    public static BatchPublisher<List<String>> rows(@Nonnull Opener<? extends RowSource> opener,
+                                                    @Nonnull Executor executor, int batchSize) {
+        return new BatchPublisher<>(() -> {
+            final RowSource source = opener.open();
+
+            return new Source<List<String>>() {
+                @Nullable
+                @Override
+                public List<String> read() {
+                    return source.read();
+                }
+
+                @Override
+                public void close() throws IOException {
+                    source.close();
+                }
+            };
+        }, executor, batchSize);
+    }
+
+    @Override
+    public void subscribe(Subscriber<? super List<T>> subscriber) {
+        if (subscriber == null) {
+            throw new NullPointerException("subscriber");
+        }
+
+        final BatchSubscription subscription = new BatchSubscription(subscriber);
+
+        try {
+            subscriber.onSubscribe(subscription);
+        } catch (RuntimeException e) {
+            // 视为 cancel
+            subscription.cancelled = true;
+        }
+
+        // 立即打开来源，打不开时不需要 request 就能收到 onError
+        subscription.execute();
+    }
+
+    /**
+     * 按行拉取的来源
+     */
+    public interface Source<T> extends Closeable {
+        /**
+         * @return null if EOF
+         */
+        @Nullable
+        T read() throws IOException;
+    }
+
+    /**
+     * 打开来源，每个订阅者调用一次
+     */
+    @FunctionalInterface
+    public interface Opener<S> {
+        @Nonnull
+        S open() throws IOException;
+    }
+
+    /**
+     * request、cancel 只修改状态，真正的读取与信号都在 drain 中：wip 保证同一时间只有一个 drain，信号串行，
+     * 订阅者在 onNext 中调用 request 也不会重入。
+     */
+    private final class BatchSubscription implements Subscription, Runnable {
+        @Nonnull
+        private final Subscriber<? super List<T>> subscriber;
+        private final AtomicLong requested = new AtomicLong();
+        /**
+         * 初始为 1：onSubscribe 返回之前不开始 drain，返回后由 subscribe 开始第一次 drain
+         */
+        private final AtomicInteger wip = new AtomicInteger(1);
+        private volatile boolean cancelled;
+        @Nullable
+        private volatile IllegalArgumentException invalidRequest;
+
+        // --------------------------------
+        // drain side
+        // --------------------------------
+        @Nullable
+        private Source<T> source;
+        /**
+         * 下一个批次的第一行，读满一个批次后多读一行，读到 EOF 就能立即 onComplete
+         */
+        @Nullable
+        private T lookahead;
+        private boolean done;
+
+        BatchSubscription(@Nonnull Subscriber<? super List<T>> subscriber) {
+            this.subscriber = subscriber;
+        }
+
+        @Override
+        public void request(long n) {
+            if (n <= 0) {
+                // rule 3.9
+                invalidRequest = new IllegalArgumentException("request(" + n + "), n must be positive");
+            } else {
+                long current;
+
+                do {
+                    current = requested.get();
+
+                    if (current == Long.MAX_VALUE) {
+                        break;
+                    }
+                } while (!requested.compareAndSet(current, current + n < 0 ? Long.MAX_VALUE : current + n));
+            }
+
+            schedule();
+        }
+
+        @Override
+        public void cancel() {
+            cancelled = true;
+            schedule();
+        }
+
+        private void schedule() {
+            if (wip.getAndIncrement() == 0) {
+                execute();
+            }
+        }
+
+        void execute() {
+            try {
+                executor.execute(this);
+            } catch (RejectedExecutionException e) {
+                // wip 不为零，没有其他 drain，可以直接发信号；之后 wip 不再归零，不会再 drain
+                if (!done) {
+                    done = true;
+                    closeSource();
+
+                    if (!cancelled) {
+                        subscriber.onError(e);
+                    }
+                }
+            }
+        }
+
+        @Override
+        public void run() {
+            int missed = 1;
+
+            do {
+                drain();
+                missed = wip.addAndGet(-missed);
+            } while (missed != 0);
+        }
+
+        private void drain() {
+            if (done) {
+                return;
+            }
+            if (cancelled) {
+                done = true;
+                closeSource();
+                return;
+            }
+
+            final IllegalArgumentException invalid = invalidRequest;
+
+            if (invalid != null) {
+                fail(invalid);
+                return;
+            }
+
+            Source<T> source = this.source;
+
+            if (source == null) {
+                try {
+                    this.source = source = opener.open();
+                } catch (IOException | RuntimeException e) {
+                    fail(e);
+                    return;
+                }
+            }
+
+            final long r = requested.get();
+
+            long emitted = 0;
+
+            while (emitted != r) {
+                if (cancelled) {
+                    done = true;
+                    closeSource();
+                    return;
+                }
+
+                final List<T> batch = new ArrayList<>(batchSize);
+                T next;
+
+                try {
+                    if (lookahead != null) {
+                        batch.add(lookahead);
+                        lookahead = null;
+                    }
+                    while (batch.size() < batchSize && (next = source.read()) != null) {
+                        batch.add(next);
+                    }
+                    if (batch.size() == batchSize) {
+                        lookahead = source.read();
+                    }
+                } catch (IOException | RuntimeException e) {
+                    fail(e);
+                    return;
+                }
+
+                final boolean eof = lookahead == null;
+
+                if (!batch.isEmpty() && !emit(batch)) {
+                    return;
+                }
+
+                ++emitted;
+
+                if (eof) {
+                    done = true;
+                    closeSource();
+
+                    if (!cancelled) {
+                        subscriber.onComplete();
+                    }
+
+                    return;
+                }
+            }
+
+            if (r != Long.MAX_VALUE) {
+                requested.addAndGet(-emitted);
+            }
+        }
+
+        /**
+         * @return false if subscriber threw, rule 2.13 视为 cancel
+         */
+        private boolean emit(@Nonnull List<T> batch) {
+            try {
+                subscriber.onNext(batch);
+                return true;
+            } catch (RuntimeException e) {
+                cancelled = true;
+                done = true;
+                closeSource();
+                return false;
+            }
+        }
+
+        private void fail(@Nonnull Throwable e) {
+            done = true;
+            closeSource();
+
+            // rule 1.8: cancel 之后不再发信号
+            if (!cancelled) {
+                subscriber.onError(e);
+            }
+        }
+
+        private void closeSource() {
+            final Source<T> source = this.source;
+
+            this.source = null;
+            this.lookahead = null;
+
+            if (source != null) {
+                try {
+                    source.close();
+                } catch (IOException ignored) {
+                    // 已经读完或者不再需要
+                }
+            }
+        }
+    }
+}
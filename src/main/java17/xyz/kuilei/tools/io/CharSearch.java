@@ -0,0 +1,68 @@
+package xyz.kuilei.tools.io;
+
+import javax.annotation.Nonnull;
+
+/**
+ * 在 char[] 中查找子串，Java 17 的版本，multi-release jar 中替换 Java 8 的标量实现
+ * <p>
+ * jdk.incubator.vector 是孵化模块，只有启动参数带 --add-modules jdk.incubator.vector 时才在 boot layer 中，
+ * 这时较长的区间交给 {@link VectorCharSearch}，否则与 Java 8 一样逐个字符比较。
+ * -Dxyz.kuilei.tools.io.CharSearch.scalar=true 强制标量，用于对比。
+ *
+ * @author JiaKun Xu, 2026-10-19 23:41:26
+ */
+final class CharSearch {
+    private static final boolean VECTORIZED = ModuleLayer.boot().findModule("jdk.incubator.vector").isPresent()
+            && !Boolean.getBoolean("xyz.kuilei.tools.io.CharSearch.scalar");
+
+    /**
+     * 比这短的区间向量化不划算
+     */
+    private static final int VECTOR_THRESHOLD = 64;
+
+    private CharSearch() {
+    }
+
+    /**
+     * @param from   包含
+     * @param to     不包含，target 必须整个在 [from, to) 中
+     * @param target not empty
+     * @return target 在 source 中的下标（不是相对 from 的），-1 if not found
+     */
+    static int indexOf(@Nonnull final char[] source, final int from, final int to, @Nonnull final char[] target) {
+        if (VECTORIZED && to - from >= VECTOR_THRESHOLD) {
+            return VectorCharSearch.indexOf(source, from, to, target);
+        }
+
+        return scalarIndexOf(source, from, to, target);
+    }
+
+    /**
+     * 与 Java 8 的版本相同
+     */
+    static int scalarIndexOf(@Nonnull final char[] source, final int from, final int to, @Nonnull final char[] target) {
+        final int targetCount = target.length;
+        final char first = target[0];
+        final int max = to - targetCount;
+
+        for (int i = from; i <= max; i++) {
+            /* Look for first character. */
+            if (source[i] != first) {
+                while (++i <= max && source[i] != first) ;
+            }
+
+            /* Found first character, now look at the rest of v2 */
+            if (i <= max) {
+                int j = i + 1;
+                int end = j + targetCount - 1;
+                for (int k = 1; j < end && source[j] == target[k]; j++, k++) ;
+
+                if (j == end) {
+                    /* Found whole string. */
+                    return i;
+                }
+            }
+        }
+        return -1;
+    }
+}
@@ -0,0 +1,82 @@
+package xyz.kuilei.tools.io;
+
+import jdk.incubator.vector.ShortVector;
+import jdk.incubator.vector.VectorMask;
+import jdk.incubator.vector.VectorSpecies;
+
+import javax.annotation.Nonnull;
+
+/**
+ * 用 Vector API 查找子串：一次比较一个向量宽度的候选起始位置
+ * <p>
+ * 候选位置要同时满足首字符与尾字符相等（单字符时只比较首字符），两个掩码相与之后逐个验证中间的字符。
+ * 首尾字符都相等的位置很少，中间的比较几乎不发生。
+ * <p>
+ * 只由 {@link CharSearch} 在 jdk.incubator.vector 可用时加载。
+ *
+ * @author JiaKun Xu, 2026-10-19 23:52:09
+ */
+final class VectorCharSearch {
+    private static final VectorSpecies<Short> SPECIES = ShortVector.SPECIES_PREFERRED;
+    private static final int LANES = SPECIES.length();
+
+    private VectorCharSearch() {
+    }
+
+    /**
+     * @see CharSearch#indexOf(char[], int, int, char[])
+     */
+    static int indexOf(@Nonnull final char[] source, final int from, final int to, @Nonnull final char[] target) {
+        final int lastOffset = target.length - 1;
+        final short first = (short) target[0];
+        final short last = (short) target[lastOffset];
+        // 候选起始位置 [from, to - target.length]，向量的两次加载都不越过 to
+        final int candidates = to - lastOffset - from;
+
+        if (candidates <= 0) {
+            return -1;
+        }
+
+        final int bound = from + SPECIES.loopBound(candidates);
+        int i = from;
+
+        for (; i < bound; i += LANES) {
+            VectorMask<Short> mask = ShortVector.fromCharArray(SPECIES, source, i).eq(first);
+
+            if (lastOffset != 0) {
+                mask = mask.and(ShortVector.fromCharArray(SPECIES, source, i + lastOffset).eq(last));
+            }
+            if (!mask.anyTrue()) {
+                continue;
+            }
+
+            long bits = mask.toLong();
+
+            while (bits != 0) {
+                final int start = i + Long.numberOfTrailingZeros(bits);
+
+                if (matchesMiddle(source, start, target)) {
+                    return start;
+                }
+
+                bits &= bits - 1;
+            }
+        }
+
+        // 不足一个向量的尾部
+        return CharSearch.scalarIndexOf(source, i, to, target);
+    }
+
+    /**
+     * 首尾字符已经相等，比较中间的
+     */
+    private static boolean matchesMiddle(@Nonnull final char[] source, final int start, @Nonnull final char[] target) {
+        for (int k = 1, n = target.length - 1; k < n; ++k) {
+            if (source[start + k] != target[k]) {
+                return false;
+            }
+        }
+
+        return true;
+    }
+}
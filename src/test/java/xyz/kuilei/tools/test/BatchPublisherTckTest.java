@@ -0,0 +1,65 @@
+package xyz.kuilei.tools.test;
+
+import org.reactivestreams.Publisher;
+import org.reactivestreams.tck.PublisherVerification;
+import org.reactivestreams.tck.TestEnvironment;
+import org.testng.annotations.AfterClass;
+import xyz.kuilei.tools.reactive.BatchPublisher;
+
+import javax.annotation.Nullable;
+import java.io.IOException;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+
+/**
+ * Reactive Streams TCK 对 {@link BatchPublisher} 的验证（TestNG），每个元素是一个批次
+ *
+ * @author JiaKun Xu, 2026-10-20 09:31:52
+ */
+public class BatchPublisherTckTest extends PublisherVerification<List<Integer>> {
+    private static final int BATCH_SIZE = 3;
+
+    private final ExecutorService executor = Executors.newFixedThreadPool(4);
+
+    public BatchPublisherTckTest() {
+        super(new TestEnvironment(500L));
+    }
+
+    @Override
+    public Publisher<List<Integer>> createPublisher(long elements) {
+        // elements 个批次，每个批次都是满的
+        final long rows = (elements == Long.MAX_VALUE) ? Long.MAX_VALUE : elements * BATCH_SIZE;
+
+        return new BatchPublisher<>(() -> new BatchPublisher.Source<Integer>() {
+            private long read;
+
+            @Nullable
+            @Override
+            public Integer read() {
+                return (read < rows) ? (int) (read++ & 0xFFFF) : null;
+            }
+
+            @Override
+            public void close() {
+            }
+        }, executor, BATCH_SIZE);
+    }
+
+    @Override
+    public Publisher<List<Integer>> createFailedPublisher() {
+        return new BatchPublisher<Integer>(() -> {
+            throw new IOException("cannot open");
+        }, executor, BATCH_SIZE);
+    }
+
+    @Override
+    public long maxElementsFromPublisher() {
+        return Long.MAX_VALUE - 1;
+    }
+
+    @AfterClass
+    public void shutdown() {
+        executor.shutdownNow();
+    }
+}
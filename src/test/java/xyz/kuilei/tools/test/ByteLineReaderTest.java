@@ -0,0 +1,242 @@
+package xyz.kuilei.tools.test;
+
+import org.apache.commons.io.FileUtils;
+import org.apache.commons.io.IOUtils;
+import org.junit.Assert;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+import xyz.kuilei.tools.io.AnySeparatorLineIterator;
+import xyz.kuilei.tools.io.ByteLineFilter;
+import xyz.kuilei.tools.io.LineLengthLimit;
+import xyz.kuilei.tools.io.ReplacedLineReader;
+
+import javax.annotation.Nullable;
+import java.io.*;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Random;
+import java.util.stream.Collectors;
+
+/**
+ * 开启 {@link ByteLineFilter} 后按原始字节切行、过滤，结果与不过滤、先解码的路径对照
+ * <p>
+ * 文件都是生成的，分隔符故意跨过一次读取的 8192 个字节。
+ *
+ * @author JiaKun Xu, 2026-10-20 10:12:45
+ */
+public class ByteLineReaderTest {
+    private static final String UTF_8 = StandardCharsets.UTF_8.name();
+    private static final int READ_SIZE = 8192;
+    private static final ByteLineFilter PASS_ALL = (bytes, from, to) -> true;
+
+    @Rule
+    public TemporaryFolder folder = new TemporaryFolder();
+
+    /**
+     * 全部保留的过滤器与普通的 AnySeparatorLineIterator 切出的行相同
+     */
+    @Test
+    public void testPassAll() throws IOException {
+        for (String separator : new String[]{"\n", "\r\n", "||", "分隔"}) {
+            final int separatorBytes = separator.getBytes(StandardCharsets.UTF_8).length;
+
+            // 分隔符的每个字节都落在一次读取的末尾一次
+            for (int shift = 0; shift <= separatorBytes; ++shift) {
+                final File file = write(padTo(READ_SIZE - shift) + separator + randomText(separator, 42 + shift), UTF_8);
+
+                Assert.assertEquals(separator + " @" + shift, read(separator, file, null, null), read(separator, file, null, PASS_ALL));
+            }
+
+            // 以分隔符结尾、空文件、只有分隔符
+            for (String content : new String[]{randomText(separator, 7) + separator, "", separator, separator + separator}) {
+                final File file = write(content, UTF_8);
+
+                Assert.assertEquals(read(separator, file, null, null), read(separator, file, null, PASS_ALL));
+            }
+        }
+    }
+
+    /**
+     * 按字节过滤与解码后按字符串过滤的结果相同
+     */
+    @Test
+    public void testFilter() throws IOException {
+        for (String separator : new String[]{"\r\n", "分隔"}) {
+            final File file = write(randomText(separator, 1), UTF_8);
+            final List<String> expected = read(separator, file, null, null).stream()
+                    .filter(line -> line.contains("中"))
+                    .collect(Collectors.toList());
+
+            Assert.assertFalse(expected.isEmpty());
+            Assert.assertEquals(expected, read(separator, file, null, ByteLineFilter.contains("中", StandardCharsets.UTF_8)));
+        }
+    }
+
+    /**
+     * ReplacedLineReader 开启过滤后，行尾与 BufferedReader#readLine 相同：\r、\n、\r\n 都是行尾
+     */
+    @Test
+    public void testReplacedLineReader() throws IOException {
+        final Random random = new Random(7);
+        final String[] ends = {"\r", "\n", "\r\n"};
+        final StringBuilder sb = new StringBuilder();
+
+        // \r\n 跨过一次读取
+        sb.append(padTo(READ_SIZE - 1)).append("\r\n");
+        while (sb.length() < READ_SIZE * 4) {
+            sb.append(random.nextBoolean() ? "a" : "b").append(randomLine(random)).append(ends[random.nextInt(ends.length)]);
+            if (random.nextInt(10) == 0) {
+                sb.append(ends[random.nextInt(ends.length)]);
+            }
+        }
+        sb.append("a末行");
+
+        final File file = write(sb.toString(), UTF_8);
+
+        final List<String> lines = new ArrayList<>();
+        try (BufferedReader reader = new BufferedReader(new InputStreamReader(new FileInputStream(file), StandardCharsets.UTF_8))) {
+            String line;
+            while ((line = reader.readLine()) != null) {
+                lines.add(line);
+            }
+        }
+
+        Assert.assertEquals(lines, readReplaced(file, PASS_ALL));
+        Assert.assertEquals(
+                lines.stream().filter(line -> line.startsWith("a")).map(String::toUpperCase).collect(Collectors.toList()),
+                readReplaced(file, ByteLineFilter.startsWith("a", StandardCharsets.UTF_8))
+        );
+    }
+
+    /**
+     * TRUNCATE 按字节计长度，截断在 UTF-8 的字符边界上，不会留下半个字符
+     */
+    @Test
+    public void testTruncate() throws IOException {
+        // 读取的 8192 个字节之内超长，与一次读取都没有遇到分隔符
+        final String shortLine = repeat('中', 5);
+        final String longLine = repeat('中', READ_SIZE);
+        final File file = write("ab\n" + shortLine + "\n" + longLine + "\nend", UTF_8);
+
+        final LineLengthLimit limit = new LineLengthLimit()
+                .setMaxLength(10)
+                .setPolicy(LineLengthLimit.Policy.TRUNCATE);
+
+        final List<String> expected = new ArrayList<>();
+        expected.add("ab");
+        expected.add(repeat('中', 3));
+        expected.add(repeat('中', 3));
+        expected.add("end");
+
+        Assert.assertEquals(expected, read("\n", file, limit, PASS_ALL));
+    }
+
+    /**
+     * SPILL 把超长行的原始字节写进临时文件，不经过过滤；offset、length 按字节计
+     */
+    @Test
+    public void testSpill() throws IOException {
+        final String longLine = repeat('中', READ_SIZE) + "x";
+        final String content = "keep\r\n" + longLine + "\r\ndrop\r\nkeep2";
+        final File file = write(content, UTF_8);
+        final File spillDirectory = folder.newFolder();
+
+        final List<String> spilled = new ArrayList<>();
+        final List<long[]> positions = new ArrayList<>();
+        final LineLengthLimit limit = new LineLengthLimit()
+                .setMaxLength(100)
+                .setPolicy(LineLengthLimit.Policy.SPILL)
+                .setSpillDirectory(spillDirectory)
+                .setSpillHandler((line, offset, length) -> {
+                    spilled.add(IOUtils.toString(line));
+                    positions.add(new long[]{offset, length});
+                });
+
+        final List<String> expected = new ArrayList<>();
+        expected.add("keep");
+        expected.add("keep2");
+
+        Assert.assertEquals(expected, read("\r\n", file, limit, ByteLineFilter.startsWith("keep", StandardCharsets.UTF_8)));
+        Assert.assertEquals(1, spilled.size());
+        Assert.assertEquals(longLine, spilled.get(0));
+        Assert.assertEquals("keep\r\n".length(), positions.get(0)[0]);
+        Assert.assertEquals(longLine.getBytes(StandardCharsets.UTF_8).length, positions.get(0)[1]);
+        // 临时文件交给 spillHandler 之后删除
+        Assert.assertArrayEquals(new String[0], spillDirectory.list());
+    }
+
+    private List<String> read(String separator, File file, @Nullable LineLengthLimit limit, @Nullable ByteLineFilter filter) throws IOException {
+        final List<String> lines = new ArrayList<>();
+
+        try (AnySeparatorLineIterator ite = new AnySeparatorLineIterator(separator, file, UTF_8, null, limit, filter)) {
+            while (ite.hasNext()) {
+                lines.add(ite.next());
+            }
+        }
+
+        return lines;
+    }
+
+    private List<String> readReplaced(File file, ByteLineFilter filter) throws IOException {
+        final List<String> lines = new ArrayList<>();
+        final boolean upperCase = filter != PASS_ALL;
+
+        try (ReplacedLineReader reader = new ReplacedLineReader(line -> upperCase ? line.toUpperCase() : line, file, UTF_8, null, filter)) {
+            String line;
+            while ((line = reader.readLine()) != null) {
+                lines.add(line);
+            }
+        }
+
+        return lines;
+    }
+
+    private File write(String content, String encoding) throws IOException {
+        final File file = folder.newFile();
+        FileUtils.writeStringToFile(file, content, encoding);
+        return file;
+    }
+
+    /**
+     * 多行随机文本，约 4 次读取的大小，含中文与空行
+     */
+    private static String randomText(String separator, long seed) {
+        final Random random = new Random(seed);
+        final StringBuilder sb = new StringBuilder();
+
+        while (sb.length() < READ_SIZE * 4) {
+            sb.append(randomLine(random)).append(separator);
+        }
+        sb.append(randomLine(random));
+
+        return sb.toString();
+    }
+
+    private static String randomLine(Random random) {
+        final String chars = "abc|分中文,\t ";
+        final int length = random.nextInt(10) == 0 ? 0 : random.nextInt(200);
+        final StringBuilder sb = new StringBuilder(length);
+
+        for (int i = 0; i < length; ++i) {
+            sb.append(chars.charAt(random.nextInt(chars.length())));
+        }
+
+        return sb.toString();
+    }
+
+    /**
+     * n 个字节的 ASCII，不含分隔符
+     */
+    private static String padTo(int n) {
+        return repeat('p', n);
+    }
+
+    private static String repeat(char c, int n) {
+        final char[] chars = new char[n];
+        Arrays.fill(chars, c);
+        return new String(chars);
+    }
+}
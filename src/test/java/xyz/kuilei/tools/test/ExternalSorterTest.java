@@ -0,0 +1,193 @@
+package xyz.kuilei.tools.test;
+
+import org.apache.commons.io.FileUtils;
+import org.junit.Assert;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+import xyz.kuilei.tools.io.AnySeparatorLineIterator;
+import xyz.kuilei.tools.io.ExternalSorter;
+
+import java.io.File;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Random;
+import java.util.Set;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * {@link ExternalSorter} 的结果与 List#sort（稳定）加上保留第一次出现的去重对照
+ *
+ * @author JiaKun Xu, 2026-10-20 10:41:08
+ */
+public class ExternalSorterTest {
+    private static final String UTF_8 = "UTF-8";
+
+    @Rule
+    public TemporaryFolder folder = new TemporaryFolder();
+
+    /**
+     * 输入放得进一块内存，只在内存中排序，不写有序段
+     */
+    @Test
+    public void testInMemory() throws IOException {
+        final List<String> lines = randomLines(1000, 1);
+        final ExternalSorter sorter = new ExternalSorter().setEncoding(UTF_8).setParallelism(1);
+
+        Assert.assertEquals(0, sort(sorter, lines));
+    }
+
+    /**
+     * 多个有序段，maxFanIn = 2 时先分组归并
+     */
+    @Test
+    public void testMultiRun() throws IOException {
+        final List<String> lines = randomLines(100000, 2);
+        final ExternalSorter sorter = new ExternalSorter()
+                .setEncoding(UTF_8)
+                .setSeparator("\r\n")
+                .setMaxMemory(1 << 20)
+                .setParallelism(2)
+                .setMaxFanIn(2);
+
+        Assert.assertTrue(sort(sorter, lines) > 2);
+    }
+
+    /**
+     * 按字段排序，键相同的行保持输入的顺序
+     */
+    @Test
+    public void testField() throws IOException {
+        for (long maxMemory : new long[]{64L << 20, 1 << 20}) {
+            final ExternalSorter sorter = new ExternalSorter()
+                    .setEncoding(UTF_8)
+                    .setKey(ExternalSorter.SortKey.field(",", 1))
+                    .setMaxMemory(maxMemory)
+                    .setMaxFanIn(2);
+
+            sort(sorter, randomLines(50000, 3));
+        }
+    }
+
+    /**
+     * 去重时每个键保留输入中第一次出现的行
+     */
+    @Test
+    public void testDistinct() throws IOException {
+        for (long maxMemory : new long[]{64L << 20, 1 << 20}) {
+            sort(new ExternalSorter().setEncoding(UTF_8).setDistinct(true).setMaxMemory(maxMemory), randomLines(50000, 4));
+
+            final ExternalSorter sorter = new ExternalSorter()
+                    .setEncoding(UTF_8)
+                    .setKey(ExternalSorter.SortKey.field(",", 0))
+                    .setDistinct(true)
+                    .setMaxMemory(maxMemory)
+                    .setMaxFanIn(2);
+
+            sort(sorter, randomLines(50000, 5));
+        }
+    }
+
+    /**
+     * GBK 的字节序与字符序不同，键仍然按字符比较
+     */
+    @Test
+    public void testGbk() throws IOException {
+        for (long maxMemory : new long[]{64L << 20, 1 << 20}) {
+            final ExternalSorter sorter = new ExternalSorter()
+                    .setEncoding("GBK")
+                    .setSeparator("分隔")
+                    .setKey(ExternalSorter.SortKey.field(",", 2))
+                    .setDistinct(true)
+                    .setMaxMemory(maxMemory);
+
+            sort(sorter, randomLines(50000, 6));
+        }
+    }
+
+    /**
+     * 排序 lines，与 List#sort 的结果比较，临时目录用完删除
+     *
+     * @return 读文件时见到的有序段的个数
+     */
+    private int sort(ExternalSorter sorter, List<String> lines) throws IOException {
+        final String separator = sorter.getSeparator();
+        final File source = folder.newFile();
+        final File target = folder.newFile();
+        final File tempDirectory = folder.newFolder();
+
+        FileUtils.writeStringToFile(source, String.join(separator, lines), sorter.getEncoding());
+
+        // 读文件的线程取键时顺便数一下已经写出的有序段
+        final ExternalSorter.SortKey key = sorter.getKey();
+        final AtomicInteger calls = new AtomicInteger();
+        final AtomicInteger runs = new AtomicInteger();
+        sorter.setTempDirectory(tempDirectory).setKey(line -> {
+            if (calls.incrementAndGet() % 1000 == 0) {
+                runs.set(Math.max(runs.get(), countRuns(tempDirectory)));
+            }
+            return key.of(line);
+        });
+
+        final long written = sorter.sort(source, target);
+
+        final List<String> expected = new ArrayList<>(lines);
+        expected.sort(Comparator.comparing(key::of));
+        if (sorter.isDistinct()) {
+            final Set<String> seen = new HashSet<>();
+            expected.removeIf(line -> !seen.add(key.of(line)));
+        }
+
+        final List<String> actual = new ArrayList<>();
+        try (AnySeparatorLineIterator ite = new AnySeparatorLineIterator(separator, target, sorter.getEncoding())) {
+            while (ite.hasNext()) {
+                actual.add(ite.next());
+            }
+        }
+
+        Assert.assertEquals(expected.size(), written);
+        Assert.assertEquals(expected, actual);
+        Assert.assertArrayEquals(new String[0], tempDirectory.list());
+
+        return runs.get();
+    }
+
+    private static int countRuns(File tempDirectory) {
+        int count = 0;
+
+        for (File directory : tempDirectory.listFiles()) {
+            final String[] files = directory.list();
+            count += (files == null) ? 0 : files.length;
+        }
+
+        return count;
+    }
+
+    /**
+     * 三个逗号分隔的字段，取值范围小，有大量重复的键；含中文与空行
+     */
+    private static List<String> randomLines(int count, long seed) {
+        final Random random = new Random(seed);
+        final String[] words = {"", "a", "b", "ab", "中", "文", "中文", "啊", "亍", "z"};
+        final List<String> lines = new ArrayList<>(count);
+
+        for (int i = 0; i < count; ++i) {
+            if (random.nextInt(100) == 0) {
+                lines.add("");
+                continue;
+            }
+
+            final String[] fields = new String[3];
+            for (int j = 0; j < fields.length; ++j) {
+                fields[j] = words[random.nextInt(words.length)] + words[random.nextInt(words.length)];
+            }
+            lines.add(String.join(",", fields) + "," + i);
+        }
+
+        return lines;
+    }
+}
@@ -0,0 +1,277 @@
+package xyz.kuilei.tools.test;
+
+import org.apache.poi.ss.usermodel.Cell;
+import org.apache.poi.ss.usermodel.CellStyle;
+import org.apache.poi.ss.usermodel.Row;
+import org.apache.poi.ss.usermodel.Sheet;
+import org.apache.poi.ss.usermodel.Workbook;
+import org.apache.poi.ss.util.CellRangeAddress;
+import org.apache.poi.xssf.usermodel.XSSFWorkbook;
+import org.junit.After;
+import org.junit.Assert;
+import org.junit.Before;
+import org.junit.Test;
+import xyz.kuilei.tools.excel.CellConverter;
+import xyz.kuilei.tools.excel.RowVisitor;
+import xyz.kuilei.tools.excel.ShardedSheetReader;
+import xyz.kuilei.tools.excel.SheetReader;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Supplier;
+
+/**
+ * {@link ShardedSheetReader} 与 {@link SheetReader#accept(RowVisitor)} 对照
+ * <p>
+ * sheet 是生成的：有空行、没有 cell 的行，合并单元格跨过分片的边界。
+ *
+ * @author JiaKun Xu, 2026-10-20 11:05:26
+ */
+public class ShardedSheetReaderTest {
+    private static final int ROWS = 1000;
+    private static final int SHARD_ROWS = 64;
+    private static final int PARALLELISM = 3;
+
+    private Workbook workbook;
+    private Sheet sheet;
+    private ExecutorService executor;
+
+    /**
+     * 返回之后 sheet 还被读取的次数
+     */
+    private final AtomicBoolean returned = new AtomicBoolean();
+    private final AtomicInteger lateReads = new AtomicInteger();
+    private final Supplier<CellConverter> converters = () -> new CellConverter() {
+        @Override
+        public String getCellString(Cell cell) {
+            if (returned.get()) {
+                lateReads.incrementAndGet();
+            }
+            return super.getCellString(cell);
+        }
+    };
+
+    @Before
+    public void setUp() {
+        workbook = new XSSFWorkbook();
+        sheet = workbook.createSheet();
+        executor = Executors.newFixedThreadPool(PARALLELISM + 1);
+
+        final CellStyle dateStyle = workbook.createCellStyle();
+        dateStyle.setDataFormat((short) 14);
+
+        for (int i = 0; i < ROWS; ++i) {
+            if (i % 7 == 3) {
+                continue;
+            }
+
+            final Row row = sheet.createRow(i);
+
+            if (i % 11 == 5) {
+                // 没有 cell 的行
+                continue;
+            }
+
+            row.createCell(0).setCellValue("r" + i);
+            row.createCell(1).setCellValue(i * 1.5);
+            if (i % 3 == 0) {
+                row.createCell(2).setCellValue(i % 2 == 0);
+            }
+            if (i % 5 == 0) {
+                final Cell cell = row.createCell(5);
+                cell.setCellValue(40000 + i);
+                cell.setCellStyle(dateStyle);
+            }
+        }
+
+        // 跨一个边界、跨多个分片、左上角所在的行是空行、只有一行
+        addMergedRegion(60, 70, 0, 1, "a");
+        addMergedRegion(100, 300, 3, 4, "b");
+        addMergedRegion(127, 128, 2, 2, "c");
+        addMergedRegion(500, 520, 6, 6, "d");
+        addMergedRegion(900, 900, 3, 5, "e");
+        // 左上角没有值
+        sheet.addMergedRegion(new CellRangeAddress(630, 650, 7, 7));
+    }
+
+    @After
+    public void tearDown() throws IOException, InterruptedException {
+        executor.shutdown();
+        Assert.assertTrue(executor.awaitTermination(1, TimeUnit.MINUTES));
+        workbook.close();
+        Assert.assertEquals(0, lateReads.get());
+    }
+
+    /**
+     * 按行号顺序交付，与 SheetReader 的结果相同
+     */
+    @Test
+    public void testAccept() {
+        for (int shardRows : new int[]{1, SHARD_ROWS, 100, ROWS, ROWS * 10}) {
+            final ShardedSheetReader reader = new ShardedSheetReader(sheet, executor, PARALLELISM, shardRows, converters);
+            final List<String> actual = new ArrayList<>();
+
+            Assert.assertEquals(expected(null).size(), reader.accept(collect(actual)));
+            Assert.assertEquals("shardRows = " + shardRows, expected(null), actual);
+        }
+
+        final ShardedSheetReader reader = new ShardedSheetReader(sheet, executor, PARALLELISM, SHARD_ROWS, converters);
+        final List<String> actual = new ArrayList<>();
+        reader.setColumns(4, 0);
+        reader.accept(collect(actual));
+
+        Assert.assertEquals(expected(new int[]{4, 0}), actual);
+    }
+
+    /**
+     * 并发交付，按行号排序后与 SheetReader 的结果相同
+     */
+    @Test
+    public void testAcceptConcurrently() {
+        final ShardedSheetReader reader = new ShardedSheetReader(sheet, executor, PARALLELISM, SHARD_ROWS, converters);
+        final List<String> actual = Collections.synchronizedList(new ArrayList<>());
+
+        Assert.assertEquals(expected(null).size(), reader.acceptConcurrently(collect(actual)));
+
+        actual.sort(Comparator.comparingInt(ShardedSheetReaderTest::rowIndex));
+        Assert.assertEquals(expected(null), actual);
+    }
+
+    /**
+     * visitor 返回 false 时停下，返回之后不再读取 sheet
+     */
+    @Test
+    public void testStop() {
+        final List<String> expected = expected(null);
+
+        final List<String> actual = new ArrayList<>();
+        final RowVisitor collect = collect(actual);
+        final int count = new ShardedSheetReader(sheet, executor, PARALLELISM, SHARD_ROWS, converters)
+                .accept((rowIndex, cellCount, cells) -> collect.visit(rowIndex, cellCount, cells) && actual.size() < 100);
+
+        Assert.assertEquals(100, count);
+        Assert.assertEquals(expected.subList(0, 100), actual);
+
+        final AtomicInteger visits = new AtomicInteger();
+        final int concurrentCount = new ShardedSheetReader(sheet, executor, PARALLELISM, SHARD_ROWS, converters)
+                .acceptConcurrently((rowIndex, cellCount, cells) -> visits.incrementAndGet() < 50);
+        returned.set(true);
+
+        Assert.assertEquals(visits.get(), concurrentCount);
+        Assert.assertTrue(concurrentCount >= 50);
+        Assert.assertTrue(concurrentCount < expected.size() / 2);
+    }
+
+    /**
+     * 一个分片失败，其他分片尽快停下，抛出这个异常，返回之后不再读取 sheet
+     */
+    @Test
+    public void testFailure() {
+        final int total = expected(null).size();
+        final IllegalStateException failure = new IllegalStateException("row 0");
+        final AtomicInteger visits = new AtomicInteger();
+
+        try {
+            new ShardedSheetReader(sheet, executor, PARALLELISM, SHARD_ROWS, converters)
+                    .acceptConcurrently((rowIndex, cellCount, cells) -> {
+                        visits.incrementAndGet();
+                        if (rowIndex == 0) {
+                            throw failure;
+                        }
+                        return true;
+                    });
+            Assert.fail();
+        } catch (IllegalStateException e) {
+            returned.set(true);
+            Assert.assertSame(failure, e);
+        }
+
+        Assert.assertTrue(visits.get() < total / 2);
+
+        // 按顺序交付时 visitor 在调用者线程中抛出
+        returned.set(false);
+        try {
+            new ShardedSheetReader(sheet, executor, PARALLELISM, SHARD_ROWS, converters)
+                    .accept((rowIndex, cellCount, cells) -> {
+                        if (rowIndex == 200) {
+                            throw failure;
+                        }
+                        return true;
+                    });
+            Assert.fail();
+        } catch (IllegalStateException e) {
+            returned.set(true);
+            Assert.assertSame(failure, e);
+        }
+
+        // worker 中转换失败
+        returned.set(false);
+        final Supplier<CellConverter> failing = () -> new CellConverter() {
+            @Override
+            public String getCellString(Cell cell) {
+                if (returned.get()) {
+                    lateReads.incrementAndGet();
+                }
+                if (cell != null && cell.getRowIndex() == 300) {
+                    throw failure;
+                }
+                return super.getCellString(cell);
+            }
+        };
+        try {
+            new ShardedSheetReader(sheet, executor, PARALLELISM, SHARD_ROWS, failing)
+                    .accept((rowIndex, cellCount, cells) -> true);
+            Assert.fail();
+        } catch (IllegalStateException e) {
+            returned.set(true);
+            Assert.assertSame(failure, e);
+        }
+    }
+
+    private void addMergedRegion(int firstRow, int lastRow, int firstCol, int lastCol, String value) {
+        Row row = sheet.getRow(firstRow);
+        if (row == null) {
+            row = sheet.createRow(firstRow);
+        }
+        row.createCell(firstCol).setCellValue(value);
+        sheet.addMergedRegion(new CellRangeAddress(firstRow, lastRow, firstCol, lastCol));
+    }
+
+    private List<String> expected(int[] columns) {
+        final List<String> rows = new ArrayList<>();
+        final SheetReader reader = new SheetReader(sheet);
+
+        reader.setColumns(columns);
+        reader.accept(collect(rows));
+
+        return rows;
+    }
+
+    /**
+     * 每行转成 "行号:值1|值2|..."
+     */
+    private static RowVisitor collect(List<String> rows) {
+        return (rowIndex, cellCount, cells) -> {
+            final StringBuilder sb = new StringBuilder().append(rowIndex).append(':');
+
+            for (int i = 0; i < cellCount; ++i) {
+                sb.append(cells.get(i)).append('|');
+            }
+
+            rows.add(sb.toString());
+            return true;
+        };
+    }
+
+    private static int rowIndex(String row) {
+        return Integer.parseInt(row.substring(0, row.indexOf(':')));
+    }
+}
@@ -3,9 +3,14 @@ package xyz.kuilei.tools.test;
 import org.apache.commons.io.IOUtils;
 import org.apache.commons.io.output.NullOutputStream;
 import org.apache.commons.lang3.StringUtils;
+import org.apache.poi.hssf.usermodel.HSSFWorkbook;
+import org.apache.poi.ss.usermodel.Row;
 import org.apache.poi.ss.usermodel.Sheet;
+import org.junit.Assert;
 import org.junit.Test;
+import xyz.kuilei.tools.excel.CellUtils;
 import xyz.kuilei.tools.excel.ExcelReader;
+import xyz.kuilei.tools.excel.ExcelReaderConfig;
 import xyz.kuilei.tools.excel.TrimmedLine;
 import xyz.kuilei.tools.io.AnySeparatorLineIterator;
 import xyz.kuilei.tools.io.LineReplacer;
@@ -14,6 +19,7 @@ import xyz.kuilei.tools.io.ReplacedLineReader;
 
 import java.io.*;
 import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
 import java.util.List;
 
 /**
@@ -76,6 +82,28 @@ public class TestAll {
         }
     }
 
+    /**
+     * date1904.xls 使用 1904 日期系统：A1 = 40000，格式 14；B1 = A1+1，带着缓存的结果
+     */
+    @Test
+    public void testDate1904() throws IOException {
+        final File file = new File("src/test/resources/date1904.xls");
+        final List<String> expected = Arrays.asList("20130707000000", "20130708000000");
+
+        try (HSSFWorkbook workbook = new HSSFWorkbook(new FileInputStream(file))) {
+            final Row row = workbook.getSheetAt(0).getRow(0);
+
+            Assert.assertEquals(expected.get(0), CellUtils.getCellString(row.getCell(0)));
+            Assert.assertEquals(expected.get(1), CellUtils.getCellString(row.getCell(1)));
+        }
+        try (ExcelReader reader = new ExcelReader(file)) {
+            Assert.assertEquals(expected, reader.read());
+        }
+        try (ExcelReader reader = new ExcelReader(file, new ExcelReaderConfig().setXlsEventModel(true))) {
+            Assert.assertEquals(expected, reader.read());
+        }
+    }
+
     @Test
     public void testReplacedLine() throws IOException {
         long start;